@@ -0,0 +1,135 @@
+package com.cinemitr.datatracker.dto;
+
+import com.cinemitr.datatracker.enums.ContentPriority;
+import com.cinemitr.datatracker.enums.ContentStatus;
+import com.cinemitr.datatracker.enums.LocalStatus;
+import com.cinemitr.datatracker.enums.StatsPage;
+import com.cinemitr.datatracker.enums.UploadStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization time per row of a catalog list in each format the API answers in, with mappers
+ * built like Spring MVC's converters. The bytes per row of each combination are printed once per
+ * trial. The synthetic rows repeat a lot, so gzip compresses them better than real lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(WireFormatBenchmark.ROWS)
+public class WireFormatBenchmark {
+
+    static final int ROWS = 5000;
+
+    @Param({"media", "content", "upload", "stats"})
+    private String dto;
+
+    @Param({"json", "cbor", "smile", "json+gzip"})
+    private String format;
+
+    private List<Object> rows;
+    private ObjectMapper mapper;
+    private boolean gzip;
+
+    @Setup
+    public void createRows() throws IOException {
+        rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(row(i));
+        }
+        switch (format) {
+            case "cbor":
+                mapper = Jackson2ObjectMapperBuilder.cbor().build();
+                break;
+            case "smile":
+                mapper = Jackson2ObjectMapperBuilder.smile().build();
+                break;
+            default:
+                mapper = Jackson2ObjectMapperBuilder.json().build();
+        }
+        gzip = format.endsWith("+gzip");
+        System.out.printf("%n%s as %s: %.1f bytes/row%n", dto, format, (double) serialize().length / ROWS);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        byte[] bytes = mapper.writeValueAsBytes(rows);
+        if (!gzip) {
+            return bytes;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    // Field values shaped like the sample data, varying per row
+    private Object row(int i) {
+        switch (dto) {
+            case "media": {
+                MediaCatalogDTO media = new MediaCatalogDTO();
+                media.setId((long) i);
+                media.setMediaType(i % 3 == 0 ? "Web-Series" : "Movie");
+                media.setMediaName("Benchmark Title " + i);
+                media.setLanguage(i % 2 == 0 ? "Hindi" : "English");
+                media.setMainGenres("Drama");
+                media.setSubGenres("Thriller, Mystery");
+                media.setIsDownloaded(i % 2 == 0 ? "Yes" : "No");
+                media.setDownloadPath("/media/benchmark/" + i + ".mkv");
+                media.setAvailableOn("Netflix");
+                return media;
+            }
+            case "content": {
+                ContentCatalogDTO content = new ContentCatalogDTO();
+                content.setId((long) i);
+                content.setLink("https://www.instagram.com/reel/benchmark" + i);
+                content.setMediaType("Movie");
+                content.setMediaName("Benchmark Title " + i);
+                content.setMediaNamesList(Arrays.asList("Benchmark Title " + i, "Benchmark Title " + (i + 1)));
+                content.setStatus(ContentStatus.values()[i % ContentStatus.values().length].getValue());
+                content.setPriority(ContentPriority.values()[i % ContentPriority.values().length].getValue());
+                content.setLocalStatus(LocalStatus.values()[i % LocalStatus.values().length].getValue());
+                content.setLocalFilePath("/content/benchmark/" + i + ".mp4");
+                return content;
+            }
+            case "upload": {
+                UploadCatalogDTO upload = new UploadCatalogDTO();
+                upload.setId((long) i);
+                upload.setSourceLink("https://www.instagram.com/reel/benchmark" + i);
+                upload.setSourceData("/uploads/benchmark/" + i + ".mp4");
+                upload.setStatus(UploadStatus.values()[i % UploadStatus.values().length].getValue());
+                upload.setMediaType("Movie");
+                upload.setMediaName("Benchmark Title " + i);
+                upload.setMediaNamesList(Arrays.asList("Benchmark Title " + i));
+                upload.setMediaData("{\"format\": \"mp4\", \"duration\": " + (30 + i % 60) + "}");
+                upload.setMetadata("caption " + i + " #movie #review");
+                return upload;
+            }
+            default: {
+                StatsCatalogDTO stats = new StatsCatalogDTO();
+                stats.setId((long) i);
+                stats.setDate(LocalDate.of(2024, 1, 1).plusDays(i).toString());
+                stats.setTotalViews(Integer.toString(15000 + i * 7));
+                stats.setSubscribers(Integer.toString(1200 + i));
+                stats.setInteraction(Integer.toString(800 + i * 3));
+                stats.setContent("Daily analytics");
+                stats.setPage(StatsPage.values()[i % StatsPage.values().length].getLabel());
+                return stats;
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.cinemitr.datatracker.service;
+
+import com.cinemitr.datatracker.DataTrackerApplication;
+import com.cinemitr.datatracker.entity.MediaCatalog;
+import com.cinemitr.datatracker.repository.MediaCatalogRepository;
+import com.cinemitr.datatracker.util.LinkNormalizer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Media and content listings over rows whose metadata_status.meta_data holds 100 KB, on an
+ * in-memory database. The listings only read the path; loadingMetadata also reads meta_data of
+ * every listed media, which is what each listing paid while the column was loaded eagerly.
+ * Calls run in a read-write transaction, which bypasses the read cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class LazyMetadataBenchmark {
+
+    private static final int METADATA_BYTES = 100 * 1024;
+
+    @Param("200")
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transaction;
+    private MediaCatalogService mediaService;
+    private ContentCatalogService contentService;
+    private MediaCatalogRepository mediaRepository;
+
+    @Setup
+    public void start() {
+        context = new SpringApplicationBuilder(DataTrackerApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:lazy-metadata;DB_CLOSE_DELAY=-1;MODE=MySQL;"
+                        + "DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE",
+                "--spring.main.web-application-type=none",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN");
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        mediaService = context.getBean(MediaCatalogService.class);
+        contentService = context.getBean(ContentCatalogService.class);
+        mediaRepository = context.getBean(MediaCatalogRepository.class);
+        seed(context.getBean(JdbcTemplate.class));
+    }
+
+    // One metadata row per media and per content row, each referenced by its path column
+    private void seed(JdbcTemplate jdbcTemplate) {
+        String metadata = "{\"notes\": \"" + String.join("", Collections.nCopies(METADATA_BYTES, "x")) + "\"}";
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < 2 * rows; i++) {
+            batch.add(new Object[]{"MEDIA_FILE", "/benchmark/" + i, true, metadata, now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO metadata_status (path_category, path, is_available, meta_data, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", batch);
+        long firstMetadataId = jdbcTemplate.queryForObject(
+                "SELECT MIN(id) FROM metadata_status WHERE path LIKE '/benchmark/%'", Long.class);
+
+        batch.clear();
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Object[]{"Movie", "Benchmark Media " + i, "English", true, "Drama", "", "Netflix",
+                    firstMetadataId + i, now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO media_catalog (media_type, media_name, language, is_downloaded, main_genres, "
+                + "sub_genres, available_on, download_path, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+
+        batch.clear();
+        for (int i = 0; i < rows; i++) {
+            String link = "https://benchmark.example.com/video/" + i;
+            batch.add(new Object[]{link, LinkNormalizer.hash(link), firstMetadataId + rows + i,
+                    now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO content_catalog (link, link_hash, status, priority, local_status, "
+                + "local_file_path, created_at, updated_at) VALUES (?, ?, 0, 0, 0, ?, ?, ?)", batch);
+    }
+
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public int listMedia() {
+        return transaction.execute(status -> mediaService.getAllMedia().size());
+    }
+
+    @Benchmark
+    public int listContent() {
+        return transaction.execute(status -> contentService.getAllContent().size());
+    }
+
+    @Benchmark
+    public long listMediaLoadingMetadata() {
+        return transaction.execute(status -> {
+            long length = 0;
+            for (MediaCatalog media : mediaRepository.findAll()) {
+                if (media.getDownloadPath() != null) {
+                    length += media.getDownloadPath().getPath().length() + media.getDownloadPath().getMetaData().length();
+                }
+            }
+            return length;
+        });
+    }
+}
@@ -0,0 +1,89 @@
+package com.cinemitr.datatracker.service;
+
+import com.cinemitr.datatracker.dto.StatsCatalogDTO;
+import com.cinemitr.datatracker.entity.StatsCatalog;
+import com.cinemitr.datatracker.enums.StatsPage;
+import org.openjdk.jmh.annotations.*;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row cost of the statistics conversions, on rows of distinct days. Run with {@code -prof gc}
+ * for the bytes allocated per row. The legacy benchmarks repeat the conversion as it was before
+ * LocalDate and NumberText (a SimpleDateFormat, String.format and a toLowerCase per row), each
+ * thread with its own formatter, as a baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatsConversionBenchmark {
+
+    private static final int ROWS = 10000;
+
+    private final StatsCatalogService service = new StatsCatalogService();
+    private final SimpleDateFormat legacyFormat = new SimpleDateFormat("yyyy-MM-dd");
+
+    private StatsCatalog[] rows;
+    private Date[] legacyDates;
+    private String[] texts;
+    private int next;
+
+    @Setup
+    public void createRows() {
+        rows = new StatsCatalog[ROWS];
+        legacyDates = new Date[ROWS];
+        texts = new String[ROWS];
+        LocalDate first = LocalDate.of(2000, 1, 1);
+        for (int i = 0; i < ROWS; i++) {
+            LocalDate date = first.plusDays(i);
+            rows[i] = new StatsCatalog(date, 15000 + i * 1.5, 1200 + i, 800 + i * 0.25,
+                    StatsPage.values()[i % StatsPage.values().length]);
+            rows[i].setId((long) i);
+            legacyDates[i] = Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+            texts[i] = date.toString();
+        }
+    }
+
+    private int nextRow() {
+        next = next + 1 == ROWS ? 0 : next + 1;
+        return next;
+    }
+
+    @Benchmark
+    public StatsCatalogDTO convertToDTO() {
+        return service.convertToDTO(rows[nextRow()]);
+    }
+
+    @Benchmark
+    public LocalDate parseDate() {
+        return StatsCatalogService.parseDate(texts[nextRow()]);
+    }
+
+    @Benchmark
+    public StatsCatalogDTO legacyConvertToDTO() {
+        int i = nextRow();
+        StatsCatalog stats = rows[i];
+        StatsCatalogDTO dto = new StatsCatalogDTO();
+        dto.setId(stats.getId());
+        dto.setDate(legacyFormat.format(legacyDates[i]));
+        dto.setTotalViews(String.format("%.0f", stats.getTotalViews()));
+        dto.setSubscribers(String.format("%.0f", stats.getSubscribers()));
+        dto.setInteraction(String.format("%.0f", stats.getInteraction()));
+        dto.setContent("Daily analytics");
+        dto.setPage(stats.getPage().getValue().toLowerCase());
+        return dto;
+    }
+
+    @Benchmark
+    public Date legacyParseDate() throws ParseException {
+        return legacyFormat.parse(texts[nextRow()]);
+    }
+}
@@ -2,8 +2,10 @@ package com.cinemitr.datatracker;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class DataTrackerApplication {
     public static void main(String[] args) {
         SpringApplication.run(DataTrackerApplication.class, args);
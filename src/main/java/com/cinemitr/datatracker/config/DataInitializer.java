@@ -5,21 +5,27 @@ import com.cinemitr.datatracker.entity.MetadataStatus;
 import com.cinemitr.datatracker.entity.ContentCatalog;
 import com.cinemitr.datatracker.entity.UploadCatalog;
 import com.cinemitr.datatracker.entity.StatsCatalog;
+import com.cinemitr.datatracker.enums.ContentPriority;
+import com.cinemitr.datatracker.enums.ContentStatus;
+import com.cinemitr.datatracker.enums.LocalStatus;
 import com.cinemitr.datatracker.enums.PathCategory;
+import com.cinemitr.datatracker.enums.StatsPage;
+import com.cinemitr.datatracker.enums.UploadStatus;
 import com.cinemitr.datatracker.repository.MediaCatalogRepository;
 import com.cinemitr.datatracker.repository.MetadataStatusRepository;
 import com.cinemitr.datatracker.repository.ContentCatalogRepository;
 import com.cinemitr.datatracker.repository.UploadCatalogRepository;
 import com.cinemitr.datatracker.repository.StatsCatalogRepository;
+import com.cinemitr.datatracker.service.StatsRollupService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
-import java.time.ZoneId;
-import java.util.Date;
 
 @Component
+@Profile("!prod")
 public class DataInitializer implements CommandLineRunner {
 
     @Autowired
@@ -37,6 +43,9 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private StatsCatalogRepository statsCatalogRepository;
 
+    @Autowired
+    private StatsRollupService statsRollup;
+
     @Override
     public void run(String... args) throws Exception {
         // Only initialize data if the database is empty
@@ -89,18 +98,18 @@ public class DataInitializer implements CommandLineRunner {
             ContentCatalog content1 = new ContentCatalog();
             content1.setLink("https://example.com/video1");
             content1.addMedia(media1);
-            content1.setStatus("downloaded");
-            content1.setPriority("high");
-            content1.setLocalStatus("downloaded");
+            content1.setStatus(ContentStatus.DOWNLOADED);
+            content1.setPriority(ContentPriority.HIGH);
+            content1.setLocalStatus(LocalStatus.DOWNLOADED);
             content1.setLocalFilePath(metadata2);
             contentCatalogRepository.save(content1);
 
             ContentCatalog content2 = new ContentCatalog();
             content2.setLink("https://example.com/video2");
             content2.addMedia(media2);
-            content2.setStatus("new");
-            content2.setPriority("medium");
-            content2.setLocalStatus("na");
+            content2.setStatus(ContentStatus.NEW);
+            content2.setPriority(ContentPriority.MEDIUM);
+            content2.setLocalStatus(LocalStatus.NA);
             content2.setLocalFilePath(null);
             contentCatalogRepository.save(content2);
 
@@ -108,35 +117,35 @@ public class DataInitializer implements CommandLineRunner {
             UploadCatalog upload1 = new UploadCatalog();
             upload1.setSourceLink(content1);
             upload1.setSourceData(metadata1);
-            upload1.setStatus("completed");
+            upload1.setStatus(UploadStatus.COMPLETED);
             upload1.addMedia(media1);
             uploadCatalogRepository.save(upload1);
 
             UploadCatalog upload2 = new UploadCatalog();
             upload2.setSourceLink(content2);
             upload2.setSourceData(metadata2);
-            upload2.setStatus("in-progress");
+            upload2.setStatus(UploadStatus.IN_PROGRESS);
             upload2.addMedia(media2);
             uploadCatalogRepository.save(upload2);
 
             // Create StatsCatalog entries
             StatsCatalog stats1 = new StatsCatalog();
-            stats1.setDate(Date.from(LocalDate.of(2024, 1, 15).atStartOfDay(ZoneId.systemDefault()).toInstant()));
+            stats1.setDate(LocalDate.of(2024, 1, 15));
             stats1.setTotalViews(15420.0);
             stats1.setSubscribers(1250.0);
             stats1.setInteraction(850.0);
             stats1.setContent(content1);
-            stats1.setPage("CINE.MITR");
-            statsCatalogRepository.save(stats1);
+            stats1.setPage(StatsPage.CINE_MITR);
+            statsRollup.added(statsCatalogRepository.save(stats1));
 
             StatsCatalog stats2 = new StatsCatalog();
-            stats2.setDate(Date.from(LocalDate.of(2024, 1, 16).atStartOfDay(ZoneId.systemDefault()).toInstant()));
+            stats2.setDate(LocalDate.of(2024, 1, 16));
             stats2.setTotalViews(16800.0);
             stats2.setSubscribers(1275.0);
             stats2.setInteraction(920.0);
             stats2.setContent(content2);
-            stats2.setPage("CINE.MITR.MUSIC");
-            statsCatalogRepository.save(stats2);
+            stats2.setPage(StatsPage.CINE_MITR_MUSIC);
+            statsRollup.added(statsCatalogRepository.save(stats2));
 
             System.out.println("Sample data initialized successfully!");
         } catch (Exception e) {
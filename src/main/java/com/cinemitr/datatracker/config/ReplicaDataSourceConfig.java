@@ -0,0 +1,105 @@
+package com.cinemitr.datatracker.config;
+
+import com.cinemitr.datatracker.service.ReplicaReads;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Primary/replica data sources, only set up when datatracker.datasource.replica.url is configured.
+ *
+ * The application's DataSource picks the primary or the replica per connection, as decided by
+ * {@link ReplicaReads}. It is wrapped in a {@link LazyConnectionDataSourceProxy} so the choice is
+ * made at the first statement, once the transaction and its read-only flag are set up, and
+ * Hibernate gives the connection back after every transaction instead of holding it for the whole
+ * request, so a request can read from the replica and write to the primary. Flyway migrates the
+ * primary only.
+ */
+@Configuration
+@ConditionalOnExpression("!'${datatracker.datasource.replica.url:}'.trim().isEmpty()")
+public class ReplicaDataSourceConfig {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName(PRIMARY);
+        return primary;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${datatracker.datasource.replica.url}") String url,
+                                              @Value("${datatracker.datasource.replica.username:${spring.datasource.username:}}") String username,
+                                              @Value("${datatracker.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName(REPLICA);
+        replica.setDriverClassName(properties.determineDriverClassName());
+        replica.setJdbcUrl(url.trim());
+        replica.setUsername(username);
+        replica.setPassword(password);
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 @Lazy ReplicaReads replicaReads) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(replicaReads);
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        targets.put(REPLICA, replica);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    private static final class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+        private final ReplicaReads replicaReads;
+
+        private ReadWriteRoutingDataSource(ReplicaReads replicaReads) {
+            this.replicaReads = replicaReads;
+        }
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            // Startup (schema validation, Flyway) and other work outside transactions uses the primary
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                return PRIMARY;
+            }
+            return replicaReads.useReplica() ? REPLICA : PRIMARY;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.cinemitr.datatracker.config;
+
+import com.cinemitr.datatracker.service.ReadCoalescer;
+import com.cinemitr.datatracker.service.ReplicaReads;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stand-in for database replication, to run the replica routing locally with a second H2 database
+ * as the replica (datatracker.datasource.replica.stand-in=true).
+ *
+ * The replica schema is migrated with the application's Flyway migrations. On startup, and after
+ * that whenever this instance has committed writes since the last run, every table is copied from a
+ * snapshot of the primary in a single replica transaction: replica readers see the previous copy
+ * until it commits, never a half-copied one. Each run copies the whole database, which is fine for
+ * development data but not meant for large tables; writes made by other instances arrive with the
+ * next run this instance triggers.
+ */
+@Component
+@ConditionalOnExpression("!'${datatracker.datasource.replica.url:}'.trim().isEmpty() && ${datatracker.datasource.replica.stand-in:false}")
+public class ReplicationStandIn {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replica;
+
+    @Autowired
+    private ReplicaReads replicaReads;
+
+    @Autowired
+    private ReadCoalescer readCoalescer;
+
+    @Value("${spring.flyway.locations:classpath:db/migration}")
+    private String[] migrationLocations;
+
+    private boolean copied;
+
+    @PostConstruct
+    public void migrateReplica() {
+        Flyway.configure()
+                .dataSource(replica)
+                .locations(migrationLocations)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${datatracker.datasource.replica.stand-in-interval-ms:1000}",
+            fixedDelayString = "${datatracker.datasource.replica.stand-in-interval-ms:1000}")
+    public synchronized void replicate() {
+        if (copied && !replicaReads.hasUnreplicatedWrites()) {
+            return;
+        }
+        long asOf = System.currentTimeMillis();
+        long start = System.nanoTime();
+        try (Connection from = primary.getConnection(); Connection to = replica.getConnection()) {
+            // One snapshot of the primary for all tables, so rows and the rows they reference match
+            from.setAutoCommit(false);
+            from.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            to.setAutoCommit(false);
+            to.setReadOnly(false);
+            long rows = 0;
+            List<String> tables = tablesParentsFirst(from);
+            try {
+                for (int i = tables.size() - 1; i >= 0; i--) {
+                    try (Statement delete = to.createStatement()) {
+                        delete.executeUpdate("DELETE FROM " + tables.get(i));
+                    }
+                }
+                for (String table : tables) {
+                    rows += copy(from, to, table);
+                }
+                to.commit();
+            } catch (SQLException e) {
+                to.rollback();
+                throw e;
+            } finally {
+                from.rollback();
+            }
+            copied = true;
+            replicaReads.replicated(asOf);
+            // Cached replica reads may predate the copy
+            readCoalescer.invalidateAll();
+            System.out.println("Replica stand-in copied " + rows + " rows of " + tables.size() + " tables in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (SQLException e) {
+            System.err.println("Replica stand-in copy failed, the replica keeps its previous data: " + e.getMessage());
+        }
+    }
+
+    private static long copy(Connection from, Connection to, String table) throws SQLException {
+        long rows = 0;
+        try (Statement select = from.createStatement();
+             ResultSet rs = select.executeQuery("SELECT * FROM " + table)) {
+            ResultSetMetaData meta = rs.getMetaData();
+            int columnCount = meta.getColumnCount();
+            StringBuilder columns = new StringBuilder();
+            StringBuilder values = new StringBuilder();
+            for (int i = 1; i <= columnCount; i++) {
+                columns.append(i > 1 ? ", " : "").append(meta.getColumnName(i));
+                values.append(i > 1 ? ", ?" : "?");
+            }
+            try (PreparedStatement insert = to.prepareStatement(
+                    "INSERT INTO " + table + " (" + columns + ") VALUES (" + values + ")")) {
+                while (rs.next()) {
+                    for (int i = 1; i <= columnCount; i++) {
+                        insert.setObject(i, value(rs.getObject(i)));
+                    }
+                    insert.addBatch();
+                    if (++rows % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+        }
+        return rows;
+    }
+
+    // LOB handles belong to the primary's session, the replica gets their contents
+    private static Object value(Object value) throws SQLException {
+        if (value instanceof Clob) {
+            Clob clob = (Clob) value;
+            return clob.getSubString(1, (int) clob.length());
+        }
+        if (value instanceof Blob) {
+            Blob blob = (Blob) value;
+            return blob.getBytes(1, (int) blob.length());
+        }
+        return value;
+    }
+
+    /**
+     * The application tables, each after the tables its foreign keys point to.
+     */
+    private static List<String> tablesParentsFirst(Connection connection) throws SQLException {
+        Map<String, Set<String>> parents = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT table_name FROM information_schema.tables "
+                     + "WHERE table_schema = SCHEMA() AND table_type = 'BASE TABLE' "
+                     + "AND LOWER(table_name) <> 'flyway_schema_history' ORDER BY table_name")) {
+            while (rs.next()) {
+                parents.put(rs.getString(1), new LinkedHashSet<>());
+            }
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT fk.table_name, pk.table_name "
+                     + "FROM information_schema.referential_constraints rc "
+                     + "JOIN information_schema.table_constraints fk ON fk.constraint_schema = rc.constraint_schema "
+                     + "AND fk.constraint_name = rc.constraint_name "
+                     + "JOIN information_schema.table_constraints pk ON pk.constraint_schema = rc.unique_constraint_schema "
+                     + "AND pk.constraint_name = rc.unique_constraint_name "
+                     + "WHERE rc.constraint_schema = SCHEMA()")) {
+            while (rs.next()) {
+                if (parents.containsKey(rs.getString(1)) && !rs.getString(1).equals(rs.getString(2))) {
+                    parents.get(rs.getString(1)).add(rs.getString(2));
+                }
+            }
+        }
+        List<String> ordered = new ArrayList<>();
+        Set<String> visiting = new LinkedHashSet<>();
+        for (String table : parents.keySet()) {
+            visit(table, parents, visiting, ordered);
+        }
+        return ordered;
+    }
+
+    private static void visit(String table, Map<String, Set<String>> parents, Set<String> visiting, List<String> ordered) {
+        if (ordered.contains(table) || !visiting.add(table)) {
+            return;
+        }
+        for (String parent : parents.getOrDefault(table, new LinkedHashSet<>())) {
+            visit(parent, parents, visiting, ordered);
+        }
+        ordered.add(table);
+    }
+}
@@ -0,0 +1,36 @@
+package com.cinemitr.datatracker.controller;
+
+import com.cinemitr.datatracker.dto.BatchRequestDTO;
+import com.cinemitr.datatracker.dto.BatchResponseDTO;
+import com.cinemitr.datatracker.service.BatchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/batch")
+@CrossOrigin(origins = "*")
+public class BatchController {
+
+    @Autowired
+    private BatchService batchService;
+
+    @PostMapping
+    public ResponseEntity<?> executeBatch(@RequestBody BatchRequestDTO request) {
+        try {
+            BatchResponseDTO response = batchService.execute(request);
+            // A rolled back all-or-nothing batch changed nothing, report it like a rejected single request
+            if (!response.isSuccess() && BatchService.ALL_OR_NOTHING.equals(response.getMode())) {
+                return ResponseEntity.badRequest().body(response);
+            }
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+}
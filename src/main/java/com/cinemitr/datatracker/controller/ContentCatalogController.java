@@ -1,12 +1,22 @@
 package com.cinemitr.datatracker.controller;
 
 import com.cinemitr.datatracker.dto.ContentCatalogDTO;
+import com.cinemitr.datatracker.service.ConflictRetry;
 import com.cinemitr.datatracker.service.ContentCatalogService;
+import com.cinemitr.datatracker.service.IdempotencyService;
+import com.cinemitr.datatracker.service.ReplicaReads;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/content")
@@ -16,31 +26,149 @@ public class ContentCatalogController {
     @Autowired
     private ContentCatalogService contentService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Autowired
+    private ReplicaReads replicaReads;
+
     @GetMapping
-    public ResponseEntity<List<ContentCatalogDTO>> getAllContent() {
-        List<ContentCatalogDTO> content = contentService.getAllContent();
+    public ResponseEntity<?> getAllContent(@RequestParam(required = false) String fields) {
+        if (fields != null) {
+            try {
+                return ResponseEntity.ok(replicaReads.run(() -> contentService.getAllContent(fields)));
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(error);
+            }
+        }
+        List<ContentCatalogDTO> content = replicaReads.run(() -> contentService.getAllContent());
         return ResponseEntity.ok(content);
     }
 
+    @GetMapping(params = "status")
+    public ResponseEntity<?> getContentByStatus(@RequestParam String status) {
+        try {
+            return ResponseEntity.ok(replicaReads.run(() -> contentService.getContentByStatus(status)));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllContent() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(contentService.streamAllContent());
+    }
+
+    @GetMapping("/analytics")
+    public ResponseEntity<?> getAnalytics(@RequestParam(required = false) String from,
+                                          @RequestParam(required = false) String to) {
+        try {
+            return ResponseEntity.ok(replicaReads.run(() -> contentService.getContentAnalytics(from, to)));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<?> getChanges(@RequestParam(required = false) String since,
+                                        @RequestParam(defaultValue = "1000") int limit) {
+        try {
+            return ResponseEntity.ok(contentService.getContentChanges(since, Math.min(limit, 5000)));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getContentByIds(@RequestParam List<Long> ids) {
+        return multiGet(ids);
+    }
+
+    @PostMapping("/multi-get")
+    public ResponseEntity<?> getContentByIdsPost(@RequestBody List<Long> ids) {
+        return multiGet(ids);
+    }
+
+    private ResponseEntity<?> multiGet(List<Long> ids) {
+        try {
+            return ResponseEntity.ok(replicaReads.run(() -> contentService.getContentByIds(ids)));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ContentCatalogDTO> getContentById(@PathVariable Long id) {
-        return contentService.getContentById(id)
+        return replicaReads.run(() -> contentService.getContentById(id))
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
-    public ResponseEntity<ContentCatalogDTO> createContent(@RequestBody ContentCatalogDTO contentDTO) {
-        ContentCatalogDTO savedContent = contentService.saveContent(contentDTO);
-        return ResponseEntity.ok(savedContent);
+    public ResponseEntity<?> createContent(@RequestBody ContentCatalogDTO contentDTO,
+                                           @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("content", idempotencyKey, contentDTO, () -> {
+            try {
+                ContentCatalogDTO savedContent = conflictRetry.run(() -> contentService.saveContent(contentDTO));
+                return ResponseEntity.ok(savedContent);
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(error);
+            } catch (OptimisticLockingFailureException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", e.getMessage());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+            }
+        });
     }
     
 
     @PutMapping("/{id}")
-    public ResponseEntity<ContentCatalogDTO> updateContent(@PathVariable Long id, @RequestBody ContentCatalogDTO contentDTO) {
+    public ResponseEntity<?> updateContent(@PathVariable Long id, @RequestBody ContentCatalogDTO contentDTO) {
         try {
-            ContentCatalogDTO updatedContent = contentService.updateContent(id, contentDTO);
+            ContentCatalogDTO updatedContent = conflictRetry.run(() -> contentService.updateContent(id, contentDTO));
             return ResponseEntity.ok(updatedContent);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patchContent(@PathVariable Long id, @RequestBody JsonNode patch) {
+        try {
+            return ResponseEntity.ok(conflictRetry.run(() -> contentService.patchContent(id, patch)));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -48,13 +176,12 @@ public class ContentCatalogController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteContent(@PathVariable Long id) {
-        contentService.deleteContent(id);
+        conflictRetry.run(() -> contentService.deleteContent(id));
         return ResponseEntity.ok().build();
     }
 
     @GetMapping("/count")
     public ResponseEntity<Long> getContentCount() {
-        List<ContentCatalogDTO> content = contentService.getAllContent();
-        return ResponseEntity.ok((long) content.size());
+        return ResponseEntity.ok(replicaReads.run(() -> contentService.countContent()));
     }
 }
\ No newline at end of file
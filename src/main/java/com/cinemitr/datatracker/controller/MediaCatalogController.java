@@ -1,10 +1,20 @@
 package com.cinemitr.datatracker.controller;
 
 import com.cinemitr.datatracker.dto.MediaCatalogDTO;
+import com.cinemitr.datatracker.dto.MediaDuplicateDTO;
+import com.cinemitr.datatracker.dto.MediaSuggestionDTO;
+import com.cinemitr.datatracker.service.ConflictRetry;
+import com.cinemitr.datatracker.service.IdempotencyService;
 import com.cinemitr.datatracker.service.MediaCatalogService;
+import com.cinemitr.datatracker.service.ReplicaReads;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
@@ -18,41 +28,159 @@ public class MediaCatalogController {
     @Autowired
     private MediaCatalogService mediaService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Autowired
+    private ReplicaReads replicaReads;
+
     @GetMapping
-    public ResponseEntity<List<MediaCatalogDTO>> getAllMedia() {
-        List<MediaCatalogDTO> media = mediaService.getAllMedia();
+    public ResponseEntity<?> getAllMedia(@RequestParam(required = false) String fields) {
+        if (fields != null) {
+            try {
+                return ResponseEntity.ok(replicaReads.run(() -> mediaService.getAllMedia(fields)));
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(error);
+            }
+        }
+        List<MediaCatalogDTO> media = replicaReads.run(() -> mediaService.getAllMedia());
         return ResponseEntity.ok(media);
     }
 
+    @GetMapping("/suggest")
+    public ResponseEntity<List<MediaSuggestionDTO>> suggestMedia(@RequestParam String prefix,
+                                                                 @RequestParam(required = false) String type,
+                                                                 @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(mediaService.suggestMedia(prefix, type, Math.min(limit, 50)));
+    }
+
+    @GetMapping("/similar")
+    public ResponseEntity<List<MediaSuggestionDTO>> findSimilarMedia(@RequestParam String name,
+                                                                     @RequestParam(required = false) String type,
+                                                                     @RequestParam(required = false) Double threshold,
+                                                                     @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(mediaService.findSimilarMedia(name, type, threshold, Math.min(limit, 50)));
+    }
+
+    @GetMapping("/duplicates")
+    public ResponseEntity<List<MediaDuplicateDTO>> findDuplicateMedia(@RequestParam(required = false) Double threshold) {
+        return ResponseEntity.ok(mediaService.findDuplicateMedia(threshold));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllMedia() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(mediaService.streamAllMedia());
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<?> getChanges(@RequestParam(required = false) String since,
+                                        @RequestParam(defaultValue = "1000") int limit) {
+        try {
+            return ResponseEntity.ok(mediaService.getMediaChanges(since, Math.min(limit, 5000)));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getMediaByIds(@RequestParam List<Long> ids) {
+        return multiGet(ids);
+    }
+
+    @PostMapping("/multi-get")
+    public ResponseEntity<?> getMediaByIdsPost(@RequestBody List<Long> ids) {
+        return multiGet(ids);
+    }
+
+    private ResponseEntity<?> multiGet(List<Long> ids) {
+        try {
+            return ResponseEntity.ok(replicaReads.run(() -> mediaService.getMediaByIds(ids)));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<MediaCatalogDTO> getMediaById(@PathVariable Long id) {
-        return mediaService.getMediaById(id)
+        return replicaReads.run(() -> mediaService.getMediaById(id))
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
-    public ResponseEntity<?> createMedia(@RequestBody MediaCatalogDTO mediaDTO) {
+    public ResponseEntity<?> createMedia(@RequestBody MediaCatalogDTO mediaDTO,
+                                         @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("media", idempotencyKey, mediaDTO, () -> {
+            try {
+                MediaCatalogDTO savedMedia = mediaService.saveMedia(mediaDTO);
+                return ResponseEntity.ok(savedMedia);
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(error);
+            } catch (Exception e) {
+                e.printStackTrace(); // Add logging for debugging
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "Failed to create media: " + e.getMessage());
+                return ResponseEntity.badRequest().body(error);
+            }
+        });
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<?> updateMedia(@PathVariable Long id, @RequestBody MediaCatalogDTO mediaDTO) {
         try {
-            MediaCatalogDTO savedMedia = mediaService.saveMedia(mediaDTO);
-            return ResponseEntity.ok(savedMedia);
+            MediaCatalogDTO updatedMedia = conflictRetry.run(() -> mediaService.updateMedia(id, mediaDTO));
+            return ResponseEntity.ok(updatedMedia);
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patchMedia(@PathVariable Long id, @RequestBody JsonNode patch) {
+        try {
+            return ResponseEntity.ok(conflictRetry.run(() -> mediaService.patchMedia(id, patch)));
         } catch (IllegalArgumentException e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
             return ResponseEntity.badRequest().body(error);
-        } catch (Exception e) {
-            e.printStackTrace(); // Add logging for debugging
+        } catch (OptimisticLockingFailureException e) {
             Map<String, String> error = new HashMap<>();
-            error.put("error", "Failed to create media: " + e.getMessage());
-            return ResponseEntity.badRequest().body(error);
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
         }
     }
 
-    @PutMapping("/{id}")
-    public ResponseEntity<MediaCatalogDTO> updateMedia(@PathVariable Long id, @RequestBody MediaCatalogDTO mediaDTO) {
+    @PostMapping("/{id}/merge")
+    public ResponseEntity<?> mergeMedia(@PathVariable Long id, @RequestParam Long into) {
         try {
-            MediaCatalogDTO updatedMedia = mediaService.updateMedia(id, mediaDTO);
-            return ResponseEntity.ok(updatedMedia);
+            return ResponseEntity.ok(conflictRetry.run(() -> mediaService.mergeMedia(id, into)));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -60,13 +188,12 @@ public class MediaCatalogController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteMedia(@PathVariable Long id) {
-        mediaService.deleteMedia(id);
+        conflictRetry.run(() -> mediaService.deleteMedia(id));
         return ResponseEntity.ok().build();
     }
 
     @GetMapping("/count")
     public ResponseEntity<Long> getMediaCount() {
-        List<MediaCatalogDTO> media = mediaService.getAllMedia();
-        return ResponseEntity.ok((long) media.size());
+        return ResponseEntity.ok(replicaReads.run(() -> mediaService.countMedia()));
     }
 }
\ No newline at end of file
@@ -1,12 +1,25 @@
 package com.cinemitr.datatracker.controller;
 
 import com.cinemitr.datatracker.dto.StatsCatalogDTO;
+import com.cinemitr.datatracker.dto.StatsSampleDTO;
+import com.cinemitr.datatracker.service.ConflictRetry;
+import com.cinemitr.datatracker.service.IdempotencyService;
+import com.cinemitr.datatracker.service.ReplicaReads;
 import com.cinemitr.datatracker.service.StatsCatalogService;
+import com.cinemitr.datatracker.service.StatsIngestService;
+import com.cinemitr.datatracker.service.StatsSeriesService;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/states")
@@ -16,30 +29,207 @@ public class StatsCatalogController {
     @Autowired
     private StatsCatalogService statsService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Autowired
+    private ReplicaReads replicaReads;
+
+    @Autowired
+    private StatsIngestService ingestService;
+
+    @Autowired
+    private StatsSeriesService seriesService;
+
     @GetMapping
-    public ResponseEntity<List<StatsCatalogDTO>> getAllStats() {
-        List<StatsCatalogDTO> stats = statsService.getAllStats();
+    public ResponseEntity<?> getAllStats(@RequestParam(required = false) String fields,
+                                         @RequestParam(name = "include_archived", defaultValue = "false") boolean includeArchived) {
+        if (fields != null) {
+            try {
+                return ResponseEntity.ok(replicaReads.run(() -> statsService.getAllStats(fields, includeArchived)));
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(error);
+            }
+        }
+        List<StatsCatalogDTO> stats = replicaReads.run(() -> statsService.getAllStats(includeArchived));
         return ResponseEntity.ok(stats);
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllStats() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(statsService.streamAllStats());
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<?> getChanges(@RequestParam(required = false) String since,
+                                        @RequestParam(defaultValue = "1000") int limit) {
+        try {
+            return ResponseEntity.ok(statsService.getStatsChanges(since, Math.min(limit, 5000)));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getStatsByIds(@RequestParam List<Long> ids) {
+        return multiGet(ids);
+    }
+
+    @PostMapping("/multi-get")
+    public ResponseEntity<?> getStatsByIdsPost(@RequestBody List<Long> ids) {
+        return multiGet(ids);
+    }
+
+    private ResponseEntity<?> multiGet(List<Long> ids) {
+        try {
+            return ResponseEntity.ok(replicaReads.run(() -> statsService.getStatsByIds(ids)));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<StatsCatalogDTO> getStatsById(@PathVariable Long id) {
-        return statsService.getStatsById(id)
+        return replicaReads.run(() -> statsService.getStatsById(id))
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
-    public ResponseEntity<StatsCatalogDTO> createStats(@RequestBody StatsCatalogDTO statsDTO) {
-        StatsCatalogDTO savedStats = statsService.saveStats(statsDTO);
-        return ResponseEntity.ok(savedStats);
+    public ResponseEntity<?> createStats(@RequestBody StatsCatalogDTO statsDTO,
+                                         @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("stats", idempotencyKey, statsDTO, () -> {
+            try {
+                StatsCatalogDTO savedStats = statsService.saveStats(statsDTO);
+                return ResponseEntity.ok(savedStats);
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(error);
+            }
+        });
+    }
+
+    // Upserts many daily rows on (date, page): new days are inserted, reported ones updated
+    @PostMapping("/ingest")
+    public ResponseEntity<?> ingestStats(@RequestBody List<StatsCatalogDTO> rows) {
+        try {
+            return ResponseEntity.ok(ingestService.ingest(rows));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+    }
+
+    @GetMapping("/rollup")
+    public ResponseEntity<?> getMonthlyRollup(@RequestParam(required = false) String from,
+                                              @RequestParam(required = false) String to,
+                                              @RequestParam(required = false) String page) {
+        try {
+            return ResponseEntity.ok(replicaReads.run(() -> statsService.getMonthlyRollup(from, to, page)));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // Hourly or minutely samples, packed per page and day
+    @PostMapping("/series")
+    public ResponseEntity<?> ingestSeries(@RequestParam(defaultValue = "hour") String resolution,
+                                          @RequestBody List<StatsSampleDTO> samples) {
+        try {
+            return ResponseEntity.ok(seriesService.ingest(resolution, samples));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+    }
+
+    @GetMapping("/series")
+    public ResponseEntity<?> getSeries(@RequestParam(required = false) String page,
+                                       @RequestParam(required = false) String from,
+                                       @RequestParam(required = false) String to,
+                                       @RequestParam(defaultValue = "hour") String resolution) {
+        try {
+            return ResponseEntity.ok(replicaReads.run(() -> seriesService.getSeries(page, from, to, resolution)));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    // Sums each day's samples into its daily statistics row
+    @PostMapping("/series/downsample")
+    public ResponseEntity<?> downsampleSeries(@RequestParam(required = false) String page,
+                                              @RequestParam(required = false) String from,
+                                              @RequestParam(required = false) String to,
+                                              @RequestParam(defaultValue = "hour") String resolution) {
+        try {
+            return ResponseEntity.ok(seriesService.downsample(page, from, to, resolution));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<StatsCatalogDTO> updateStats(@PathVariable Long id, @RequestBody StatsCatalogDTO statsDTO) {
+    public ResponseEntity<?> updateStats(@PathVariable Long id, @RequestBody StatsCatalogDTO statsDTO) {
         try {
-            StatsCatalogDTO updatedStats = statsService.updateStats(id, statsDTO);
+            StatsCatalogDTO updatedStats = conflictRetry.run(() -> statsService.updateStats(id, statsDTO));
             return ResponseEntity.ok(updatedStats);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patchStats(@PathVariable Long id, @RequestBody JsonNode patch) {
+        try {
+            return ResponseEntity.ok(conflictRetry.run(() -> statsService.patchStats(id, patch)));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -47,13 +237,20 @@ public class StatsCatalogController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteStats(@PathVariable Long id) {
-        statsService.deleteStats(id);
+        conflictRetry.run(() -> statsService.deleteStats(id));
         return ResponseEntity.ok().build();
     }
 
     @GetMapping("/count")
     public ResponseEntity<Long> getStatsCount() {
-        List<StatsCatalogDTO> stats = statsService.getAllStats();
-        return ResponseEntity.ok((long) stats.size());
+        return ResponseEntity.ok(replicaReads.run(() -> statsService.countStats()));
+    }
+
+    // Moves statistics for days older than the retention into the archive
+    @PostMapping("/archive")
+    public ResponseEntity<Map<String, Long>> archiveStats() {
+        Map<String, Long> result = new HashMap<>();
+        result.put("archived", statsService.archiveStats());
+        return ResponseEntity.ok(result);
     }
 }
\ No newline at end of file
@@ -1,12 +1,23 @@
 package com.cinemitr.datatracker.controller;
 
 import com.cinemitr.datatracker.dto.UploadCatalogDTO;
+import com.cinemitr.datatracker.dto.UploadViewCheckDTO;
+import com.cinemitr.datatracker.service.ConflictRetry;
+import com.cinemitr.datatracker.service.IdempotencyService;
+import com.cinemitr.datatracker.service.ReplicaReads;
 import com.cinemitr.datatracker.service.UploadCatalogService;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/upload")
@@ -16,30 +27,150 @@ public class UploadCatalogController {
     @Autowired
     private UploadCatalogService uploadService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Autowired
+    private ReplicaReads replicaReads;
+
     @GetMapping
-    public ResponseEntity<List<UploadCatalogDTO>> getAllUploads() {
-        List<UploadCatalogDTO> uploads = uploadService.getAllUploads();
+    public ResponseEntity<?> getAllUploads(@RequestParam(required = false) String fields,
+                                           @RequestParam(name = "include_archived", defaultValue = "false") boolean includeArchived) {
+        if (fields != null) {
+            try {
+                return ResponseEntity.ok(replicaReads.run(() -> uploadService.getAllUploads(fields, includeArchived)));
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(error);
+            }
+        }
+        List<UploadCatalogDTO> uploads = replicaReads.run(() -> uploadService.getAllUploads(includeArchived));
         return ResponseEntity.ok(uploads);
     }
 
+    @GetMapping(params = "status")
+    public ResponseEntity<?> getUploadsByStatus(@RequestParam String status) {
+        try {
+            return ResponseEntity.ok(replicaReads.run(() -> uploadService.getUploadsByStatus(status)));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllUploads() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(uploadService.streamAllUploads());
+    }
+
+    @GetMapping("/analytics")
+    public ResponseEntity<?> getAnalytics(@RequestParam(required = false) String from,
+                                          @RequestParam(required = false) String to,
+                                          @RequestParam(name = "include_archived", defaultValue = "false") boolean includeArchived) {
+        try {
+            return ResponseEntity.ok(replicaReads.run(() -> uploadService.getUploadAnalytics(from, to, includeArchived)));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<?> getChanges(@RequestParam(required = false) String since,
+                                        @RequestParam(defaultValue = "1000") int limit) {
+        try {
+            return ResponseEntity.ok(uploadService.getUploadChanges(since, Math.min(limit, 5000)));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getUploadsByIds(@RequestParam List<Long> ids) {
+        return multiGet(ids);
+    }
+
+    @PostMapping("/multi-get")
+    public ResponseEntity<?> getUploadsByIdsPost(@RequestBody List<Long> ids) {
+        return multiGet(ids);
+    }
+
+    private ResponseEntity<?> multiGet(List<Long> ids) {
+        try {
+            return ResponseEntity.ok(replicaReads.run(() -> uploadService.getUploadsByIds(ids)));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<UploadCatalogDTO> getUploadById(@PathVariable Long id) {
-        return uploadService.getUploadById(id)
+        return replicaReads.run(() -> uploadService.getUploadById(id))
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
-    public ResponseEntity<UploadCatalogDTO> createUpload(@RequestBody UploadCatalogDTO uploadDTO) {
-        UploadCatalogDTO savedUpload = uploadService.saveUpload(uploadDTO);
-        return ResponseEntity.ok(savedUpload);
+    public ResponseEntity<?> createUpload(@RequestBody UploadCatalogDTO uploadDTO,
+                                          @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("upload", idempotencyKey, uploadDTO, () -> {
+            try {
+                UploadCatalogDTO savedUpload = conflictRetry.run(() -> uploadService.saveUpload(uploadDTO));
+                return ResponseEntity.ok(savedUpload);
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(error);
+            } catch (OptimisticLockingFailureException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", e.getMessage());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+            }
+        });
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<UploadCatalogDTO> updateUpload(@PathVariable Long id, @RequestBody UploadCatalogDTO uploadDTO) {
+    public ResponseEntity<?> updateUpload(@PathVariable Long id, @RequestBody UploadCatalogDTO uploadDTO) {
         try {
-            UploadCatalogDTO updatedUpload = uploadService.updateUpload(id, uploadDTO);
+            UploadCatalogDTO updatedUpload = conflictRetry.run(() -> uploadService.updateUpload(id, uploadDTO));
             return ResponseEntity.ok(updatedUpload);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patchUpload(@PathVariable Long id, @RequestBody JsonNode patch) {
+        try {
+            return ResponseEntity.ok(conflictRetry.run(() -> uploadService.patchUpload(id, patch)));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -47,13 +178,34 @@ public class UploadCatalogController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteUpload(@PathVariable Long id) {
-        uploadService.deleteUpload(id);
+        conflictRetry.run(() -> uploadService.deleteUpload(id));
         return ResponseEntity.ok().build();
     }
 
     @GetMapping("/count")
     public ResponseEntity<Long> getUploadCount() {
-        List<UploadCatalogDTO> uploads = uploadService.getAllUploads();
-        return ResponseEntity.ok((long) uploads.size());
+        return ResponseEntity.ok(replicaReads.run(() -> uploadService.countUploads()));
+    }
+
+    // Compares the upload list read model with the base tables
+    @GetMapping("/view/check")
+    public ResponseEntity<UploadViewCheckDTO> checkUploadView() {
+        return ResponseEntity.ok(uploadService.checkUploadView());
+    }
+
+    // Rewrites the upload list read model from the base tables
+    @PostMapping("/view/rebuild")
+    public ResponseEntity<Map<String, Long>> rebuildUploadView() {
+        Map<String, Long> result = new HashMap<>();
+        result.put("uploads", uploadService.rebuildUploadView());
+        return ResponseEntity.ok(result);
+    }
+
+    // Moves finished uploads that have not changed for a while into the archive
+    @PostMapping("/archive")
+    public ResponseEntity<Map<String, Long>> archiveUploads() {
+        Map<String, Long> result = new HashMap<>();
+        result.put("archived", uploadService.archiveUploads());
+        return ResponseEntity.ok(result);
     }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.cinemitr.datatracker.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class BatchOperationDTO {
+    // "create", "update" or "delete"
+    private String op;
+
+    // "media", "content", "upload" or "stats"
+    private String type;
+
+    // Required for update and delete
+    private Long id;
+
+    // Same body as the type's POST/PUT endpoint, not used for delete
+    private JsonNode body;
+
+    // Getters and Setters
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public JsonNode getBody() {
+        return body;
+    }
+
+    public void setBody(JsonNode body) {
+        this.body = body;
+    }
+}
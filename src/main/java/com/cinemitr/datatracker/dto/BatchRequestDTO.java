@@ -0,0 +1,28 @@
+package com.cinemitr.datatracker.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchRequestDTO {
+    // "all-or-nothing" (default) or "continue-on-error"
+    private String mode;
+
+    private List<BatchOperationDTO> operations = new ArrayList<>();
+
+    // Getters and Setters
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public List<BatchOperationDTO> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<BatchOperationDTO> operations) {
+        this.operations = operations;
+    }
+}
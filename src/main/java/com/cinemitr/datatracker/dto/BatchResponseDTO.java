@@ -0,0 +1,52 @@
+package com.cinemitr.datatracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchResponseDTO {
+    private String mode;
+
+    // All operations succeeded (all-or-nothing: and were committed)
+    private boolean success;
+
+    private List<BatchResultDTO> results = new ArrayList<>();
+
+    // Failure of the batch as a whole, e.g. the commit itself
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String error;
+
+    // Getters and Setters
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public List<BatchResultDTO> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchResultDTO> results) {
+        this.results = results;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
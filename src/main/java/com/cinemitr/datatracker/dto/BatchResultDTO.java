@@ -0,0 +1,86 @@
+package com.cinemitr.datatracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResultDTO {
+    private int index;
+    private String op;
+    private String type;
+    private Long id;
+
+    // "ok", "error", "rolled_back" (succeeded, then undone by a later failure) or "skipped"
+    private String status;
+
+    // The created or updated entity, as the single-entity endpoint returns it
+    private Object data;
+
+    private String error;
+
+    // Constructors
+    public BatchResultDTO() {}
+
+    public BatchResultDTO(int index, BatchOperationDTO operation) {
+        this.index = index;
+        this.op = operation.getOp();
+        this.type = operation.getType();
+        this.id = operation.getId();
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Object getData() {
+        return data;
+    }
+
+    public void setData(Object data) {
+        this.data = data;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,54 @@
+package com.cinemitr.datatracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ChangesDTO<T> {
+    // Rows created or updated since the token, oldest change first
+    private List<T> items = new ArrayList<>();
+
+    // Ids deleted since the token
+    private List<Long> deleted = new ArrayList<>();
+
+    @JsonProperty("next_token")
+    private String nextToken;
+
+    // More changes are waiting, call again with next_token right away
+    @JsonProperty("has_more")
+    private boolean hasMore;
+
+    // Getters and Setters
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<Long> deleted) {
+        this.deleted = deleted;
+    }
+
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    public void setNextToken(String nextToken) {
+        this.nextToken = nextToken;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -1,7 +1,10 @@
 package com.cinemitr.datatracker.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.List;
+
 public class MediaCatalogDTO {
     private Long id;
     
@@ -28,6 +31,11 @@ public class MediaCatalogDTO {
     @JsonProperty("available_on")
     private String availableOn;
 
+    // Near-duplicate names found when the media is created, omitted otherwise
+    @JsonProperty("similar_media")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<MediaSuggestionDTO> similarMedia;
+
     // Constructors
     public MediaCatalogDTO() {}
 
@@ -115,4 +123,12 @@ public class MediaCatalogDTO {
     public void setAvailableOn(String availableOn) {
         this.availableOn = availableOn;
     }
+
+    public List<MediaSuggestionDTO> getSimilarMedia() {
+        return similarMedia;
+    }
+
+    public void setSimilarMedia(List<MediaSuggestionDTO> similarMedia) {
+        this.similarMedia = similarMedia;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.cinemitr.datatracker.dto;
+
+public class MediaDuplicateDTO {
+    private MediaSuggestionDTO media;
+
+    private MediaSuggestionDTO duplicate;
+
+    private Double similarity;
+
+    // Constructors
+    public MediaDuplicateDTO() {}
+
+    public MediaDuplicateDTO(MediaSuggestionDTO media, MediaSuggestionDTO duplicate, Double similarity) {
+        this.media = media;
+        this.duplicate = duplicate;
+        this.similarity = similarity;
+    }
+
+    // Getters and Setters
+    public MediaSuggestionDTO getMedia() {
+        return media;
+    }
+
+    public void setMedia(MediaSuggestionDTO media) {
+        this.media = media;
+    }
+
+    public MediaSuggestionDTO getDuplicate() {
+        return duplicate;
+    }
+
+    public void setDuplicate(MediaSuggestionDTO duplicate) {
+        this.duplicate = duplicate;
+    }
+
+    public Double getSimilarity() {
+        return similarity;
+    }
+
+    public void setSimilarity(Double similarity) {
+        this.similarity = similarity;
+    }
+}
@@ -0,0 +1,60 @@
+package com.cinemitr.datatracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class MediaSuggestionDTO {
+    private Long id;
+    
+    @JsonProperty("media_name")
+    private String mediaName;
+    
+    @JsonProperty("media_type")
+    private String mediaType;
+
+    // Only set for near-duplicate matches, 0..1
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double similarity;
+
+    // Constructors
+    public MediaSuggestionDTO() {}
+
+    public MediaSuggestionDTO(Long id, String mediaName, String mediaType) {
+        this.id = id;
+        this.mediaName = mediaName;
+        this.mediaType = mediaType;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getMediaName() {
+        return mediaName;
+    }
+
+    public void setMediaName(String mediaName) {
+        this.mediaName = mediaName;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public void setMediaType(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public Double getSimilarity() {
+        return similarity;
+    }
+
+    public void setSimilarity(Double similarity) {
+        this.similarity = similarity;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.cinemitr.datatracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MultiGetDTO<T> {
+    // Found rows, in the order their ids were requested
+    private List<T> items = new ArrayList<>();
+
+    // Requested ids that do not exist
+    @JsonProperty("missing_ids")
+    private List<Long> missingIds = new ArrayList<>();
+
+    // Getters and Setters
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public List<Long> getMissingIds() {
+        return missingIds;
+    }
+
+    public void setMissingIds(List<Long> missingIds) {
+        this.missingIds = missingIds;
+    }
+}
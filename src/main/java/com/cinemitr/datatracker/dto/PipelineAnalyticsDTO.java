@@ -0,0 +1,64 @@
+package com.cinemitr.datatracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class PipelineAnalyticsDTO {
+    @JsonProperty("entity_type")
+    private String entityType;
+
+    // First and last day of the window (yyyy-MM-dd, both included)
+    private String from;
+
+    private String to;
+
+    private List<StageStatsDTO> stages = new ArrayList<>();
+
+    // Per day of the window: transitions into each status
+    private Map<String, Map<String, Long>> throughput = new TreeMap<>();
+
+    // Getters and Setters
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public void setFrom(String from) {
+        this.from = from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public void setTo(String to) {
+        this.to = to;
+    }
+
+    public List<StageStatsDTO> getStages() {
+        return stages;
+    }
+
+    public void setStages(List<StageStatsDTO> stages) {
+        this.stages = stages;
+    }
+
+    public Map<String, Map<String, Long>> getThroughput() {
+        return throughput;
+    }
+
+    public void setThroughput(Map<String, Map<String, Long>> throughput) {
+        this.throughput = throughput;
+    }
+}
@@ -0,0 +1,79 @@
+package com.cinemitr.datatracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class StageStatsDTO {
+    private String status;
+
+    // Rows in this status now
+    private long current;
+
+    // Transitions into this status within the window
+    private long entered;
+
+    // Transitions out of this status within the window; each one is a dwell time sample
+    private long exited;
+
+    // Time spent in this status by the stays that ended within the window, null without samples
+    @JsonProperty("dwell_p50_seconds")
+    private Long dwellP50Seconds;
+
+    @JsonProperty("dwell_p95_seconds")
+    private Long dwellP95Seconds;
+
+    // Constructors
+    public StageStatsDTO() {}
+
+    public StageStatsDTO(String status) {
+        this.status = status;
+    }
+
+    // Getters and Setters
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getCurrent() {
+        return current;
+    }
+
+    public void setCurrent(long current) {
+        this.current = current;
+    }
+
+    public long getEntered() {
+        return entered;
+    }
+
+    public void setEntered(long entered) {
+        this.entered = entered;
+    }
+
+    public long getExited() {
+        return exited;
+    }
+
+    public void setExited(long exited) {
+        this.exited = exited;
+    }
+
+    public Long getDwellP50Seconds() {
+        return dwellP50Seconds;
+    }
+
+    public void setDwellP50Seconds(Long dwellP50Seconds) {
+        this.dwellP50Seconds = dwellP50Seconds;
+    }
+
+    public Long getDwellP95Seconds() {
+        return dwellP95Seconds;
+    }
+
+    public void setDwellP95Seconds(Long dwellP95Seconds) {
+        this.dwellP95Seconds = dwellP95Seconds;
+    }
+}
@@ -0,0 +1,66 @@
+package com.cinemitr.datatracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class StatsIngestBatchDTO {
+    // Index of the batch's first row in the request
+    @JsonProperty("first_row")
+    private int firstRow;
+
+    private int rows;
+    private int inserted;
+    private int updated;
+    private int unchanged;
+
+    @JsonProperty("unmatched_content")
+    private int unmatchedContent;
+
+    // Getters and Setters
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    public void setFirstRow(int firstRow) {
+        this.firstRow = firstRow;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public void setRows(int rows) {
+        this.rows = rows;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(int inserted) {
+        this.inserted = inserted;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public void setUnchanged(int unchanged) {
+        this.unchanged = unchanged;
+    }
+
+    public int getUnmatchedContent() {
+        return unmatchedContent;
+    }
+
+    public void setUnmatchedContent(int unmatchedContent) {
+        this.unmatchedContent = unmatchedContent;
+    }
+}
@@ -0,0 +1,90 @@
+package com.cinemitr.datatracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class StatsIngestDTO {
+    // Rows in the request, valid or not
+    private int rows;
+
+    private int inserted;
+    private int updated;
+    private int unchanged;
+    private int rejected;
+
+    // Rows whose content link matched no content; they were stored without one
+    @JsonProperty("unmatched_content")
+    private int unmatchedContent;
+
+    private List<StatsIngestBatchDTO> batches = new ArrayList<>();
+
+    // The rejected rows, with index and error
+    private List<BatchResultDTO> errors = new ArrayList<>();
+
+    // Getters and Setters
+    public int getRows() {
+        return rows;
+    }
+
+    public void setRows(int rows) {
+        this.rows = rows;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(int inserted) {
+        this.inserted = inserted;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public void setUnchanged(int unchanged) {
+        this.unchanged = unchanged;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public int getUnmatchedContent() {
+        return unmatchedContent;
+    }
+
+    public void setUnmatchedContent(int unmatchedContent) {
+        this.unmatchedContent = unmatchedContent;
+    }
+
+    public List<StatsIngestBatchDTO> getBatches() {
+        return batches;
+    }
+
+    public void setBatches(List<StatsIngestBatchDTO> batches) {
+        this.batches = batches;
+    }
+
+    public List<BatchResultDTO> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<BatchResultDTO> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,70 @@
+package com.cinemitr.datatracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class StatsRollupDTO {
+    // yyyy-MM
+    private String month;
+
+    private String page;
+
+    // Days of the month with statistics
+    private int days;
+
+    @JsonProperty("total_views")
+    private double totalViews;
+
+    @JsonProperty("avg_subscribers")
+    private double avgSubscribers;
+
+    private double interaction;
+
+    // Getters and Setters
+    public String getMonth() {
+        return month;
+    }
+
+    public void setMonth(String month) {
+        this.month = month;
+    }
+
+    public String getPage() {
+        return page;
+    }
+
+    public void setPage(String page) {
+        this.page = page;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public void setDays(int days) {
+        this.days = days;
+    }
+
+    public double getTotalViews() {
+        return totalViews;
+    }
+
+    public void setTotalViews(double totalViews) {
+        this.totalViews = totalViews;
+    }
+
+    public double getAvgSubscribers() {
+        return avgSubscribers;
+    }
+
+    public void setAvgSubscribers(double avgSubscribers) {
+        this.avgSubscribers = avgSubscribers;
+    }
+
+    public double getInteraction() {
+        return interaction;
+    }
+
+    public void setInteraction(double interaction) {
+        this.interaction = interaction;
+    }
+}
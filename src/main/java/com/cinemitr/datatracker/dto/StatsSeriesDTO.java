@@ -0,0 +1,91 @@
+package com.cinemitr.datatracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Samples of one page in a range, column by column: the values at index i belong to timestamps[i].
+ */
+public class StatsSeriesDTO {
+    private String page;
+
+    // hour or minute
+    private String resolution;
+
+    private String from;
+    private String to;
+
+    private List<String> timestamps;
+
+    @JsonProperty("total_views")
+    private double[] totalViews;
+
+    private double[] subscribers;
+    private double[] interaction;
+
+    // Getters and Setters
+    public String getPage() {
+        return page;
+    }
+
+    public void setPage(String page) {
+        this.page = page;
+    }
+
+    public String getResolution() {
+        return resolution;
+    }
+
+    public void setResolution(String resolution) {
+        this.resolution = resolution;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public void setFrom(String from) {
+        this.from = from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public void setTo(String to) {
+        this.to = to;
+    }
+
+    public List<String> getTimestamps() {
+        return timestamps;
+    }
+
+    public void setTimestamps(List<String> timestamps) {
+        this.timestamps = timestamps;
+    }
+
+    public double[] getTotalViews() {
+        return totalViews;
+    }
+
+    public void setTotalViews(double[] totalViews) {
+        this.totalViews = totalViews;
+    }
+
+    public double[] getSubscribers() {
+        return subscribers;
+    }
+
+    public void setSubscribers(double[] subscribers) {
+        this.subscribers = subscribers;
+    }
+
+    public double[] getInteraction() {
+        return interaction;
+    }
+
+    public void setInteraction(double[] interaction) {
+        this.interaction = interaction;
+    }
+}
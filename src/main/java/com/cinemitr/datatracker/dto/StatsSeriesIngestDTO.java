@@ -0,0 +1,70 @@
+package com.cinemitr.datatracker.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class StatsSeriesIngestDTO {
+    // Samples in the request, valid or not
+    private int samples;
+
+    // Samples stored that were new or had other values
+    private int written;
+
+    private int unchanged;
+    private int rejected;
+
+    // Day blocks that were rewritten
+    private int blocks;
+
+    // The rejected samples, with index and error
+    private List<BatchResultDTO> errors = new ArrayList<>();
+
+    // Getters and Setters
+    public int getSamples() {
+        return samples;
+    }
+
+    public void setSamples(int samples) {
+        this.samples = samples;
+    }
+
+    public int getWritten() {
+        return written;
+    }
+
+    public void setWritten(int written) {
+        this.written = written;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public void setUnchanged(int unchanged) {
+        this.unchanged = unchanged;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public int getBlocks() {
+        return blocks;
+    }
+
+    public void setBlocks(int blocks) {
+        this.blocks = blocks;
+    }
+
+    public List<BatchResultDTO> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<BatchResultDTO> errors) {
+        this.errors = errors;
+    }
+}
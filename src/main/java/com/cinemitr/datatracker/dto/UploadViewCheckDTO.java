@@ -0,0 +1,61 @@
+package com.cinemitr.datatracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class UploadViewCheckDTO {
+    @JsonProperty("uploads_checked")
+    private long uploadsChecked;
+
+    // Uploads without a view row
+    @JsonProperty("missing_ids")
+    private List<Long> missingIds = new ArrayList<>();
+
+    // View rows whose values differ from the upload's current data
+    @JsonProperty("stale_ids")
+    private List<Long> staleIds = new ArrayList<>();
+
+    // View rows of uploads that no longer exist
+    @JsonProperty("orphaned_ids")
+    private List<Long> orphanedIds = new ArrayList<>();
+
+    @JsonProperty("consistent")
+    public boolean isConsistent() {
+        return missingIds.isEmpty() && staleIds.isEmpty() && orphanedIds.isEmpty();
+    }
+
+    // Getters and Setters
+    public long getUploadsChecked() {
+        return uploadsChecked;
+    }
+
+    public void setUploadsChecked(long uploadsChecked) {
+        this.uploadsChecked = uploadsChecked;
+    }
+
+    public List<Long> getMissingIds() {
+        return missingIds;
+    }
+
+    public void setMissingIds(List<Long> missingIds) {
+        this.missingIds = missingIds;
+    }
+
+    public List<Long> getStaleIds() {
+        return staleIds;
+    }
+
+    public void setStaleIds(List<Long> staleIds) {
+        this.staleIds = staleIds;
+    }
+
+    public List<Long> getOrphanedIds() {
+        return orphanedIds;
+    }
+
+    public void setOrphanedIds(List<Long> orphanedIds) {
+        this.orphanedIds = orphanedIds;
+    }
+}
@@ -0,0 +1,112 @@
+package com.cinemitr.datatracker.entity;
+
+import javax.persistence.*;
+import java.util.Date;
+
+@Entity
+@Table(name = "archive_segment",
+       indexes = {
+           @Index(name = "idx_archive_segment_type", columnList = "entity_type, id")
+       })
+public class ArchiveSegment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entity_type", nullable = false, length = 32)
+    private String entityType;
+
+    // Lowest and highest entity id in the segment
+    @Column(name = "first_id", nullable = false)
+    private Long firstId;
+
+    @Column(name = "last_id", nullable = false)
+    private Long lastId;
+
+    @Column(name = "row_count", nullable = false)
+    private Integer rowCount;
+
+    // Size of the payload before compression
+    @Column(name = "raw_bytes", nullable = false)
+    private Long rawBytes;
+
+    // gzip-compressed NDJSON, one archived row per line
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "payload", nullable = false)
+    private byte[] payload;
+
+    @Column(name = "archived_at", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date archivedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        archivedAt = new Date();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getFirstId() {
+        return firstId;
+    }
+
+    public void setFirstId(Long firstId) {
+        this.firstId = firstId;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    public void setLastId(Long lastId) {
+        this.lastId = lastId;
+    }
+
+    public Integer getRowCount() {
+        return rowCount;
+    }
+
+    public void setRowCount(Integer rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public Long getRawBytes() {
+        return rawBytes;
+    }
+
+    public void setRawBytes(Long rawBytes) {
+        this.rawBytes = rawBytes;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+    public Date getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(Date archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+}
@@ -1,13 +1,29 @@
 package com.cinemitr.datatracker.entity;
 
+import com.cinemitr.datatracker.enums.ContentPriority;
+import com.cinemitr.datatracker.enums.ContentStatus;
+import com.cinemitr.datatracker.enums.LocalStatus;
+import com.cinemitr.datatracker.util.LinkNormalizer;
+import org.hibernate.annotations.DynamicUpdate;
+
 import javax.persistence.*;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "content_catalog")
-public class ContentCatalog {
+@DynamicUpdate
+@Table(name = "content_catalog",
+       indexes = {
+           @Index(name = "idx_content_link", columnList = "link"),
+           @Index(name = "uq_content_link_hash", columnList = "link_hash", unique = true),
+           @Index(name = "idx_content_status", columnList = "status"),
+           @Index(name = "idx_content_priority", columnList = "priority"),
+           @Index(name = "idx_content_local_status", columnList = "local_status"),
+           @Index(name = "idx_content_updated_at", columnList = "updated_at, id"),
+           @Index(name = "idx_content_change_seq", columnList = "change_seq, id")
+       })
+public class ContentCatalog implements TrackedEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -15,6 +31,10 @@ public class ContentCatalog {
     @Column(name = "link", nullable = false)
     private String link;
 
+    // Hash of the normalized link (see LinkNormalizer), unique across content
+    @Column(name = "link_hash", nullable = false)
+    private Long linkHash;
+
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "content_media_mapping",
@@ -24,13 +44,16 @@ public class ContentCatalog {
     private Set<MediaCatalog> mediaList = new HashSet<>();
 
     @Column(name = "status", nullable = false)
-    private String status;
+    @Convert(converter = ContentStatus.Converter.class)
+    private ContentStatus status;
 
     @Column(name = "priority", nullable = false)
-    private String priority;
+    @Convert(converter = ContentPriority.Converter.class)
+    private ContentPriority priority;
 
     @Column(name = "local_status", nullable = false)
-    private String localStatus;
+    @Convert(converter = LocalStatus.Converter.class)
+    private LocalStatus localStatus;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "local_file_path")
@@ -44,22 +67,31 @@ public class ContentCatalog {
     @Temporal(TemporalType.TIMESTAMP)
     private Date updatedAt;
 
+    @Column(name = "change_seq", nullable = false, insertable = false, updatable = false)
+    private Long changeSeq;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
+        linkHash = LinkNormalizer.hash(link);
         createdAt = new Date();
         updatedAt = new Date();
     }
 
     @PreUpdate
     protected void onUpdate() {
+        linkHash = LinkNormalizer.hash(link);
         updatedAt = new Date();
     }
 
     // Constructors
     public ContentCatalog() {}
 
-    public ContentCatalog(String link, String status, String priority, String localStatus) {
-        this.link = link;
+    public ContentCatalog(String link, ContentStatus status, ContentPriority priority, LocalStatus localStatus) {
+        setLink(link);
         this.status = status;
         this.priority = priority;
         this.localStatus = localStatus;
@@ -80,6 +112,11 @@ public class ContentCatalog {
 
     public void setLink(String link) {
         this.link = link;
+        this.linkHash = link != null ? LinkNormalizer.hash(link) : null;
+    }
+
+    public Long getLinkHash() {
+        return linkHash;
     }
 
     public Set<MediaCatalog> getMediaList() {
@@ -98,27 +135,27 @@ public class ContentCatalog {
         this.mediaList.remove(media);
     }
 
-    public String getStatus() {
+    public ContentStatus getStatus() {
         return status;
     }
 
-    public void setStatus(String status) {
+    public void setStatus(ContentStatus status) {
         this.status = status;
     }
 
-    public String getPriority() {
+    public ContentPriority getPriority() {
         return priority;
     }
 
-    public void setPriority(String priority) {
+    public void setPriority(ContentPriority priority) {
         this.priority = priority;
     }
 
-    public String getLocalStatus() {
+    public LocalStatus getLocalStatus() {
         return localStatus;
     }
 
-    public void setLocalStatus(String localStatus) {
+    public void setLocalStatus(LocalStatus localStatus) {
         this.localStatus = localStatus;
     }
 
@@ -142,7 +179,19 @@ public class ContentCatalog {
         return updatedAt;
     }
 
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
     public void setUpdatedAt(Date updatedAt) {
         this.updatedAt = updatedAt;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
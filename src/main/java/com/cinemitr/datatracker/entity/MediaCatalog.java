@@ -1,14 +1,24 @@
 package com.cinemitr.datatracker.entity;
 
+import org.hibernate.annotations.DynamicUpdate;
+
 import javax.persistence.*;
 import java.util.Date;
 
 @Entity
+@DynamicUpdate
 @Table(name = "media_catalog", 
        uniqueConstraints = {
            @UniqueConstraint(name = "uq_media_name_type", columnNames = {"media_name", "media_type"})
+       },
+       indexes = {
+           @Index(name = "idx_media_type", columnList = "media_type"),
+           @Index(name = "idx_language", columnList = "language"),
+           @Index(name = "idx_media_main_genres", columnList = "main_genres"),
+           @Index(name = "idx_media_updated_at", columnList = "updated_at, id"),
+           @Index(name = "idx_media_change_seq", columnList = "change_seq, id")
        })
-public class MediaCatalog {
+public class MediaCatalog implements TrackedEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -46,6 +56,13 @@ public class MediaCatalog {
     @Temporal(TemporalType.TIMESTAMP)
     private Date updatedAt;
 
+    @Column(name = "change_seq", nullable = false, insertable = false, updatable = false)
+    private Long changeSeq;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = new Date();
@@ -156,7 +173,19 @@ public class MediaCatalog {
         return updatedAt;
     }
 
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
     public void setUpdatedAt(Date updatedAt) {
         this.updatedAt = updatedAt;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
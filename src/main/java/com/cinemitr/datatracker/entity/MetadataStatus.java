@@ -1,11 +1,17 @@
 package com.cinemitr.datatracker.entity;
 
 import com.cinemitr.datatracker.enums.PathCategory;
+import org.hibernate.annotations.DynamicUpdate;
+
 import javax.persistence.*;
 import java.util.Date;
 
 @Entity
-@Table(name = "metadata_status")
+@DynamicUpdate
+@Table(name = "metadata_status",
+       indexes = {
+           @Index(name = "idx_metadata_path_category", columnList = "path_category")
+       })
 public class MetadataStatus {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,6 +28,7 @@ public class MetadataStatus {
     private Boolean isAvailable;
 
     @Lob
+    @Basic(fetch = FetchType.LAZY)
     @Column(name = "meta_data", nullable = false)
     private String metaData;
 
@@ -33,6 +40,10 @@ public class MetadataStatus {
     @Temporal(TemporalType.TIMESTAMP)
     private Date updatedAt;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = new Date();
@@ -110,4 +121,12 @@ public class MetadataStatus {
     public void setUpdatedAt(Date updatedAt) {
         this.updatedAt = updatedAt;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,50 @@
+package com.cinemitr.datatracker.entity;
+
+import com.cinemitr.datatracker.enums.StatsPage;
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * A day and page whose statistics row was moved to the archive, recorded by StatsCatalogService
+ * when archiving so the day cannot be written again.
+ */
+@Entity
+@Table(name = "stats_archived_day",
+       uniqueConstraints = @UniqueConstraint(name = "uq_stats_archived_day_page", columnNames = {"date", "page"}))
+public class StatsArchivedDay {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "date", nullable = false)
+    private LocalDate date;
+
+    @Column(name = "page", nullable = false)
+    @Convert(converter = StatsPage.Converter.class)
+    private StatsPage page;
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public StatsPage getPage() {
+        return page;
+    }
+
+    public void setPage(StatsPage page) {
+        this.page = page;
+    }
+}
@@ -1,34 +1,45 @@
 package com.cinemitr.datatracker.entity;
 
+import com.cinemitr.datatracker.enums.StatsPage;
+import org.hibernate.annotations.DynamicUpdate;
+
 import javax.persistence.*;
+import java.time.LocalDate;
 import java.util.Date;
 
 @Entity
-@Table(name = "stats_catalog")
-public class StatsCatalog {
+@DynamicUpdate
+@Table(name = "stats_catalog",
+       uniqueConstraints = @UniqueConstraint(name = "uq_stats_day_page", columnNames = {"date", "page"}),
+       indexes = {
+           @Index(name = "idx_stats_page", columnList = "page"),
+           @Index(name = "idx_stats_updated_at", columnList = "updated_at, id"),
+           @Index(name = "idx_stats_change_seq", columnList = "change_seq, id")
+       })
+public class StatsCatalog implements TrackedEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     @Column(name = "date", nullable = false)
-    @Temporal(TemporalType.DATE)
-    private Date date;
+    private LocalDate date;
 
     @Column(name = "total_views", nullable = false)
-    private Double totalViews;
+    private double totalViews;
 
     @Column(name = "subscribers", nullable = false)
-    private Double subscribers;
+    private double subscribers;
 
     @Column(name = "interaction", nullable = false)
-    private Double interaction;
+    private double interaction;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "content_id")
     private ContentCatalog content;
 
     @Column(name = "page", nullable = false)
-    private String page;
+    @Convert(converter = StatsPage.Converter.class)
+    private StatsPage page;
 
     @Column(name = "created_at")
     @Temporal(TemporalType.TIMESTAMP)
@@ -38,6 +49,13 @@ public class StatsCatalog {
     @Temporal(TemporalType.TIMESTAMP)
     private Date updatedAt;
 
+    @Column(name = "change_seq", nullable = false, insertable = false, updatable = false)
+    private Long changeSeq;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = new Date();
@@ -52,7 +70,7 @@ public class StatsCatalog {
     // Constructors
     public StatsCatalog() {}
 
-    public StatsCatalog(Date date, Double totalViews, Double subscribers, Double interaction, String page) {
+    public StatsCatalog(LocalDate date, double totalViews, double subscribers, double interaction, StatsPage page) {
         this.date = date;
         this.totalViews = totalViews;
         this.subscribers = subscribers;
@@ -69,35 +87,35 @@ public class StatsCatalog {
         this.id = id;
     }
 
-    public Date getDate() {
+    public LocalDate getDate() {
         return date;
     }
 
-    public void setDate(Date date) {
+    public void setDate(LocalDate date) {
         this.date = date;
     }
 
-    public Double getTotalViews() {
+    public double getTotalViews() {
         return totalViews;
     }
 
-    public void setTotalViews(Double totalViews) {
+    public void setTotalViews(double totalViews) {
         this.totalViews = totalViews;
     }
 
-    public Double getSubscribers() {
+    public double getSubscribers() {
         return subscribers;
     }
 
-    public void setSubscribers(Double subscribers) {
+    public void setSubscribers(double subscribers) {
         this.subscribers = subscribers;
     }
 
-    public Double getInteraction() {
+    public double getInteraction() {
         return interaction;
     }
 
-    public void setInteraction(Double interaction) {
+    public void setInteraction(double interaction) {
         this.interaction = interaction;
     }
 
@@ -109,11 +127,11 @@ public class StatsCatalog {
         this.content = content;
     }
 
-    public String getPage() {
+    public StatsPage getPage() {
         return page;
     }
 
-    public void setPage(String page) {
+    public void setPage(StatsPage page) {
         this.page = page;
     }
 
@@ -129,7 +147,19 @@ public class StatsCatalog {
         return updatedAt;
     }
 
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
     public void setUpdatedAt(Date updatedAt) {
         this.updatedAt = updatedAt;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
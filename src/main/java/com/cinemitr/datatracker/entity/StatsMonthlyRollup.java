@@ -0,0 +1,96 @@
+package com.cinemitr.datatracker.entity;
+
+import com.cinemitr.datatracker.enums.StatsPage;
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Statistics of one page summed over a month, maintained by StatsRollupService on every write.
+ */
+@Entity
+@Table(name = "stats_monthly_rollup",
+       uniqueConstraints = @UniqueConstraint(name = "uq_stats_rollup_month_page", columnNames = {"month_start", "page"}))
+public class StatsMonthlyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // First day of the month
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    @Column(name = "page", nullable = false)
+    @Convert(converter = StatsPage.Converter.class)
+    private StatsPage page;
+
+    // Days of the month with statistics
+    @Column(name = "days", nullable = false)
+    private Integer days;
+
+    @Column(name = "total_views", nullable = false)
+    private Double totalViews;
+
+    // Sum over the days, not a month-end value
+    @Column(name = "subscribers", nullable = false)
+    private Double subscribers;
+
+    @Column(name = "interaction", nullable = false)
+    private Double interaction;
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getMonthStart() {
+        return monthStart;
+    }
+
+    public void setMonthStart(LocalDate monthStart) {
+        this.monthStart = monthStart;
+    }
+
+    public StatsPage getPage() {
+        return page;
+    }
+
+    public void setPage(StatsPage page) {
+        this.page = page;
+    }
+
+    public Integer getDays() {
+        return days;
+    }
+
+    public void setDays(Integer days) {
+        this.days = days;
+    }
+
+    public Double getTotalViews() {
+        return totalViews;
+    }
+
+    public void setTotalViews(Double totalViews) {
+        this.totalViews = totalViews;
+    }
+
+    public Double getSubscribers() {
+        return subscribers;
+    }
+
+    public void setSubscribers(Double subscribers) {
+        this.subscribers = subscribers;
+    }
+
+    public Double getInteraction() {
+        return interaction;
+    }
+
+    public void setInteraction(Double interaction) {
+        this.interaction = interaction;
+    }
+}
@@ -0,0 +1,117 @@
+package com.cinemitr.datatracker.entity;
+
+import com.cinemitr.datatracker.enums.StatsPage;
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * Sub-daily statistics of one page for one day at one step (an hour or a minute), packed by
+ * {@link com.cinemitr.datatracker.util.SeriesBlock}.
+ */
+@Entity
+@Table(name = "stats_series_block",
+       uniqueConstraints = @UniqueConstraint(name = "uq_stats_series_block", columnNames = {"page", "step_seconds", "block_date"}))
+public class StatsSeriesBlock {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "page", nullable = false)
+    @Convert(converter = StatsPage.Converter.class)
+    private StatsPage page;
+
+    // 3600 for hourly samples, 60 for minutely ones
+    @Column(name = "step_seconds", nullable = false)
+    private Integer stepSeconds;
+
+    @Column(name = "block_date", nullable = false)
+    private LocalDate blockDate;
+
+    // Slots of the day that hold a sample
+    @Column(name = "samples", nullable = false)
+    private Integer samples;
+
+    @Lob
+    @Column(name = "payload", nullable = false)
+    private byte[] payload;
+
+    @Column(name = "updated_at")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date updatedAt;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        updatedAt = new Date();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public StatsPage getPage() {
+        return page;
+    }
+
+    public void setPage(StatsPage page) {
+        this.page = page;
+    }
+
+    public Integer getStepSeconds() {
+        return stepSeconds;
+    }
+
+    public void setStepSeconds(Integer stepSeconds) {
+        this.stepSeconds = stepSeconds;
+    }
+
+    public LocalDate getBlockDate() {
+        return blockDate;
+    }
+
+    public void setBlockDate(LocalDate blockDate) {
+        this.blockDate = blockDate;
+    }
+
+    public Integer getSamples() {
+        return samples;
+    }
+
+    public void setSamples(Integer samples) {
+        this.samples = samples;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
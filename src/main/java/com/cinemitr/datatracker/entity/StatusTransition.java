@@ -0,0 +1,96 @@
+package com.cinemitr.datatracker.entity;
+
+import javax.persistence.*;
+import java.util.Date;
+
+@Entity
+@Table(name = "status_transition",
+       indexes = {
+           @Index(name = "idx_status_transition_entity", columnList = "entity_type, entity_id, id")
+       })
+public class StatusTransition {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entity_type", nullable = false, length = 32)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    // Null for the status the row was created with
+    @Column(name = "from_status")
+    private String fromStatus;
+
+    @Column(name = "to_status", nullable = false)
+    private String toStatus;
+
+    @Column(name = "changed_at", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date changedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        changedAt = new Date();
+    }
+
+    // Constructors
+    public StatusTransition() {}
+
+    public StatusTransition(String entityType, Long entityId, String fromStatus, String toStatus) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public String getFromStatus() {
+        return fromStatus;
+    }
+
+    public void setFromStatus(String fromStatus) {
+        this.fromStatus = fromStatus;
+    }
+
+    public String getToStatus() {
+        return toStatus;
+    }
+
+    public void setToStatus(String toStatus) {
+        this.toStatus = toStatus;
+    }
+
+    public Date getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(Date changedAt) {
+        this.changedAt = changedAt;
+    }
+}
@@ -0,0 +1,15 @@
+package com.cinemitr.datatracker.entity;
+
+import java.util.Date;
+
+/**
+ * Entity with a generated id, an {@code updated_at} timestamp maintained on every write and the
+ * commit-ordered {@code change_seq} the change feed pages through.
+ */
+public interface TrackedEntity {
+    Long getId();
+
+    Date getUpdatedAt();
+
+    Long getChangeSeq();
+}
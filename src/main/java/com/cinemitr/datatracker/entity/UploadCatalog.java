@@ -1,13 +1,22 @@
 package com.cinemitr.datatracker.entity;
 
+import com.cinemitr.datatracker.enums.UploadStatus;
+import org.hibernate.annotations.DynamicUpdate;
+
 import javax.persistence.*;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "upload_catalog")
-public class UploadCatalog {
+@DynamicUpdate
+@Table(name = "upload_catalog",
+       indexes = {
+           @Index(name = "idx_upload_status", columnList = "status"),
+           @Index(name = "idx_upload_updated_at", columnList = "updated_at, id"),
+           @Index(name = "idx_upload_change_seq", columnList = "change_seq, id")
+       })
+public class UploadCatalog implements TrackedEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -21,11 +30,13 @@ public class UploadCatalog {
     private MetadataStatus sourceData;
 
     @Column(name = "status", nullable = false)
-    private String status;
+    @Convert(converter = UploadStatus.Converter.class)
+    private UploadStatus status;
     
     @Column(name = "media_format")
     private String mediaFormat;
     
+    @Basic(fetch = FetchType.LAZY)
     @Column(name = "metadata", length = 9000)
     private String metadata;
 
@@ -45,6 +56,13 @@ public class UploadCatalog {
     @Temporal(TemporalType.TIMESTAMP)
     private Date updatedAt;
 
+    @Column(name = "change_seq", nullable = false, insertable = false, updatable = false)
+    private Long changeSeq;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = new Date();
@@ -59,7 +77,7 @@ public class UploadCatalog {
     // Constructors
     public UploadCatalog() {}
 
-    public UploadCatalog(String status) {
+    public UploadCatalog(UploadStatus status) {
         this.status = status;
     }
 
@@ -88,11 +106,11 @@ public class UploadCatalog {
         this.sourceData = sourceData;
     }
 
-    public String getStatus() {
+    public UploadStatus getStatus() {
         return status;
     }
 
-    public void setStatus(String status) {
+    public void setStatus(UploadStatus status) {
         this.status = status;
     }
 
@@ -140,7 +158,19 @@ public class UploadCatalog {
         return updatedAt;
     }
 
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
     public void setUpdatedAt(Date updatedAt) {
         this.updatedAt = updatedAt;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,118 @@
+package com.cinemitr.datatracker.entity;
+
+import com.cinemitr.datatracker.enums.UploadStatus;
+import org.hibernate.annotations.DynamicUpdate;
+
+import javax.persistence.*;
+
+/**
+ * Read model row of the upload list: the values UploadCatalogDTO shows for one upload, copied from
+ * upload_catalog, content_catalog, metadata_status and the media mapping. Maintained by
+ * UploadViewService; never written directly.
+ */
+@Entity
+@DynamicUpdate
+@Table(name = "upload_view",
+       indexes = @Index(name = "idx_upload_view_status", columnList = "status, upload_id"))
+public class UploadView {
+    @Id
+    @Column(name = "upload_id")
+    private Long uploadId;
+
+    @Column(name = "source_link", nullable = false)
+    private String sourceLink;
+
+    @Lob
+    @Column(name = "source_data", nullable = false)
+    private String sourceData;
+
+    @Column(name = "status", nullable = false)
+    @Convert(converter = UploadStatus.Converter.class)
+    private UploadStatus status;
+
+    @Column(name = "media_data", nullable = false)
+    private String mediaData;
+
+    @Column(name = "metadata", nullable = false, length = 9000)
+    private String metadata;
+
+    // Newline-separated, in media id order
+    @Lob
+    @Column(name = "media_names", nullable = false)
+    private String mediaNames;
+
+    @Column(name = "media_type", nullable = false)
+    private String mediaType;
+
+    // Constructors
+    public UploadView() {}
+
+    public UploadView(Long uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    // Getters and Setters
+    public Long getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(Long uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public String getSourceLink() {
+        return sourceLink;
+    }
+
+    public void setSourceLink(String sourceLink) {
+        this.sourceLink = sourceLink;
+    }
+
+    public String getSourceData() {
+        return sourceData;
+    }
+
+    public void setSourceData(String sourceData) {
+        this.sourceData = sourceData;
+    }
+
+    public UploadStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(UploadStatus status) {
+        this.status = status;
+    }
+
+    public String getMediaData() {
+        return mediaData;
+    }
+
+    public void setMediaData(String mediaData) {
+        this.mediaData = mediaData;
+    }
+
+    public String getMetadata() {
+        return metadata;
+    }
+
+    public void setMetadata(String metadata) {
+        this.metadata = metadata;
+    }
+
+    public String getMediaNames() {
+        return mediaNames;
+    }
+
+    public void setMediaNames(String mediaNames) {
+        this.mediaNames = mediaNames;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public void setMediaType(String mediaType) {
+        this.mediaType = mediaType;
+    }
+}
@@ -0,0 +1,46 @@
+package com.cinemitr.datatracker.enums;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * An enum the database stores as a small integer code (see {@link CodedEnumConverter}) and the
+ * API shows as its value. Codes are part of the schema: a constant keeps its code for good and a
+ * retired code is never reused.
+ *
+ * Each enum has a LEGACY constant with {@link #LEGACY_CODE} for values stored before the columns
+ * were coded that matched no constant; their original text is kept in legacy_enum_value. Rows show
+ * it until they are given a real value, and it is never accepted as input.
+ */
+public interface CodedEnum {
+
+    short LEGACY_CODE = 99;
+
+    short getCode();
+
+    String getValue();
+
+    /**
+     * The constant whose value matches, ignoring case and surrounding blanks. LEGACY never matches.
+     *
+     * @param field the request field, for the error message
+     * @throws IllegalArgumentException when the value is missing or matches no constant
+     */
+    static <E extends Enum<E> & CodedEnum> E fromValue(Class<E> type, String field, String value) {
+        if (value != null) {
+            String trimmed = value.trim();
+            for (E constant : type.getEnumConstants()) {
+                if (constant.getCode() != LEGACY_CODE && constant.getValue().equalsIgnoreCase(trimmed)) {
+                    return constant;
+                }
+            }
+        }
+        String expected = Arrays.stream(type.getEnumConstants())
+                .filter(constant -> constant.getCode() != LEGACY_CODE)
+                .map(CodedEnum::getValue)
+                .collect(Collectors.joining(", "));
+        throw new IllegalArgumentException(value == null
+                ? field + " is required, expected one of " + expected
+                : "Unknown " + field + ": " + value + ", expected one of " + expected);
+    }
+}
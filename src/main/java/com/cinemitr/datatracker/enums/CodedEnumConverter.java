@@ -0,0 +1,46 @@
+package com.cinemitr.datatracker.enums;
+
+import javax.persistence.AttributeConverter;
+import java.lang.reflect.Array;
+
+/**
+ * Maps a {@link CodedEnum} to its SMALLINT code. Codes are looked up in an array indexed by code,
+ * so reading a row costs no string comparison.
+ */
+public abstract class CodedEnumConverter<E extends Enum<E> & CodedEnum> implements AttributeConverter<E, Short> {
+
+    private final Class<E> type;
+    private final E[] byCode;
+
+    @SuppressWarnings("unchecked")
+    protected CodedEnumConverter(Class<E> type) {
+        this.type = type;
+        int maxCode = 0;
+        for (E constant : type.getEnumConstants()) {
+            maxCode = Math.max(maxCode, constant.getCode());
+        }
+        byCode = (E[]) Array.newInstance(type, maxCode + 1);
+        for (E constant : type.getEnumConstants()) {
+            if (byCode[constant.getCode()] != null) {
+                throw new IllegalStateException(type.getSimpleName() + " uses code " + constant.getCode() + " twice");
+            }
+            byCode[constant.getCode()] = constant;
+        }
+    }
+
+    @Override
+    public Short convertToDatabaseColumn(E attribute) {
+        return attribute != null ? attribute.getCode() : null;
+    }
+
+    @Override
+    public E convertToEntityAttribute(Short code) {
+        if (code == null) {
+            return null;
+        }
+        if (code < 0 || code >= byCode.length || byCode[code] == null) {
+            throw new IllegalStateException("Unknown " + type.getSimpleName() + " code: " + code);
+        }
+        return byCode[code];
+    }
+}
@@ -0,0 +1,42 @@
+package com.cinemitr.datatracker.enums;
+
+public enum ContentPriority implements CodedEnum {
+    LOW(0, "low"),
+    MEDIUM(1, "medium"),
+    HIGH(2, "high"),
+    URGENT(3, "urgent"),
+    LEGACY(LEGACY_CODE, "legacy");
+
+    private final short code;
+    private final String value;
+
+    ContentPriority(int code, String value) {
+        this.code = (short) code;
+        this.value = value;
+    }
+
+    @Override
+    public short getCode() {
+        return code;
+    }
+
+    @Override
+    public String getValue() {
+        return value;
+    }
+
+    public static ContentPriority fromValue(String value) {
+        return CodedEnum.fromValue(ContentPriority.class, "priority", value);
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+
+    public static class Converter extends CodedEnumConverter<ContentPriority> {
+        public Converter() {
+            super(ContentPriority.class);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.cinemitr.datatracker.enums;
+
+public enum ContentStatus implements CodedEnum {
+    NEW(0, "new"),
+    DOWNLOADED(1, "downloaded"),
+    ERROR(2, "error"),
+    // Content created for the source link of an upload
+    PENDING(3, "pending"),
+    LEGACY(LEGACY_CODE, "legacy");
+
+    private final short code;
+    private final String value;
+
+    ContentStatus(int code, String value) {
+        this.code = (short) code;
+        this.value = value;
+    }
+
+    @Override
+    public short getCode() {
+        return code;
+    }
+
+    @Override
+    public String getValue() {
+        return value;
+    }
+
+    public static ContentStatus fromValue(String value) {
+        return CodedEnum.fromValue(ContentStatus.class, "status", value);
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+
+    public static class Converter extends CodedEnumConverter<ContentStatus> {
+        public Converter() {
+            super(ContentStatus.class);
+        }
+    }
+}
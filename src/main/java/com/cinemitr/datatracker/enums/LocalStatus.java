@@ -0,0 +1,45 @@
+package com.cinemitr.datatracker.enums;
+
+public enum LocalStatus implements CodedEnum {
+    AVAILABLE(0, "available"),
+    NOT_AVAILABLE(1, "not-available"),
+    LOCAL(2, "local"),
+    PROCESSING(3, "processing"),
+    // Older values, still held by existing rows and the CSV template
+    DOWNLOADED(4, "downloaded"),
+    NA(5, "na"),
+    LEGACY(LEGACY_CODE, "legacy");
+
+    private final short code;
+    private final String value;
+
+    LocalStatus(int code, String value) {
+        this.code = (short) code;
+        this.value = value;
+    }
+
+    @Override
+    public short getCode() {
+        return code;
+    }
+
+    @Override
+    public String getValue() {
+        return value;
+    }
+
+    public static LocalStatus fromValue(String value) {
+        return CodedEnum.fromValue(LocalStatus.class, "local_status", value);
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+
+    public static class Converter extends CodedEnumConverter<LocalStatus> {
+        public Converter() {
+            super(LocalStatus.class);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.cinemitr.datatracker.enums;
+
+public enum SeriesResolution {
+    HOUR("hour", 3600),
+    MINUTE("minute", 60);
+
+    private final String value;
+    private final int stepSeconds;
+
+    SeriesResolution(String value, int stepSeconds) {
+        this.value = value;
+        this.stepSeconds = stepSeconds;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public int getStepSeconds() {
+        return stepSeconds;
+    }
+
+    // Samples in one day
+    public int getSlots() {
+        return 86400 / stepSeconds;
+    }
+
+    public static SeriesResolution fromValue(String value) {
+        for (SeriesResolution resolution : SeriesResolution.values()) {
+            if (resolution.getValue().equalsIgnoreCase(value)) {
+                return resolution;
+            }
+        }
+        throw new IllegalArgumentException("Unknown resolution: " + value + ", expected hour or minute");
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -0,0 +1,49 @@
+package com.cinemitr.datatracker.enums;
+
+import java.util.Locale;
+
+public enum StatsPage implements CodedEnum {
+    CINE_MITR(0, "CINE.MITR"),
+    CINE_MITR_MUSIC(1, "CINE.MITR.MUSIC"),
+    LEGACY(LEGACY_CODE, "LEGACY");
+
+    private final short code;
+    private final String value;
+    private final String label;
+
+    StatsPage(int code, String value) {
+        this.code = (short) code;
+        this.value = value;
+        this.label = value.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public short getCode() {
+        return code;
+    }
+
+    @Override
+    public String getValue() {
+        return value;
+    }
+
+    // Lower-cased, as the statistics endpoints show pages
+    public String getLabel() {
+        return label;
+    }
+
+    public static StatsPage fromValue(String value) {
+        return CodedEnum.fromValue(StatsPage.class, "page", value);
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+
+    public static class Converter extends CodedEnumConverter<StatsPage> {
+        public Converter() {
+            super(StatsPage.class);
+        }
+    }
+}
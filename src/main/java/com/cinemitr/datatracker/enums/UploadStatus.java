@@ -0,0 +1,46 @@
+package com.cinemitr.datatracker.enums;
+
+public enum UploadStatus implements CodedEnum {
+    PENDING(0, "pending"),
+    NEW_CONTENT(1, "new-content"),
+    COMPLETED(2, "completed"),
+    DOWNLOADED(3, "downloaded"),
+    IN_PROGRESS(4, "in-progress"),
+    BLOCKED(5, "blocked"),
+    READY_TO_UPLOAD(6, "ready-to-upload"),
+    UPLOADED(7, "uploaded"),
+    LEGACY(LEGACY_CODE, "legacy");
+
+    private final short code;
+    private final String value;
+
+    UploadStatus(int code, String value) {
+        this.code = (short) code;
+        this.value = value;
+    }
+
+    @Override
+    public short getCode() {
+        return code;
+    }
+
+    @Override
+    public String getValue() {
+        return value;
+    }
+
+    public static UploadStatus fromValue(String value) {
+        return CodedEnum.fromValue(UploadStatus.class, "status", value);
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+
+    public static class Converter extends CodedEnumConverter<UploadStatus> {
+        public Converter() {
+            super(UploadStatus.class);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.cinemitr.datatracker.migration;
+
+import com.cinemitr.datatracker.enums.CodedEnum;
+import com.cinemitr.datatracker.enums.ContentPriority;
+import com.cinemitr.datatracker.enums.ContentStatus;
+import com.cinemitr.datatracker.enums.LocalStatus;
+import com.cinemitr.datatracker.enums.StatsPage;
+import com.cinemitr.datatracker.enums.UploadStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Converts the free-cased status, priority, local status and page columns to the SMALLINT codes
+ * of their enums, so lookups compare integers on the existing indexes.
+ *
+ * Every stored value is matched ignoring case and surrounding blanks. A value no constant matches
+ * gets the LEGACY code, and the original text of each of its rows is copied to legacy_enum_value
+ * first, so no value is lost and the upgrade never stops on old data. Where LEGACY would give two
+ * statistics rows the same unique key (two unknown pages on one day), the row with the lowest id
+ * keeps the key and the others move to legacy_enum_value whole, in row_data: daily rows are
+ * reported as deleted and leave the monthly rollup, and monthly rollups are summed into the kept
+ * one. The status log keeps its strings; those of known statuses are rewritten to the canonical
+ * value so the funnel groups them with the current rows.
+ */
+public class V14__Encode_status_and_page_columns extends BaseJavaMigration {
+
+    private static final List<Column> COLUMNS = Arrays.asList(
+            new Column("content_catalog", "id", "status", ContentStatus.class),
+            new Column("content_catalog", "id", "priority", ContentPriority.class),
+            new Column("content_catalog", "id", "local_status", LocalStatus.class),
+            new Column("upload_catalog", "id", "status", UploadStatus.class),
+            new Column("upload_view", "upload_id", "status", UploadStatus.class),
+            new Column("stats_catalog", "id", "page", StatsPage.class, "date"),
+            new Column("stats_monthly_rollup", "id", "page", StatsPage.class, "month_start"),
+            new Column("stats_series_block", "id", "page", StatsPage.class, "step_seconds", "block_date"));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public void migrate(Context context) throws JsonProcessingException {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS legacy_enum_value ("
+                + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "table_name VARCHAR(64) NOT NULL, "
+                + "column_name VARCHAR(64) NOT NULL, "
+                + "row_id BIGINT NOT NULL, "
+                + "original_value VARCHAR(255) NOT NULL, "
+                + "row_data CLOB, "
+                + "recorded_at TIMESTAMP NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_legacy_enum_value_row "
+                + "ON legacy_enum_value(table_name, row_id)");
+
+        List<String> legacy = new ArrayList<>();
+        for (Column column : COLUMNS) {
+            Map<String, CodedEnum> mapping = new LinkedHashMap<>();
+            List<String> unknown = new ArrayList<>();
+            for (String value : jdbcTemplate.queryForList(
+                    "SELECT DISTINCT " + column.name + " FROM " + column.table, String.class)) {
+                CodedEnum constant = match(column.type, value);
+                if (constant != null) {
+                    mapping.put(value, constant);
+                } else {
+                    unknown.add(value);
+                }
+            }
+
+            if (!unknown.isEmpty()) {
+                String in = column.name + " IN (" + String.join(", ", Collections.nCopies(unknown.size(), "?")) + ")";
+                if (column.uniqueWith.length > 0) {
+                    setAsideDuplicates(jdbcTemplate, column, in, unknown);
+                }
+                List<Object> args = new ArrayList<>(Arrays.asList(column.table, column.name));
+                args.addAll(unknown);
+                jdbcTemplate.update("INSERT INTO legacy_enum_value (table_name, column_name, row_id, original_value, "
+                        + "recorded_at) SELECT ?, ?, " + column.key + ", " + column.name + ", CURRENT_TIMESTAMP FROM "
+                        + column.table + " WHERE " + in, args.toArray());
+                // Before the known values, which are never numbers: an unknown one may be, and may equal a code
+                jdbcTemplate.update("UPDATE " + column.table + " SET " + column.name + " = '" + CodedEnum.LEGACY_CODE
+                        + "' WHERE " + in, unknown.toArray());
+                for (String value : unknown) {
+                    legacy.add(column.table + "." + column.name + " = '" + value + "'");
+                }
+            }
+
+            List<Object[]> updates = new ArrayList<>();
+            for (Map.Entry<String, CodedEnum> entry : mapping.entrySet()) {
+                updates.add(new Object[]{Short.toString(entry.getValue().getCode()), entry.getKey()});
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE " + column.table + " SET " + column.name + " = ? WHERE " + column.name + " = ?", updates);
+            }
+            // Keeps the column's NOT NULL and indexes
+            jdbcTemplate.execute("ALTER TABLE " + column.table + " ALTER COLUMN " + column.name + " SET DATA TYPE SMALLINT");
+        }
+        jdbcTemplate.execute("CREATE INDEX idx_upload_view_status ON upload_view(status, upload_id)");
+
+        canonicalizeLog(jdbcTemplate, "content", ContentStatus.class);
+        canonicalizeLog(jdbcTemplate, "upload", UploadStatus.class);
+
+        if (!legacy.isEmpty()) {
+            System.out.println("Values without a code were stored as 'legacy', their original text is in "
+                    + "legacy_enum_value: " + String.join(", ", legacy));
+        }
+    }
+
+    // Rows with an unknown value whose unique key an unknown-valued row with a lower id already takes
+    private void setAsideDuplicates(JdbcTemplate jdbcTemplate, Column column, String in, List<String> unknown)
+            throws JsonProcessingException {
+        String sameKey = Arrays.stream(column.uniqueWith)
+                .map(name -> "k." + name + " = t." + name)
+                .collect(Collectors.joining(" AND "));
+        List<Object> args = new ArrayList<>(unknown);
+        args.addAll(unknown);
+        List<Map<String, Object>> duplicates = jdbcTemplate.queryForList("SELECT * FROM " + column.table + " t WHERE t."
+                + in + " AND EXISTS (SELECT 1 FROM " + column.table + " k WHERE k." + in + " AND " + sameKey
+                + " AND k.id < t.id) ORDER BY t.id", args.toArray());
+        for (Map<String, Object> row : duplicates) {
+            jdbcTemplate.update("INSERT INTO legacy_enum_value (table_name, column_name, row_id, original_value, "
+                    + "row_data, recorded_at) VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP)", column.table, column.name,
+                    row.get("id"), row.get(column.name), rowData(row));
+            if (column.table.equals("stats_catalog")) {
+                jdbcTemplate.update("INSERT INTO deletion_log (entity_type, entity_id, deleted_at) "
+                        + "VALUES ('stats', ?, CURRENT_TIMESTAMP)", row.get("id"));
+                // The rollup still holds the page's text, converted after this table
+                jdbcTemplate.update("UPDATE stats_monthly_rollup SET days = days - 1, total_views = total_views - ?, "
+                        + "subscribers = subscribers - ?, interaction = interaction - ? "
+                        + "WHERE month_start = ? AND page = ?",
+                        row.get("total_views"), row.get("subscribers"), row.get("interaction"),
+                        java.sql.Date.valueOf(((java.sql.Date) row.get("date")).toLocalDate().withDayOfMonth(1)),
+                        row.get("page"));
+                jdbcTemplate.update("DELETE FROM stats_monthly_rollup WHERE days <= 0");
+            } else if (column.table.equals("stats_monthly_rollup")) {
+                jdbcTemplate.update("UPDATE stats_monthly_rollup k SET days = days + ?, total_views = total_views + ?, "
+                        + "subscribers = subscribers + ?, interaction = interaction + ? WHERE k.id = (SELECT MIN(t.id) "
+                        + "FROM stats_monthly_rollup t WHERE t." + in + " AND t.month_start = ?)",
+                        merged(row, unknown));
+            }
+            jdbcTemplate.update("DELETE FROM " + column.table + " WHERE id = ?", row.get("id"));
+        }
+    }
+
+    private static Object[] merged(Map<String, Object> row, List<String> unknown) {
+        List<Object> args = new ArrayList<>(Arrays.asList(row.get("days"), row.get("total_views"),
+                row.get("subscribers"), row.get("interaction")));
+        args.addAll(unknown);
+        args.add(row.get("month_start"));
+        return args.toArray();
+    }
+
+    // The row's columns as JSON: dates and times as text, binary columns in Base64
+    private String rowData(Map<String, Object> row) throws JsonProcessingException {
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> column : row.entrySet()) {
+            Object value = column.getValue();
+            data.put(column.getKey().toLowerCase(Locale.ROOT), value instanceof Date ? value.toString() : value);
+        }
+        return objectMapper.writeValueAsString(data);
+    }
+
+    private static void canonicalizeLog(JdbcTemplate jdbcTemplate, String entityType, Class<? extends CodedEnum> type) {
+        for (String column : Arrays.asList("from_status", "to_status")) {
+            for (String value : jdbcTemplate.queryForList("SELECT DISTINCT " + column + " FROM status_transition "
+                    + "WHERE entity_type = ? AND " + column + " IS NOT NULL", String.class, entityType)) {
+                CodedEnum constant = match(type, value);
+                if (constant != null && !constant.getValue().equals(value)) {
+                    jdbcTemplate.update("UPDATE status_transition SET " + column + " = ? WHERE entity_type = ? AND "
+                            + column + " = ?", constant.getValue(), entityType, value);
+                }
+            }
+        }
+    }
+
+    // The constant for a stored value, or null when none matches; LEGACY never does
+    private static CodedEnum match(Class<? extends CodedEnum> type, String value) {
+        if (value == null) {
+            return null;
+        }
+        for (CodedEnum constant : type.getEnumConstants()) {
+            if (constant.getCode() != CodedEnum.LEGACY_CODE && constant.getValue().equalsIgnoreCase(value.trim())) {
+                return constant;
+            }
+        }
+        return null;
+    }
+
+    private static final class Column {
+        private final String table;
+        private final String key;
+        private final String name;
+        private final Class<? extends CodedEnum> type;
+        // The other columns of a unique key the column belongs to
+        private final String[] uniqueWith;
+
+        private Column(String table, String key, String name, Class<? extends CodedEnum> type, String... uniqueWith) {
+            this.table = table;
+            this.key = key;
+            this.name = name;
+            this.type = type;
+            this.uniqueWith = uniqueWith;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.cinemitr.datatracker.migration;
+
+import com.cinemitr.datatracker.enums.StatsPage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Fills stats_archived_day from the statistics segments archived before it existed.
+ *
+ * A day that was ingested again after it was archived has a live row as well; it is left out and
+ * reported, and is recorded when that row is archived.
+ */
+public class V17__Backfill_stats_archived_day extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws IOException {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        int recorded = 0;
+        List<String> live = new ArrayList<>();
+        for (Long segmentId : jdbcTemplate.queryForList(
+                "SELECT id FROM archive_segment WHERE entity_type = 'stats' ORDER BY id", Long.class)) {
+            byte[] payload = jdbcTemplate.queryForObject(
+                    "SELECT payload FROM archive_segment WHERE id = ?", byte[].class, segmentId);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(new ByteArrayInputStream(payload)), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    JsonNode data = objectMapper.readTree(line).path("data");
+                    Date date = Date.valueOf(LocalDate.parse(data.path("date").asText()));
+                    short page = code(data.path("page").asText());
+                    if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stats_catalog WHERE date = ? AND page = ?",
+                            Integer.class, date, page) > 0) {
+                        live.add(data.path("date").asText() + " " + data.path("page").asText());
+                        continue;
+                    }
+                    recorded += jdbcTemplate.update(
+                            "INSERT IGNORE INTO stats_archived_day (date, page) VALUES (?, ?)", date, page);
+                }
+            }
+        }
+        if (recorded > 0) {
+            System.out.println("Recorded " + recorded + " archived statistics days");
+        }
+        if (!live.isEmpty()) {
+            System.out.println("Statistics ingested again after they were archived, counted twice in the monthly "
+                    + "rollup until corrected: " + String.join(", ", live));
+        }
+    }
+
+    // Pages no constant matches, and "legacy" itself, were stored with the LEGACY code (see V14)
+    private static short code(String page) {
+        try {
+            return StatsPage.fromValue(page).getCode();
+        } catch (IllegalArgumentException e) {
+            return StatsPage.LEGACY.getCode();
+        }
+    }
+}
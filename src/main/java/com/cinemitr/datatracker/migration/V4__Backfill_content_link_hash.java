@@ -0,0 +1,76 @@
+package com.cinemitr.datatracker.migration;
+
+import com.cinemitr.datatracker.util.LinkNormalizer;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.*;
+
+/**
+ * One-time backfill of content_catalog.link_hash, merging content rows whose links are the
+ * same after normalization into the oldest row (lowest id).
+ *
+ * Uploads, stats and media mappings of a merged duplicate are repointed to the surviving row
+ * before the duplicate is deleted. Rows are hashed in keyset-paginated batches.
+ */
+public class V4__Backfill_content_link_hash extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+
+        long lastId = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT id, link FROM content_catalog WHERE id > ? ORDER BY id LIMIT ?", lastId, BATCH_SIZE);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<Object[]> updates = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                updates.add(new Object[]{LinkNormalizer.hash((String) row.get("link")), row.get("id")});
+            }
+            jdbcTemplate.batchUpdate("UPDATE content_catalog SET link_hash = ? WHERE id = ?", updates);
+            lastId = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+        }
+
+        List<Long> duplicateHashes = jdbcTemplate.queryForList(
+                "SELECT link_hash FROM content_catalog GROUP BY link_hash HAVING COUNT(*) > 1", Long.class);
+        int merged = 0;
+        for (Long linkHash : duplicateHashes) {
+            List<Map<String, Object>> group = jdbcTemplate.queryForList(
+                    "SELECT id, link FROM content_catalog WHERE link_hash = ? ORDER BY id", linkHash);
+            Map<String, Long> survivorByLink = new HashMap<>();
+            for (Map<String, Object> row : group) {
+                Long id = ((Number) row.get("id")).longValue();
+                String normalized = LinkNormalizer.normalize((String) row.get("link"));
+                Long survivorId = survivorByLink.putIfAbsent(normalized, id);
+                if (survivorId != null) {
+                    mergeContent(jdbcTemplate, id, survivorId);
+                    merged++;
+                }
+            }
+            if (survivorByLink.size() > 1) {
+                throw new IllegalStateException("Different links share link_hash " + linkHash + ": " + survivorByLink.keySet());
+            }
+        }
+        if (merged > 0) {
+            System.out.println("Merged " + merged + " duplicate content rows while backfilling link_hash");
+        }
+    }
+
+    private void mergeContent(JdbcTemplate jdbcTemplate, Long duplicateId, Long survivorId) {
+        jdbcTemplate.update("UPDATE upload_catalog SET source_link_id = ? WHERE source_link_id = ?", survivorId, duplicateId);
+        jdbcTemplate.update("UPDATE stats_catalog SET content_id = ? WHERE content_id = ?", survivorId, duplicateId);
+        jdbcTemplate.update("INSERT INTO content_media_mapping (content_id, media_id) "
+                + "SELECT ?, media_id FROM content_media_mapping WHERE content_id = ? "
+                + "AND media_id NOT IN (SELECT media_id FROM content_media_mapping WHERE content_id = ?)",
+                survivorId, duplicateId, survivorId);
+        jdbcTemplate.update("DELETE FROM content_media_mapping WHERE content_id = ?", duplicateId);
+        jdbcTemplate.update("DELETE FROM content_catalog WHERE id = ?", duplicateId);
+    }
+}
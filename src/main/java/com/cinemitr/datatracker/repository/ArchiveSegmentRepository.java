@@ -0,0 +1,20 @@
+package com.cinemitr.datatracker.repository;
+
+import com.cinemitr.datatracker.entity.ArchiveSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ArchiveSegmentRepository extends JpaRepository<ArchiveSegment, Long> {
+    // Segments of one entity type in archiving order
+    @Query("SELECT s.id FROM ArchiveSegment s WHERE s.entityType = :entityType ORDER BY s.id")
+    List<Long> findIdsByEntityType(@Param("entityType") String entityType);
+
+    // Compressed payload of one segment, read without loading the entity into the session
+    @Query("SELECT s.payload FROM ArchiveSegment s WHERE s.id = :id")
+    byte[] findPayload(@Param("id") Long id);
+}
@@ -1,19 +1,67 @@
 package com.cinemitr.datatracker.repository;
 
 import com.cinemitr.datatracker.entity.ContentCatalog;
+import com.cinemitr.datatracker.enums.ContentPriority;
+import com.cinemitr.datatracker.enums.ContentStatus;
+import com.cinemitr.datatracker.enums.LocalStatus;
+import com.cinemitr.datatracker.util.LinkNormalizer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface ContentCatalogRepository extends JpaRepository<ContentCatalog, Long> {
-    List<ContentCatalog> findByStatus(String status);
-    List<ContentCatalog> findByPriority(String priority);
-    List<ContentCatalog> findByLocalStatus(String localStatus);
+    List<ContentCatalog> findByStatus(ContentStatus status);
+    // Pipeline analytics: rows per status
+    @Query("SELECT c.status, COUNT(c) FROM ContentCatalog c GROUP BY c.status")
+    List<Object[]> countByStatus();
+    List<ContentCatalog> findByPriority(ContentPriority priority);
+    List<ContentCatalog> findByLocalStatus(LocalStatus localStatus);
     ContentCatalog findByLink(String link);
+    ContentCatalog findByLinkHash(Long linkHash);
+    // Insert-or-fetch on the unique link_hash: inserts nothing (0) when content with the link exists, including
+    // rows another transaction or instance inserted first; waits on the index while that transaction is still open.
+    // Takes the codes of status, priority and local status
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO content_catalog (link, link_hash, status, priority, local_status, created_at, "
+            + "updated_at, version) VALUES (:link, :linkHash, :status, :priority, :localStatus, CURRENT_TIMESTAMP, "
+            + "CURRENT_TIMESTAMP, 0)", nativeQuery = true)
+    int insertIfAbsent(@Param("link") String link, @Param("linkHash") Long linkHash, @Param("status") short status,
+            @Param("priority") short priority, @Param("localStatus") short localStatus);
     @Query("SELECT c FROM ContentCatalog c JOIN c.mediaList m WHERE m.id = :mediaId")
     List<ContentCatalog> findByMediaId(@Param("mediaId") Long mediaId);
-}
\ No newline at end of file
+    @Query("SELECT c.id FROM ContentCatalog c JOIN c.mediaList m WHERE m.id = :mediaId")
+    List<Long> findIdsByMediaId(@Param("mediaId") Long mediaId);
+    @Query("SELECT c.linkHash FROM ContentCatalog c")
+    Stream<Long> streamAllLinkHashes();
+
+    /**
+     * Finds content whose link is the same as the given one after normalization
+     * (hash lookup on the unique link_hash index, then exact compare of the normalized links).
+     */
+    default ContentCatalog findByNormalizedLink(String link) {
+        ContentCatalog content = findByLinkHash(LinkNormalizer.hash(link));
+        return content != null && LinkNormalizer.sameLink(content.getLink(), link) ? content : null;
+    }
+
+    // Change feed page: rows stamped after the (seq, afterId) cursor, in cursor order
+    @Query("SELECT c FROM ContentCatalog c WHERE c.changeSeq >= :seq AND (c.changeSeq > :seq OR c.id > :afterId) "
+            + "ORDER BY c.changeSeq, c.id")
+    List<ContentCatalog> findChangedSince(@Param("seq") Long seq, @Param("afterId") Long afterId, Pageable page);
+    // NDJSON export: every row in id order, read in fetch-size batches instead of all at once
+    @Query("SELECT c FROM ContentCatalog c LEFT JOIN FETCH c.localFilePath ORDER BY c.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<ContentCatalog> streamAll();
+}
@@ -0,0 +1,20 @@
+package com.cinemitr.datatracker.repository;
+
+import com.cinemitr.datatracker.entity.DeletionLog;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DeletionLogRepository extends JpaRepository<DeletionLog, Long> {
+    @Query("SELECT d FROM DeletionLog d WHERE d.entityType = :entityType AND d.changeSeq >= :seq "
+            + "AND (d.changeSeq > :seq OR d.id > :afterId) ORDER BY d.changeSeq, d.id")
+    List<DeletionLog> findDeletedSince(@Param("entityType") String entityType, @Param("seq") Long seq,
+            @Param("afterId") Long afterId, Pageable page);
+    // Cursor position of a first sync: the last committed deletion
+    DeletionLog findFirstByOrderByChangeSeqDescIdDesc();
+}
@@ -1,10 +1,20 @@
 package com.cinemitr.datatracker.repository;
 
 import com.cinemitr.datatracker.entity.MediaCatalog;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface MediaCatalogRepository extends JpaRepository<MediaCatalog, Long> {
@@ -14,4 +24,52 @@ public interface MediaCatalogRepository extends JpaRepository<MediaCatalog, Long
     List<MediaCatalog> findByIsDownloaded(Boolean isDownloaded);
     MediaCatalog findByMediaName(String mediaName);
     MediaCatalog findByMediaNameAndMediaType(String mediaName, String mediaType);
-}
\ No newline at end of file
+    // Insert-or-fetch: inserts nothing (0) when the (name, type) pair exists, including rows another transaction
+    // or instance inserted first; waits on the unique index while that transaction is still open
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO media_catalog (media_type, media_name, language, is_downloaded, main_genres, "
+            + "sub_genres, available_on, created_at, updated_at, version) VALUES (:mediaType, :mediaName, :language, FALSE, "
+            + ":mainGenres, '', :availableOn, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0)", nativeQuery = true)
+    int insertIfAbsent(@Param("mediaName") String mediaName, @Param("mediaType") String mediaType,
+            @Param("language") String language, @Param("mainGenres") String mainGenres,
+            @Param("availableOn") String availableOn);
+    @Query("SELECT m.id, m.mediaName, m.mediaType FROM MediaCatalog m")
+    Stream<Object[]> streamAllKeys();
+
+    // Renames and merges change the media names shown on mapped content and uploads, bump their updated_at
+    @Modifying
+    @Query(value = "UPDATE content_catalog SET updated_at = CURRENT_TIMESTAMP "
+            + "WHERE id IN (SELECT content_id FROM content_media_mapping WHERE media_id = :mediaId)", nativeQuery = true)
+    int touchContentOfMedia(@Param("mediaId") Long mediaId);
+    @Modifying
+    @Query(value = "UPDATE upload_catalog SET updated_at = CURRENT_TIMESTAMP "
+            + "WHERE id IN (SELECT upload_id FROM upload_media_mapping WHERE media_id = :mediaId)", nativeQuery = true)
+    int touchUploadsOfMedia(@Param("mediaId") Long mediaId);
+    // Media merge: repoint the source's mappings unless the target is already mapped to the same row,
+    // then drop whatever is left on the source
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE content_media_mapping s SET media_id = :targetId WHERE s.media_id = :sourceId "
+            + "AND NOT EXISTS (SELECT 1 FROM content_media_mapping t WHERE t.content_id = s.content_id AND t.media_id = :targetId)",
+            nativeQuery = true)
+    int repointContentMappings(@Param("sourceId") Long sourceId, @Param("targetId") Long targetId);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM content_media_mapping WHERE media_id = :sourceId", nativeQuery = true)
+    int deleteContentMappings(@Param("sourceId") Long sourceId);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE upload_media_mapping s SET media_id = :targetId WHERE s.media_id = :sourceId "
+            + "AND NOT EXISTS (SELECT 1 FROM upload_media_mapping t WHERE t.upload_id = s.upload_id AND t.media_id = :targetId)",
+            nativeQuery = true)
+    int repointUploadMappings(@Param("sourceId") Long sourceId, @Param("targetId") Long targetId);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM upload_media_mapping WHERE media_id = :sourceId", nativeQuery = true)
+    int deleteUploadMappings(@Param("sourceId") Long sourceId);
+    // Change feed page: rows stamped after the (seq, afterId) cursor, in cursor order
+    @Query("SELECT m FROM MediaCatalog m WHERE m.changeSeq >= :seq AND (m.changeSeq > :seq OR m.id > :afterId) "
+            + "ORDER BY m.changeSeq, m.id")
+    List<MediaCatalog> findChangedSince(@Param("seq") Long seq, @Param("afterId") Long afterId, Pageable page);
+    // NDJSON export: every row in id order, read in fetch-size batches instead of all at once
+    @Query("SELECT m FROM MediaCatalog m LEFT JOIN FETCH m.downloadPath ORDER BY m.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<MediaCatalog> streamAll();
+}
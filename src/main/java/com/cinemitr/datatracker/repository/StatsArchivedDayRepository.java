@@ -0,0 +1,27 @@
+package com.cinemitr.datatracker.repository;
+
+import com.cinemitr.datatracker.entity.StatsArchivedDay;
+import com.cinemitr.datatracker.enums.StatsPage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StatsArchivedDayRepository extends JpaRepository<StatsArchivedDay, Long> {
+    // Single writes: whether the day was archived, on uq_stats_archived_day_page
+    boolean existsByDateAndPage(LocalDate date, StatsPage page);
+    // Ingestion: archived days among a batch's days and pages, a superset of its archived (date, page) keys
+    List<StatsArchivedDay> findByDateInAndPageIn(Collection<LocalDate> dates, Collection<StatsPage> pages);
+    // Archival: records a day once, whatever wrote it before; takes the page's code
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO stats_archived_day (date, page) VALUES (:date, :page)", nativeQuery = true)
+    int insertIfAbsent(@Param("date") LocalDate date, @Param("page") short page);
+}
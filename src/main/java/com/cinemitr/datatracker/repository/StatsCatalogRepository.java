@@ -1,15 +1,51 @@
 package com.cinemitr.datatracker.repository;
 
 import com.cinemitr.datatracker.entity.StatsCatalog;
+import com.cinemitr.datatracker.enums.StatsPage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Date;
+import javax.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface StatsCatalogRepository extends JpaRepository<StatsCatalog, Long> {
-    List<StatsCatalog> findByPage(String page);
-    List<StatsCatalog> findByDateBetween(Date startDate, Date endDate);
-    List<StatsCatalog> findByDate(Date date);
-}
\ No newline at end of file
+    List<StatsCatalog> findByPage(StatsPage page);
+    List<StatsCatalog> findByDateBetween(LocalDate startDate, LocalDate endDate);
+    List<StatsCatalog> findByDate(LocalDate date);
+    StatsCatalog findByDateAndPage(LocalDate date, StatsPage page);
+    // Ingestion: rows on any of a batch's days and pages, a superset of the batch's (date, page) keys
+    List<StatsCatalog> findByDateInAndPageIn(Collection<LocalDate> dates, Collection<StatsPage> pages);
+    // Insert-or-fetch on uq_stats_day_page: inserts nothing (0) when the day and page have a row, including one
+    // another transaction or instance inserted first; takes the page's code
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO stats_catalog (date, total_views, subscribers, interaction, content_id, page, "
+            + "created_at, updated_at, version) VALUES (:date, :totalViews, :subscribers, :interaction, :contentId, :page, "
+            + "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0)", nativeQuery = true)
+    int insertIfAbsent(@Param("date") LocalDate date, @Param("page") short page, @Param("totalViews") double totalViews,
+            @Param("subscribers") double subscribers, @Param("interaction") double interaction,
+            @Param("contentId") Long contentId);
+    // Archival: rows for days before the cutoff, after the cursor in primary key order
+    @Query("SELECT s.id FROM StatsCatalog s WHERE s.date < :before AND s.id > :afterId ORDER BY s.id")
+    List<Long> findArchivableIds(@Param("before") LocalDate before, @Param("afterId") Long afterId, Pageable page);
+    // Change feed page: rows stamped after the (seq, afterId) cursor, in cursor order
+    @Query("SELECT s FROM StatsCatalog s WHERE s.changeSeq >= :seq AND (s.changeSeq > :seq OR s.id > :afterId) "
+            + "ORDER BY s.changeSeq, s.id")
+    List<StatsCatalog> findChangedSince(@Param("seq") Long seq, @Param("afterId") Long afterId, Pageable page);
+    // NDJSON export: every row in id order, read in fetch-size batches instead of all at once
+    @Query("SELECT s FROM StatsCatalog s LEFT JOIN FETCH s.content ORDER BY s.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<StatsCatalog> streamAll();
+}
@@ -0,0 +1,39 @@
+package com.cinemitr.datatracker.repository;
+
+import com.cinemitr.datatracker.entity.StatsMonthlyRollup;
+import com.cinemitr.datatracker.enums.StatsPage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface StatsMonthlyRollupRepository extends JpaRepository<StatsMonthlyRollup, Long> {
+    // Rollup report: months in [from, to], all pages or one, on uq_stats_rollup_month_page
+    @Query("SELECT r FROM StatsMonthlyRollup r WHERE r.monthStart >= :from AND r.monthStart <= :to "
+            + "AND (:page IS NULL OR r.page = :page) ORDER BY r.monthStart, r.page")
+    List<StatsMonthlyRollup> findMonths(@Param("from") LocalDate from, @Param("to") LocalDate to, @Param("page") StatsPage page);
+    // Adds a change of the month's statistics (negative to take rows out), creating the month's row on first use;
+    // a single statement, so concurrent writers to the same month add up instead of overwriting each other. Takes
+    // the page's code, as does deleteIfEmpty
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO stats_monthly_rollup (month_start, page, days, total_views, subscribers, interaction) "
+            + "VALUES (:monthStart, :page, :days, :totalViews, :subscribers, :interaction) ON DUPLICATE KEY UPDATE "
+            + "days = days + :days, total_views = total_views + :totalViews, subscribers = subscribers + :subscribers, "
+            + "interaction = interaction + :interaction", nativeQuery = true)
+    int add(@Param("monthStart") LocalDate monthStart, @Param("page") short page, @Param("days") int days,
+            @Param("totalViews") double totalViews, @Param("subscribers") double subscribers,
+            @Param("interaction") double interaction);
+    // Drops a month whose last day was taken out
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM stats_monthly_rollup WHERE month_start = :monthStart AND page = :page AND days <= 0",
+            nativeQuery = true)
+    int deleteIfEmpty(@Param("monthStart") LocalDate monthStart, @Param("page") short page);
+}
@@ -0,0 +1,34 @@
+package com.cinemitr.datatracker.repository;
+
+import com.cinemitr.datatracker.entity.StatsSeriesBlock;
+import com.cinemitr.datatracker.enums.StatsPage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StatsSeriesBlockRepository extends JpaRepository<StatsSeriesBlock, Long> {
+    // Range query and downsampling: a page's blocks at one step for the days in [from, to], on uq_stats_series_block
+    @Query("SELECT b FROM StatsSeriesBlock b WHERE b.page = :page AND b.stepSeconds = :step "
+            + "AND b.blockDate >= :from AND b.blockDate <= :to ORDER BY b.blockDate")
+    List<StatsSeriesBlock> findBlocks(@Param("page") StatsPage page, @Param("step") int step,
+            @Param("from") LocalDate from, @Param("to") LocalDate to);
+    // Ingestion: a page's blocks at one step for the given days
+    @Query("SELECT b FROM StatsSeriesBlock b WHERE b.page = :page AND b.stepSeconds = :step AND b.blockDate IN :days")
+    List<StatsSeriesBlock> findBlocksOn(@Param("page") StatsPage page, @Param("step") int step,
+            @Param("days") Collection<LocalDate> days);
+    // Creates an empty block unless the page (by code), step and day have one, including one another writer inserted first
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO stats_series_block (page, step_seconds, block_date, samples, payload, updated_at, "
+            + "version) VALUES (:page, :step, :day, 0, :payload, CURRENT_TIMESTAMP, 0)", nativeQuery = true)
+    int insertIfAbsent(@Param("page") short page, @Param("step") int step, @Param("day") LocalDate day,
+            @Param("payload") byte[] payload);
+}
@@ -0,0 +1,33 @@
+package com.cinemitr.datatracker.repository;
+
+import com.cinemitr.datatracker.entity.StatusTransition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+@Repository
+public interface StatusTransitionRepository extends JpaRepository<StatusTransition, Long> {
+    // Analytics: (entity id, to status, changed at) before until, each entity's transitions together in log order
+    @Query("SELECT t.entityId, t.toStatus, t.changedAt FROM StatusTransition t "
+            + "WHERE t.entityType = :entityType AND t.changedAt < :until ORDER BY t.entityId, t.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<Object[]> streamTransitions(@Param("entityType") String entityType, @Param("until") Date until);
+    // Archival: the history of the rows being archived, each entity's transitions together in log order
+    @Query("SELECT t FROM StatusTransition t WHERE t.entityType = :entityType AND t.entityId IN :entityIds "
+            + "ORDER BY t.entityId, t.id")
+    List<StatusTransition> findHistory(@Param("entityType") String entityType, @Param("entityIds") Collection<Long> entityIds);
+    @Modifying
+    @Query("DELETE FROM StatusTransition t WHERE t.entityType = :entityType AND t.entityId IN :entityIds")
+    int deleteHistory(@Param("entityType") String entityType, @Param("entityIds") Collection<Long> entityIds);
+}
@@ -1,16 +1,54 @@
 package com.cinemitr.datatracker.repository;
 
 import com.cinemitr.datatracker.entity.UploadCatalog;
+import com.cinemitr.datatracker.enums.UploadStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface UploadCatalogRepository extends JpaRepository<UploadCatalog, Long> {
-    List<UploadCatalog> findByStatus(String status);
+    List<UploadCatalog> findByStatus(UploadStatus status);
+    // Pipeline analytics: rows per status
+    @Query("SELECT u.status, COUNT(u) FROM UploadCatalog u GROUP BY u.status")
+    List<Object[]> countByStatus();
     @Query("SELECT u FROM UploadCatalog u JOIN u.mediaList m WHERE m.id = :mediaId")
     List<UploadCatalog> findByMediaId(@Param("mediaId") Long mediaId);
-}
\ No newline at end of file
+    // Upload view maintenance: the uploads showing a content link or a media name
+    @Query("SELECT u.id FROM UploadCatalog u WHERE u.sourceLink.id = :contentId")
+    List<Long> findIdsBySourceLinkId(@Param("contentId") Long contentId);
+    @Query("SELECT u.id FROM UploadCatalog u JOIN u.mediaList m WHERE m.id = :mediaId")
+    List<Long> findIdsByMediaId(@Param("mediaId") Long mediaId);
+    // Upload view rebuild and check: ids after the cursor, in primary key order
+    @Query("SELECT u.id FROM UploadCatalog u WHERE u.id > :afterId ORDER BY u.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable page);
+    // Archival: finished uploads not changed since before, after the cursor in primary key order
+    @Query("SELECT u.id FROM UploadCatalog u WHERE u.status IN :statuses AND u.updatedAt < :before "
+            + "AND u.id > :afterId ORDER BY u.id")
+    List<Long> findArchivableIds(@Param("statuses") Collection<UploadStatus> statuses, @Param("before") Date before,
+            @Param("afterId") Long afterId, Pageable page);
+    // Multi-get: the lazy metadata columns and the source data row are wanted for every row, so they come with it
+    @Query("SELECT u FROM UploadCatalog u FETCH ALL PROPERTIES "
+            + "LEFT JOIN FETCH u.sourceData d FETCH ALL PROPERTIES LEFT JOIN FETCH u.sourceLink WHERE u.id IN :ids")
+    List<UploadCatalog> findAllWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+    // Change feed page: rows stamped after the (seq, afterId) cursor, in cursor order
+    @Query("SELECT u FROM UploadCatalog u WHERE u.changeSeq >= :seq AND (u.changeSeq > :seq OR u.id > :afterId) "
+            + "ORDER BY u.changeSeq, u.id")
+    List<UploadCatalog> findChangedSince(@Param("seq") Long seq, @Param("afterId") Long afterId, Pageable page);
+    // NDJSON export: every row in id order with the same eager details as the multi-get, read in fetch-size batches
+    @Query("SELECT u FROM UploadCatalog u FETCH ALL PROPERTIES "
+            + "LEFT JOIN FETCH u.sourceData d FETCH ALL PROPERTIES LEFT JOIN FETCH u.sourceLink ORDER BY u.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<UploadCatalog> streamAll();
+}
@@ -0,0 +1,23 @@
+package com.cinemitr.datatracker.repository;
+
+import com.cinemitr.datatracker.entity.UploadView;
+import com.cinemitr.datatracker.enums.UploadStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UploadViewRepository extends JpaRepository<UploadView, Long> {
+    // The upload list: one primary key scan, no joins
+    @Query("SELECT v FROM UploadView v ORDER BY v.uploadId")
+    List<UploadView> findAllInOrder();
+    // The upload list filtered by status, on idx_upload_view_status
+    @Query("SELECT v FROM UploadView v WHERE v.status = :status ORDER BY v.uploadId")
+    List<UploadView> findByStatusInOrder(@Param("status") UploadStatus status);
+    // Rows left behind by uploads deleted outside the services
+    @Query("SELECT v.uploadId FROM UploadView v WHERE NOT EXISTS (SELECT u.id FROM UploadCatalog u WHERE u.id = v.uploadId)")
+    List<Long> findOrphanIds();
+}
@@ -0,0 +1,30 @@
+package com.cinemitr.datatracker.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs the archiving of old uploads and statistics every datatracker.archive.interval-ms; the
+ * POST /archive endpoints run the same work on demand.
+ */
+@Service
+public class ArchiveJob {
+
+    @Autowired
+    private UploadCatalogService uploadService;
+
+    @Autowired
+    private StatsCatalogService statsService;
+
+    @Scheduled(initialDelayString = "${datatracker.archive.interval-ms:86400000}",
+               fixedDelayString = "${datatracker.archive.interval-ms:86400000}")
+    public void archive() {
+        try {
+            uploadService.archiveUploads();
+            statsService.archiveStats();
+        } catch (RuntimeException e) {
+            System.err.println("Archiving failed, the rows stay live until the next run: " + e.getMessage());
+        }
+    }
+}
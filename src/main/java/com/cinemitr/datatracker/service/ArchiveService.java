@@ -0,0 +1,221 @@
+package com.cinemitr.datatracker.service;
+
+import com.cinemitr.datatracker.entity.ArchiveSegment;
+import com.cinemitr.datatracker.entity.StatusTransition;
+import com.cinemitr.datatracker.entity.TrackedEntity;
+import com.cinemitr.datatracker.repository.ArchiveSegmentRepository;
+import com.cinemitr.datatracker.repository.StatusTransitionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archive tier for rows that are rarely read any more: moves them out of their hot tables into
+ * gzip-compressed archive_segment rows, and reads them back for the endpoints that opt in.
+ *
+ * Rows move in batches of {@link #BATCH_SIZE}, one transaction per batch: the segment is written
+ * and the rows (with their status history) are deleted together, so a row is always either live
+ * or archived. A row changed concurrently fails its version check and the batch runs again from
+ * a fresh read (see {@link ConflictRetry}); a row that no longer qualifies then stays. Each line of
+ * a segment holds the row as the API returned it ("data") and its status transitions ("history").
+ * Archiving is not a deletion, so the changes feed does not report archived rows.
+ */
+@Service
+public class ArchiveService {
+
+    public static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private ArchiveSegmentRepository segmentRepository;
+
+    @Autowired
+    private StatusTransitionRepository transitionRepository;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Archives every row that qualifies.
+     *
+     * @param candidateIds ids of rows that may qualify after the given id, in id order, at most a batch
+     * @param load         the rows for the ids
+     * @param archivable   whether a loaded row qualifies, checked again on the current state
+     * @param toDTO        the representation kept in the archive
+     * @param delete       removes one row from the hot tables
+     * @return the number of rows archived
+     */
+    public <E extends TrackedEntity> long archive(String entityType, Function<Long, List<Long>> candidateIds,
+                                                  Function<List<Long>, List<E>> load, Predicate<E> archivable,
+                                                  Function<E, ?> toDTO, Consumer<E> delete) {
+        long start = System.nanoTime();
+        long archived = 0;
+        long rawBytes = 0;
+        long storedBytes = 0;
+        long afterId = 0;
+        while (true) {
+            long cursor = afterId;
+            Batch batch = conflictRetry.execute(status -> {
+                List<Long> ids = candidateIds.apply(cursor);
+                if (ids.isEmpty()) {
+                    return null;
+                }
+                List<E> rows = load.apply(ids).stream()
+                        .filter(archivable)
+                        .sorted(Comparator.comparing(TrackedEntity::getId))
+                        .collect(Collectors.toList());
+                Batch result = new Batch(ids.get(ids.size() - 1));
+                if (!rows.isEmpty()) {
+                    ArchiveSegment segment = segment(entityType, rows, toDTO);
+                    segmentRepository.save(segment);
+                    rows.forEach(delete);
+                    transitionRepository.deleteHistory(entityType,
+                            rows.stream().map(TrackedEntity::getId).collect(Collectors.toList()));
+                    result.rows = rows.size();
+                    result.rawBytes = segment.getRawBytes();
+                    result.storedBytes = segment.getPayload().length;
+                }
+                return result;
+            });
+            if (batch == null) {
+                break;
+            }
+            archived += batch.rows;
+            rawBytes += batch.rawBytes;
+            storedBytes += batch.storedBytes;
+            afterId = batch.lastCandidateId;
+        }
+        if (archived > 0) {
+            System.out.println("Archived " + archived + " " + entityType + " rows (" + rawBytes / 1024 + " KB as "
+                    + storedBytes / 1024 + " KB compressed) in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+        return archived;
+    }
+
+    private <E extends TrackedEntity> ArchiveSegment segment(String entityType, List<E> rows, Function<E, ?> toDTO) {
+        Map<Long, List<StatusTransition>> history = transitionRepository.findHistory(entityType,
+                        rows.stream().map(TrackedEntity::getId).collect(Collectors.toList())).stream()
+                .collect(Collectors.groupingBy(StatusTransition::getEntityId));
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        long rawBytes = 0;
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            for (E row : rows) {
+                ObjectNode line = objectMapper.createObjectNode();
+                line.set("data", objectMapper.valueToTree(toDTO.apply(row)));
+                List<StatusTransition> transitions = history.get(row.getId());
+                if (transitions != null) {
+                    ArrayNode lineHistory = line.putArray("history");
+                    for (StatusTransition transition : transitions) {
+                        lineHistory.addObject()
+                                .put("to_status", transition.getToStatus())
+                                .put("changed_at", transition.getChangedAt().getTime());
+                    }
+                }
+                byte[] bytes = objectMapper.writeValueAsBytes(line);
+                gzip.write(bytes);
+                gzip.write('\n');
+                rawBytes += bytes.length + 1;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ArchiveSegment segment = new ArchiveSegment();
+        segment.setEntityType(entityType);
+        segment.setFirstId(rows.get(0).getId());
+        segment.setLastId(rows.get(rows.size() - 1).getId());
+        segment.setRowCount(rows.size());
+        segment.setRawBytes(rawBytes);
+        segment.setPayload(compressed.toByteArray());
+        return segment;
+    }
+
+    /**
+     * Every archived row of the type as its DTO, in archiving order.
+     */
+    public <D> List<D> list(String entityType, Class<D> type) {
+        List<D> rows = new ArrayList<>();
+        forEach(entityType, line -> {
+            try {
+                rows.add(objectMapper.treeToValue(line.get("data"), type));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Unreadable archived " + entityType + " row", e);
+            }
+        });
+        return rows;
+    }
+
+    /**
+     * Every archived row of the type as field name to value, as the DTO serializes, in archiving order.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> rows(String entityType) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        forEach(entityType, line -> rows.add(objectMapper.convertValue(line.get("data"), LinkedHashMap.class)));
+        return rows;
+    }
+
+    /**
+     * Reads the archived lines of the type one segment at a time, in archiving order.
+     */
+    public void forEach(String entityType, Consumer<JsonNode> consumer) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            for (Long segmentId : segmentRepository.findIdsByEntityType(entityType)) {
+                decode(segmentRepository.findPayload(segmentId), consumer);
+            }
+        });
+    }
+
+    private void decode(byte[] payload, Consumer<JsonNode> consumer) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(payload)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    consumer.accept(objectMapper.readTree(line));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Batch {
+        private final long lastCandidateId;
+        private int rows;
+        private long rawBytes;
+        private long storedBytes;
+
+        private Batch(long lastCandidateId) {
+            this.lastCandidateId = lastCandidateId;
+        }
+    }
+}
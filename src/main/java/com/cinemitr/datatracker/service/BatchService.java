@@ -0,0 +1,230 @@
+package com.cinemitr.datatracker.service;
+
+import com.cinemitr.datatracker.dto.*;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs an ordered list of create/update/delete operations through the regular catalog services.
+ *
+ * all-or-nothing: every operation runs in one transaction, so they share one persistence context
+ * and pending updates are flushed together at commit; the first failure rolls everything back.
+ * continue-on-error: every operation gets its own transaction. A single shared transaction cannot
+ * survive a failed operation here: a database error leaves the Hibernate session unusable, and
+ * savepoints would roll back the rows but not the persistence context.
+ * Either way, a transaction that lost a race against a concurrent writer is run again from its
+ * first operation (see {@link ConflictRetry}).
+ */
+@Service
+public class BatchService {
+
+    public static final String ALL_OR_NOTHING = "all-or-nothing";
+    public static final String CONTINUE_ON_ERROR = "continue-on-error";
+
+    private static final int MAX_OPERATIONS = 500;
+
+    @Autowired
+    private MediaCatalogService mediaService;
+
+    @Autowired
+    private ContentCatalogService contentService;
+
+    @Autowired
+    private UploadCatalogService uploadService;
+
+    @Autowired
+    private StatsCatalogService statsService;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public BatchResponseDTO execute(BatchRequestDTO request) {
+        String mode = request.getMode() == null || request.getMode().trim().isEmpty()
+                ? ALL_OR_NOTHING : request.getMode().trim().toLowerCase(Locale.ROOT);
+        if (!ALL_OR_NOTHING.equals(mode) && !CONTINUE_ON_ERROR.equals(mode)) {
+            throw new IllegalArgumentException("Unknown batch mode '" + request.getMode()
+                    + "', expected '" + ALL_OR_NOTHING + "' or '" + CONTINUE_ON_ERROR + "'");
+        }
+        List<BatchOperationDTO> operations = request.getOperations() != null ? request.getOperations() : Collections.emptyList();
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("Batch has no operations");
+        }
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new IllegalArgumentException("Batch has " + operations.size() + " operations, at most " + MAX_OPERATIONS + " are allowed");
+        }
+        // Malformed operations are rejected before anything runs
+        for (int i = 0; i < operations.size(); i++) {
+            validate(i, operations.get(i));
+        }
+
+        BatchResponseDTO response = new BatchResponseDTO();
+        response.setMode(mode);
+        if (ALL_OR_NOTHING.equals(mode)) {
+            runAllOrNothing(operations, response);
+        } else {
+            runContinueOnError(operations, response);
+        }
+        return response;
+    }
+
+    private void runAllOrNothing(List<BatchOperationDTO> operations, BatchResponseDTO response) {
+        List<BatchResultDTO> results = response.getResults();
+        try {
+            // A conflict with a concurrent writer runs the whole batch again
+            conflictRetry.execute(status -> {
+                results.clear();
+                for (int i = 0; i < operations.size(); i++) {
+                    BatchResultDTO result = new BatchResultDTO(i, operations.get(i));
+                    results.add(result);
+                    try {
+                        result.setData(apply(operations.get(i)));
+                        result.setStatus("ok");
+                    } catch (RuntimeException e) {
+                        result.setStatus("error");
+                        result.setError(message(e));
+                        if (ConflictRetry.isConflict(e)) {
+                            throw e;
+                        }
+                        status.setRollbackOnly();
+                        return null;
+                    }
+                }
+                return null;
+            });
+        } catch (TransactionException | OptimisticLockingFailureException e) {
+            response.setError("Batch could not be committed: " + message(e));
+        }
+
+        boolean failed = response.getError() != null || results.size() < operations.size()
+                || results.stream().anyMatch(result -> "error".equals(result.getStatus()));
+        if (failed) {
+            for (BatchResultDTO result : results) {
+                if ("ok".equals(result.getStatus())) {
+                    result.setStatus("rolled_back");
+                    result.setData(null);
+                }
+            }
+            for (int i = results.size(); i < operations.size(); i++) {
+                BatchResultDTO skipped = new BatchResultDTO(i, operations.get(i));
+                skipped.setStatus("skipped");
+                results.add(skipped);
+            }
+        }
+        response.setSuccess(!failed);
+    }
+
+    private void runContinueOnError(List<BatchOperationDTO> operations, BatchResponseDTO response) {
+        boolean success = true;
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperationDTO operation = operations.get(i);
+            BatchResultDTO result = new BatchResultDTO(i, operation);
+            try {
+                result.setData(conflictRetry.execute(status -> apply(operation)));
+                result.setStatus("ok");
+            } catch (RuntimeException e) {
+                result.setStatus("error");
+                result.setError(message(e));
+                success = false;
+            }
+            response.getResults().add(result);
+        }
+        response.setSuccess(success);
+    }
+
+    private Object apply(BatchOperationDTO operation) {
+        switch (type(operation)) {
+            case "media":
+                return apply(operation, MediaCatalogDTO.class, mediaService::saveMedia,
+                        mediaService::updateMedia, mediaService::patchMedia, mediaService::deleteMedia);
+            case "content":
+                return apply(operation, ContentCatalogDTO.class, contentService::saveContent,
+                        contentService::updateContent, contentService::patchContent, contentService::deleteContent);
+            case "upload":
+                return apply(operation, UploadCatalogDTO.class, uploadService::saveUpload,
+                        uploadService::updateUpload, uploadService::patchUpload, uploadService::deleteUpload);
+            default:
+                return apply(operation, StatsCatalogDTO.class, statsService::saveStats,
+                        statsService::updateStats, statsService::patchStats, statsService::deleteStats);
+        }
+    }
+
+    private <D> Object apply(BatchOperationDTO operation, Class<D> bodyType, Function<D, ?> create,
+                             BiFunction<Long, D, ?> update, BiFunction<Long, JsonNode, ?> patch,
+                             Consumer<Long> delete) {
+        switch (operation.getOp().toLowerCase(Locale.ROOT)) {
+            case "create":
+                return create.apply(body(operation, bodyType));
+            case "update":
+                return update.apply(operation.getId(), body(operation, bodyType));
+            case "patch":
+                return patch.apply(operation.getId(), operation.getBody());
+            default:
+                delete.accept(operation.getId());
+                return null;
+        }
+    }
+
+    private <D> D body(BatchOperationDTO operation, Class<D> bodyType) {
+        try {
+            return objectMapper.treeToValue(operation.getBody(), bodyType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid body: " + e.getOriginalMessage());
+        }
+    }
+
+    private static void validate(int index, BatchOperationDTO operation) {
+        String prefix = "Operation " + index + ": ";
+        if (operation == null) {
+            throw new IllegalArgumentException(prefix + "missing");
+        }
+        String op = operation.getOp() != null ? operation.getOp().toLowerCase(Locale.ROOT) : "";
+        if (!op.equals("create") && !op.equals("update") && !op.equals("patch") && !op.equals("delete")) {
+            throw new IllegalArgumentException(prefix + "op must be 'create', 'update', 'patch' or 'delete'");
+        }
+        if (type(operation) == null) {
+            throw new IllegalArgumentException(prefix + "type must be 'media', 'content', 'upload' or 'stats'");
+        }
+        if (!op.equals("create") && operation.getId() == null) {
+            throw new IllegalArgumentException(prefix + "id is required for " + op);
+        }
+        if (!op.equals("delete") && (operation.getBody() == null || !operation.getBody().isObject())) {
+            throw new IllegalArgumentException(prefix + "body object is required for " + op);
+        }
+    }
+
+    private static String type(BatchOperationDTO operation) {
+        String type = operation.getType() != null ? operation.getType().toLowerCase(Locale.ROOT) : "";
+        switch (type) {
+            case "media":
+            case "content":
+            case "upload":
+                return type;
+            case "stats":
+            case "states":
+                return "stats";
+            default:
+                return null;
+        }
+    }
+
+    private static String message(Throwable e) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+}
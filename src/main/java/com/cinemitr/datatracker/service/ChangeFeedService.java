@@ -0,0 +1,86 @@
+package com.cinemitr.datatracker.service;
+
+import com.cinemitr.datatracker.dto.ChangesDTO;
+import com.cinemitr.datatracker.entity.DeletionLog;
+import com.cinemitr.datatracker.entity.TrackedEntity;
+import com.cinemitr.datatracker.repository.DeletionLogRepository;
+import com.cinemitr.datatracker.util.ChangeToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Incremental sync ("changes since a token") shared by the catalog services.
+ *
+ * Rows are paged in (change_seq, id) order from the cursor in the token, deletions come from the
+ * deletion log, which the services append to on every delete, in the same order. Without a token the
+ * client gets the whole table page by page and no deletions. change_seq is assigned in commit order
+ * (see {@link ChangeSequencer}), so a page never holds a row whose predecessors are still committing.
+ */
+@Service
+public class ChangeFeedService {
+
+    public static final String MEDIA = "media";
+    public static final String CONTENT = "content";
+    public static final String UPLOAD = "upload";
+    public static final String STATS = "stats";
+
+    @Autowired
+    private DeletionLogRepository deletionLogRepository;
+
+    public interface ChangeQuery<E> {
+        List<E> find(Long seq, Long afterId, Pageable page);
+    }
+
+    public <E extends TrackedEntity, D> ChangesDTO<D> changesSince(String entityType, String since, int limit,
+                                                                  ChangeQuery<E> query, Function<E, D> converter) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        ChangeToken token = since != null && !since.isEmpty()
+                ? ChangeToken.decode(since)
+                : firstSync();
+        // One extra row tells whether another page is waiting
+        Pageable page = PageRequest.of(0, limit + 1);
+
+        List<E> rows = query.find(token.getChangeSeq(), token.getLastId(), page);
+        List<DeletionLog> deletions = deletionLogRepository.findDeletedSince(
+                entityType, token.getDeletionSeq(), token.getLastDeletionId(), page);
+
+        ChangesDTO<D> changes = new ChangesDTO<>();
+        changes.setHasMore(rows.size() > limit || deletions.size() > limit);
+        rows = rows.subList(0, Math.min(limit, rows.size()));
+        deletions = deletions.subList(0, Math.min(limit, deletions.size()));
+
+        changes.setItems(rows.stream().map(converter).collect(Collectors.toList()));
+        changes.setDeleted(deletions.stream().map(DeletionLog::getEntityId).collect(Collectors.toList()));
+
+        ChangeToken next = token;
+        if (!rows.isEmpty()) {
+            E last = rows.get(rows.size() - 1);
+            next = new ChangeToken(last.getChangeSeq(), last.getId(), next.getDeletionSeq(), next.getLastDeletionId());
+        }
+        if (!deletions.isEmpty()) {
+            DeletionLog last = deletions.get(deletions.size() - 1);
+            next = new ChangeToken(next.getChangeSeq(), next.getLastId(), last.getChangeSeq(), last.getId());
+        }
+        changes.setNextToken(next.encode());
+        return changes;
+    }
+
+    // First sync: deletions of rows the client never had are not interesting, deletions committed from
+    // now on get higher values than the last one
+    private ChangeToken firstSync() {
+        DeletionLog last = deletionLogRepository.findFirstByOrderByChangeSeqDescIdDesc();
+        return last != null ? new ChangeToken(0, 0, last.getChangeSeq(), last.getId()) : new ChangeToken(0, 0, 0, 0);
+    }
+
+    public void recordDeletion(String entityType, Long id) {
+        deletionLogRepository.save(new DeletionLog(entityType, id));
+    }
+}
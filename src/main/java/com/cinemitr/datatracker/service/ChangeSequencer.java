@@ -0,0 +1,187 @@
+package com.cinemitr.datatracker.service;
+
+import com.cinemitr.datatracker.entity.DeletionLog;
+import com.cinemitr.datatracker.entity.TrackedEntity;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Commit-ordered sequence behind the change feed cursor.
+ *
+ * A transaction that wrote feed rows (media, content, uploads, statistics, deletion log entries)
+ * takes the next value of the single change_clock row after its last flush, right before the commit,
+ * and stamps it into change_seq of those rows. The clock row stays locked until the commit, so values
+ * become visible in the order they were taken: a reader that sees one value also sees every smaller
+ * one, and a (change_seq, id) cursor never moves past a row that commits later.
+ *
+ * Entity inserts and updates are picked up from Hibernate's events. Rows written with native SQL are
+ * reported by the code that writes them through {@link #touched(Class, Collection)}.
+ */
+@Component
+public class ChangeSequencer implements PostInsertEventListener, PostUpdateEventListener {
+
+    // Ids per UPDATE statement when stamping
+    private static final int CHUNK = 500;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+    }
+
+    public void touched(Class<?> entityClass, Long id) {
+        touched(entityClass, Collections.singletonList(id));
+    }
+
+    /**
+     * Stamps the rows when the current transaction commits. Without a transaction the rows were
+     * committed already and get their value in a transaction of their own.
+     */
+    public void touched(Class<?> entityClass, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> touched(entityClass, ids));
+            return;
+        }
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        stamp(session).add(table(session.getFactory().getMetamodel().entityPersister(entityClass)), ids);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        written(event.getSession(), event.getPersister(), event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        written(event.getSession(), event.getPersister(), event.getEntity(), event.getId());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    // Still abstract in Hibernate 5.6, which only calls it from the default requiresPostCommitHandling
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    private void written(SessionImplementor session, EntityPersister persister, Object entity, Serializable id) {
+        if (entity instanceof TrackedEntity || entity instanceof DeletionLog) {
+            stamp(session).add(table(persister), Collections.singletonList((Long) id));
+        }
+    }
+
+    // One stamp per transaction, registered with the session on its first feed write
+    private static Stamp stamp(SessionImplementor session) {
+        Stamp stamp = (Stamp) TransactionSynchronizationManager.getResource(session);
+        if (stamp == null) {
+            stamp = new Stamp();
+            TransactionSynchronizationManager.bindResource(session, stamp);
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) stamp);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) stamp);
+        }
+        return stamp;
+    }
+
+    private static String table(EntityPersister persister) {
+        return ((AbstractEntityPersister) persister).getTableName();
+    }
+
+    /**
+     * Runs after Hibernate's flush at commit, so it also sees rows that only that flush wrote.
+     * Tables are stamped in name order; their rows are locked by this transaction already.
+     */
+    private static final class Stamp implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+        private final Map<String, Set<Long>> ids = new TreeMap<>();
+
+        void add(String table, Collection<Long> rows) {
+            ids.computeIfAbsent(table, t -> new TreeSet<>()).addAll(rows);
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            session.doWork(connection -> {
+                long seq;
+                try (Statement statement = connection.createStatement()) {
+                    // Later writers wait here until this transaction commits
+                    statement.executeUpdate("UPDATE change_clock SET seq = seq + 1 WHERE id = 1");
+                    try (ResultSet result = statement.executeQuery("SELECT seq FROM change_clock WHERE id = 1")) {
+                        result.next();
+                        seq = result.getLong(1);
+                    }
+                }
+                for (Map.Entry<String, Set<Long>> table : ids.entrySet()) {
+                    List<Long> rows = new ArrayList<>(table.getValue());
+                    for (int from = 0; from < rows.size(); from += CHUNK) {
+                        List<Long> chunk = rows.subList(from, Math.min(from + CHUNK, rows.size()));
+                        String sql = "UPDATE " + table.getKey() + " SET change_seq = ? WHERE id IN ("
+                                + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                        try (PreparedStatement update = connection.prepareStatement(sql)) {
+                            update.setLong(1, seq);
+                            for (int i = 0; i < chunk.size(); i++) {
+                                update.setLong(i + 2, chunk.get(i));
+                            }
+                            update.executeUpdate();
+                        }
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(session);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.cinemitr.datatracker.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.PessimisticLockException;
+import org.hibernate.StaleStateException;
+import org.hibernate.exception.LockAcquisitionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a write in its own transaction and runs it again when it lost a race against a concurrent
+ * writer: a version check that failed (another thread or instance updated the row since it was
+ * read) or a lock that could not be taken.
+ *
+ * Each attempt reads the rows afresh, so a retried update or patch applies to the latest state
+ * instead of overwriting it. Attempts are bounded by max-attempts with a short randomized backoff
+ * in between; when they run out an {@link OptimisticLockingFailureException} is thrown, which the
+ * controllers answer with 409 Conflict. A write that joins a transaction started elsewhere is
+ * not retried here, only the caller that started the transaction can run it again.
+ */
+@Service
+public class ConflictRetry {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${datatracker.write-retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${datatracker.write-retry.backoff-ms:50}")
+    private long backoffMillis;
+
+    private Counter retried;
+    private Counter exhausted;
+
+    @PostConstruct
+    public void registerMetrics() {
+        retried = counter("retried", "Writes run again after a concurrent change");
+        exhausted = counter("exhausted", "Writes that still conflicted after the last attempt");
+    }
+
+    private Counter counter(String result, String description) {
+        return Counter.builder("datatracker.write_conflicts")
+                .tag("result", result)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    public <T> T run(Supplier<T> write) {
+        return execute(status -> write.get());
+    }
+
+    public void run(Runnable write) {
+        execute(status -> {
+            write.run();
+            return null;
+        });
+    }
+
+    public <T> T execute(TransactionCallback<T> write) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transaction.execute(write);
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // A failed attempt rolls back and clears the persistence context, so the next one reloads the rows
+                return transaction.execute(write);
+            } catch (RuntimeException e) {
+                if (!isConflict(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    System.err.println("Write still conflicted after " + attempt + " attempts: " + e.getMessage());
+                    // Without the cause, whose message would name Hibernate internals in the 409 body
+                    throw new OptimisticLockingFailureException(
+                            "The row was changed concurrently " + attempt + " times in a row, retry the request");
+                }
+                retried.increment();
+                backOff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Runs work made of many retried writes with an EntityManager per write instead of the one the
+     * request holds open for its views. That one would keep every row the writes touched managed,
+     * and keep a connection the pool closed after a lock timeout, failing every retry after it.
+     */
+    public <T> T withOwnEntityManagers(Supplier<T> work) {
+        Object requestEntityManager = TransactionSynchronizationManager.unbindResourceIfPossible(entityManagerFactory);
+        try {
+            return work.get();
+        } finally {
+            if (requestEntityManager != null) {
+                TransactionSynchronizationManager.bindResource(entityManagerFactory, requestEntityManager);
+            }
+        }
+    }
+
+    public void withOwnEntityManagers(Runnable work) {
+        withOwnEntityManagers(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Whether the failure came from a concurrent writer rather than from the request itself.
+     */
+    public static boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConcurrencyFailureException || cause instanceof OptimisticLockException
+                    || cause instanceof StaleStateException) {
+                return true;
+            }
+            // Lock waits at commit (the change clock) surface untranslated, wrapped by Hibernate
+            if (cause instanceof LockAcquisitionException || cause instanceof PessimisticLockException) {
+                return true;
+            }
+            // A lock timeout can leave a connection that also fails the rollback, which then hides it
+            if (cause instanceof TransactionSystemException
+                    && isConflict(((TransactionSystemException) cause).getApplicationException())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void backOff(int attempt) {
+        try {
+            // Randomized so that writers that collided do not collide again on the next attempt
+            Thread.sleep(backoffMillis > 0 ? ThreadLocalRandom.current().nextLong(backoffMillis << (attempt - 1)) + 1 : 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OptimisticLockingFailureException("Interrupted while retrying a concurrent update", e);
+        }
+    }
+}
@@ -1,17 +1,29 @@
 package com.cinemitr.datatracker.service;
 
+import com.cinemitr.datatracker.dto.ChangesDTO;
 import com.cinemitr.datatracker.dto.ContentCatalogDTO;
+import com.cinemitr.datatracker.dto.MultiGetDTO;
+import com.cinemitr.datatracker.dto.PipelineAnalyticsDTO;
 import com.cinemitr.datatracker.dto.UploadCatalogDTO;
 import com.cinemitr.datatracker.entity.ContentCatalog;
 import com.cinemitr.datatracker.entity.MediaCatalog;
 import com.cinemitr.datatracker.entity.MetadataStatus;
 import com.cinemitr.datatracker.entity.UploadCatalog;
+import com.cinemitr.datatracker.enums.ContentPriority;
+import com.cinemitr.datatracker.enums.ContentStatus;
+import com.cinemitr.datatracker.enums.LocalStatus;
 import com.cinemitr.datatracker.enums.PathCategory;
+import com.cinemitr.datatracker.enums.UploadStatus;
 import com.cinemitr.datatracker.repository.ContentCatalogRepository;
-import com.cinemitr.datatracker.repository.MediaCatalogRepository;
 import com.cinemitr.datatracker.repository.MetadataStatusRepository;
+import com.cinemitr.datatracker.util.LinkNormalizer;
+import com.cinemitr.datatracker.util.MergePatch;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -19,22 +31,76 @@ import java.util.stream.Collectors;
 @Service
 public class ContentCatalogService {
     
+    // Fields for ?fields= on the list endpoint, formatted like convertToDTO
+    private static final ProjectionService.Projection PROJECTION = new ProjectionService.Projection("ContentCatalog", "c")
+            .column("link", "c.link")
+            .column("status", "c.status", null, Object::toString)
+            .column("priority", "c.priority", null, Object::toString)
+            .column("local_status", "c.localStatus", null, Object::toString)
+            .column("local_file_path", "p.path", "LEFT JOIN c.localFilePath p", value -> value != null ? value : "")
+            .mediaList("mediaList");
+
     @Autowired
     private ContentCatalogRepository contentRepository;
     
-    @Autowired
-    private MediaCatalogRepository mediaRepository;
-    
     @Autowired
     private MetadataStatusRepository metadataStatusRepository;
     
     @Autowired
     private UploadCatalogService uploadService;
 
+    @Autowired
+    private MediaCatalogService mediaService;
+
+    @Autowired
+    private ExistenceFilterService existenceFilter;
+
+    @Autowired
+    private ChangeFeedService changeFeed;
+
+    @Autowired
+    private MultiGetService multiGet;
+
+    @Autowired
+    private ProjectionService projections;
+
+    @Autowired
+    private NdjsonExportService ndjsonExport;
+
+    @Autowired
+    private ReadCoalescer readCache;
+
+    @Autowired
+    private StatusHistoryService statusHistory;
+
+    @Autowired
+    private UploadViewService uploadView;
+
     public List<ContentCatalogDTO> getAllContent() {
-        return contentRepository.findAll().stream()
+        return readCache.get(ChangeFeedService.CONTENT, "list", () -> contentRepository.findAll().stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList()));
+    }
+
+    public List<Map<String, Object>> getAllContent(String fields) {
+        return readCache.get(ChangeFeedService.CONTENT, "fields:" + ProjectionService.fieldsKey(fields),
+                () -> projections.list(PROJECTION, fields));
+    }
+
+    // Status is matched ignoring case, on idx_content_status
+    public List<ContentCatalogDTO> getContentByStatus(String status) {
+        ContentStatus wanted = ContentStatus.fromValue(status);
+        return readCache.get(ChangeFeedService.CONTENT, "status:" + wanted.getValue(), () -> contentRepository.findByStatus(wanted).stream()
                 .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
+    }
+
+    public long countContent() {
+        return readCache.get(ChangeFeedService.CONTENT, "count", contentRepository::count);
+    }
+
+    public StreamingResponseBody streamAllContent() {
+        return ndjsonExport.stream(contentRepository::streamAll, this::convertToDTO);
     }
 
     public Optional<ContentCatalogDTO> getContentById(Long id) {
@@ -42,12 +108,22 @@ public class ContentCatalogService {
                 .map(this::convertToDTO);
     }
 
+    @Transactional(readOnly = true)
+    public MultiGetDTO<ContentCatalogDTO> getContentByIds(List<Long> ids) {
+        return multiGet.getByIds(ids, contentRepository::findAllById, this::convertToDTO);
+    }
+
     public ContentCatalogDTO saveContent(ContentCatalogDTO contentDTO) {
+        // Check if content with the same link (after normalization) already exists
+        if (contentDTO.getLink() != null && findContentByLink(contentDTO.getLink()) != null) {
+            throw new IllegalArgumentException("Content with link '" + contentDTO.getLink() + "' already exists");
+        }
+
         ContentCatalog content = new ContentCatalog();
         content.setLink(contentDTO.getLink());
-        content.setStatus(contentDTO.getStatus());
-        content.setPriority(contentDTO.getPriority());
-        content.setLocalStatus(contentDTO.getLocalStatus());
+        content.setStatus(ContentStatus.fromValue(contentDTO.getStatus()));
+        content.setPriority(ContentPriority.fromValue(contentDTO.getPriority()));
+        content.setLocalStatus(LocalStatus.fromValue(contentDTO.getLocalStatus()));
         
         // Handle multiple media names
         Set<MediaCatalog> mediaSet = new HashSet<>();
@@ -65,73 +141,119 @@ public class ContentCatalogService {
             
             // Process each unique media name
             for (String uniqueMediaName : uniqueMediaNames) {
-                MediaCatalog media = findOrCreateMediaByName(uniqueMediaName, contentDTO.getMediaType());
+                MediaCatalog media = mediaService.findOrCreateMedia(uniqueMediaName, contentDTO.getMediaType());
                 mediaSet.add(media);
             }
         }
         
         content.setMediaList(mediaSet);
-        ContentCatalog savedContent = contentRepository.save(content);
+        ContentCatalog savedContent;
+        try {
+            savedContent = contentRepository.save(content);
+        } catch (DataIntegrityViolationException e) {
+            // The unique link hash caught a concurrent create the lookup above could not see yet
+            throw new IllegalArgumentException("Content with link '" + contentDTO.getLink() + "' already exists");
+        }
+        existenceFilter.addLink(savedContent.getLink());
+        statusHistory.record(ChangeFeedService.CONTENT, savedContent.getId(), null, savedContent.getStatus().getValue());
         
         // Create corresponding upload entry with same details
         createUploadFromContent(savedContent, contentDTO);
+        invalidateReads();
         
         return convertToDTO(savedContent);
     }
     
-    private MediaCatalog findOrCreateMediaByName(String mediaName, String mediaType) {
-        String actualMediaType = mediaType != null && !mediaType.trim().isEmpty() ? mediaType : "Movie";
-        
-        // Search by both name AND type to respect unique constraint
-        MediaCatalog existingMedia = mediaRepository.findByMediaNameAndMediaType(mediaName, actualMediaType);
-        
-        if (existingMedia != null) {
-            return existingMedia;
-        }
-        
-        // Use synchronized block to prevent race conditions when creating new media
-        synchronized (this) {
-            // Double-check after acquiring lock
-            existingMedia = mediaRepository.findByMediaNameAndMediaType(mediaName, actualMediaType);
-            if (existingMedia != null) {
-                return existingMedia;
-            }
-            
-            // Create new media with proper error handling
-            try {
-                MediaCatalog newMedia = new MediaCatalog();
-                newMedia.setMediaName(mediaName);
-                newMedia.setMediaType(actualMediaType);
-                newMedia.setLanguage("English");
-                newMedia.setMainGenres("Action");
-                newMedia.setSubGenres("");
-                newMedia.setIsDownloaded(false);
-                newMedia.setAvailableOn("Unknown");
-                
-                return mediaRepository.save(newMedia);
-            } catch (Exception e) {
-                // If save fails due to constraint violation, try to find the media again
-                // This handles the case where another thread created it between our checks
-                existingMedia = mediaRepository.findByMediaNameAndMediaType(mediaName, actualMediaType);
-                if (existingMedia != null) {
-                    return existingMedia;
-                }
-                throw new RuntimeException("Failed to create or find media: " + mediaName + " of type: " + actualMediaType, e);
-            }
-        }
-    }
-
     public ContentCatalogDTO updateContent(Long id, ContentCatalogDTO contentDTO) {
         ContentCatalog content = contentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Content not found with id: " + id));
         
+        String previousLink = content.getLink();
+        ContentStatus previousStatus = content.getStatus();
         updateEntityFromDTO(content, contentDTO);
+        // Replacing only the media list does not dirty the row itself, but the change feed must still see it
+        content.setUpdatedAt(new Date());
         ContentCatalog updatedContent = contentRepository.save(content);
+        existenceFilter.addLink(updatedContent.getLink());
+        statusHistory.record(ChangeFeedService.CONTENT, id, previousStatus.getValue(), updatedContent.getStatus().getValue());
+        if (!updatedContent.getLink().equals(previousLink)) {
+            // Uploads show the link of their source content
+            uploadView.refreshUploadsOfContent(id);
+        }
+        invalidateReads();
         return convertToDTO(updatedContent);
     }
 
+    /**
+     * Applies a JSON merge patch: only the fields present are changed, the link is only re-checked
+     * when it changes, and the media list is diffed instead of rebuilt.
+     */
+    @Transactional
+    public ContentCatalogDTO patchContent(Long id, JsonNode body) {
+        MergePatch patch = new MergePatch(body, "link", "status", "priority", "local_status", "media_name", "media_type");
+        ContentCatalog content = contentRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Content not found with id: " + id));
+
+        if (patch.has("link")) {
+            String link = patch.requiredText("link");
+            if (!link.equals(content.getLink())) {
+                if (!LinkNormalizer.sameLink(link, content.getLink()) && findContentByLink(link) != null) {
+                    throw new IllegalArgumentException("Content with link '" + link + "' already exists");
+                }
+                content.setLink(link);
+                existenceFilter.addLink(link);
+                uploadView.refreshUploadsOfContent(id);
+            }
+        }
+        if (patch.has("status")) {
+            ContentStatus status = ContentStatus.fromValue(patch.requiredText("status"));
+            statusHistory.record(ChangeFeedService.CONTENT, id, content.getStatus().getValue(), status.getValue());
+            content.setStatus(status);
+        }
+        if (patch.has("priority")) {
+            content.setPriority(ContentPriority.fromValue(patch.requiredText("priority")));
+        }
+        if (patch.has("local_status")) {
+            content.setLocalStatus(LocalStatus.fromValue(patch.requiredText("local_status")));
+        }
+        if (mediaService.patchMediaList(content.getMediaList(), patch)) {
+            // A media-only change does not dirty the row itself, but the change feed must still see it
+            content.setUpdatedAt(new Date());
+        }
+        invalidateReads();
+        return convertToDTO(content);
+    }
+
+    // Finds content with the same link after normalization; skips the query when the Bloom filter rules the link out
+    private ContentCatalog findContentByLink(String link) {
+        if (!existenceFilter.mightContainLink(link)) {
+            return null;
+        }
+        ContentCatalog content = contentRepository.findByNormalizedLink(link);
+        if (content == null) {
+            existenceFilter.linkFalsePositive();
+        }
+        return content;
+    }
+
+    @Transactional
     public void deleteContent(Long id) {
         contentRepository.deleteById(id);
+        changeFeed.recordDeletion(ChangeFeedService.CONTENT, id);
+        invalidateReads();
+    }
+
+    public PipelineAnalyticsDTO getContentAnalytics(String from, String to) {
+        return statusHistory.analytics(ChangeFeedService.CONTENT, from, to, contentRepository.countByStatus(), false);
+    }
+
+    public ChangesDTO<ContentCatalogDTO> getContentChanges(String since, int limit) {
+        return changeFeed.changesSince(ChangeFeedService.CONTENT, since, limit, contentRepository::findChangedSince, this::convertToDTO);
+    }
+
+    // Content writes may create media and uploads, and the stats list shows content links
+    private void invalidateReads() {
+        readCache.invalidate(ChangeFeedService.MEDIA, ChangeFeedService.CONTENT, ChangeFeedService.UPLOAD, ChangeFeedService.STATS);
     }
 
     public ContentCatalogDTO convertToDTO(ContentCatalog content) {
@@ -160,9 +282,9 @@ public class ContentCatalogService {
             dto.setMediaNamesList(new ArrayList<>());
         }
         
-        dto.setStatus(content.getStatus());
-        dto.setPriority(content.getPriority());
-        dto.setLocalStatus(content.getLocalStatus());
+        dto.setStatus(content.getStatus().getValue());
+        dto.setPriority(content.getPriority().getValue());
+        dto.setLocalStatus(content.getLocalStatus().getValue());
         dto.setLocalFilePath(content.getLocalFilePath() != null ? content.getLocalFilePath().getPath() : "");
         return dto;
     }
@@ -174,10 +296,18 @@ public class ContentCatalogService {
     }
 
     private void updateEntityFromDTO(ContentCatalog content, ContentCatalogDTO dto) {
+        // Check if another content row already has the same link (after normalization)
+        if (dto.getLink() != null) {
+            ContentCatalog existingContent = findContentByLink(dto.getLink());
+            if (existingContent != null && !existingContent.getId().equals(content.getId())) {
+                throw new IllegalArgumentException("Content with link '" + dto.getLink() + "' already exists");
+            }
+        }
+
         content.setLink(dto.getLink());
-        content.setStatus(dto.getStatus());
-        content.setPriority(dto.getPriority());
-        content.setLocalStatus(dto.getLocalStatus());
+        content.setStatus(ContentStatus.fromValue(dto.getStatus()));
+        content.setPriority(ContentPriority.fromValue(dto.getPriority()));
+        content.setLocalStatus(LocalStatus.fromValue(dto.getLocalStatus()));
         
         // Handle multiple media names
         Set<MediaCatalog> mediaSet = new HashSet<>();
@@ -195,7 +325,7 @@ public class ContentCatalogService {
             
             // Process each unique media name
             for (String uniqueMediaName : uniqueMediaNames) {
-                MediaCatalog media = findOrCreateMediaByName(uniqueMediaName, dto.getMediaType());
+                MediaCatalog media = mediaService.findOrCreateMedia(uniqueMediaName, dto.getMediaType());
                 mediaSet.add(media);
             }
         }
@@ -208,7 +338,7 @@ public class ContentCatalogService {
             // Create upload entity directly since we need to set the ContentCatalog entity reference
             UploadCatalog upload = new UploadCatalog();
             upload.setSourceLink(savedContent); // Set the actual ContentCatalog entity
-            upload.setStatus("new-content"); // Use 'New Content' status for newly added content
+            upload.setStatus(UploadStatus.NEW_CONTENT); // Use 'New Content' status for newly added content
             upload.setMediaFormat(null); // Allow empty media format for auto-generated uploads
             upload.setMetadata("Auto-generated upload entry from content: " + savedContent.getLink());
             
@@ -235,7 +365,7 @@ public class ContentCatalogService {
                 }
                 
                 for (String uniqueMediaName : uniqueMediaNames) {
-                    MediaCatalog media = findOrCreateMediaByName(uniqueMediaName, contentDTO.getMediaType());
+                    MediaCatalog media = mediaService.findOrCreateMedia(uniqueMediaName, contentDTO.getMediaType());
                     mediaSet.add(media);
                 }
                 upload.setMediaList(mediaSet);
@@ -0,0 +1,179 @@
+package com.cinemitr.datatracker.service;
+
+import com.cinemitr.datatracker.repository.ContentCatalogRepository;
+import com.cinemitr.datatracker.repository.MediaCatalogRepository;
+import com.cinemitr.datatracker.util.BloomFilter;
+import com.cinemitr.datatracker.util.LinkNormalizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filters over the content link and (media name, media type) key spaces.
+ *
+ * A negative answer means the key is definitely not in the database, so callers can skip the
+ * lookup query and go straight to creating the row. The filters are built by streaming the keys
+ * once the application is ready, updated on every insert, and periodically rebuilt so keys of
+ * deleted rows stop producing false positives. Until the first build completes every key is
+ * reported as possibly present.
+ */
+@Service
+public class ExistenceFilterService {
+
+    private static final String LINKS = "content-link";
+    private static final String MEDIA = "media-name-type";
+
+    @Autowired
+    private ContentCatalogRepository contentRepository;
+
+    @Autowired
+    private MediaCatalogRepository mediaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${datatracker.bloom.expected-insertions:100000}")
+    private long expectedInsertions;
+
+    @Value("${datatracker.bloom.false-positive-probability:0.01}")
+    private double falsePositiveProbability;
+
+    private final KeySpace links = new KeySpace();
+    private final KeySpace media = new KeySpace();
+
+    @PostConstruct
+    public void registerMetrics() {
+        links.register(LINKS);
+        media.register(MEDIA);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${datatracker.bloom.rebuild-interval-ms:3600000}",
+               fixedDelayString = "${datatracker.bloom.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            long linkCount = contentRepository.count();
+            links.rebuild(linkCount, filter -> {
+                try (Stream<Long> hashes = contentRepository.streamAllLinkHashes()) {
+                    hashes.forEach(filter::add);
+                }
+            });
+            long mediaCount = mediaRepository.count();
+            media.rebuild(mediaCount, filter -> {
+                try (Stream<Object[]> keys = mediaRepository.streamAllKeys()) {
+                    keys.forEach(key -> filter.add(BloomFilter.keyOf((String) key[1], (String) key[2])));
+                }
+            });
+        });
+    }
+
+    public boolean mightContainLink(String link) {
+        return links.mightContain(LinkNormalizer.hash(link));
+    }
+
+    public void addLink(String link) {
+        links.add(LinkNormalizer.hash(link));
+    }
+
+    public boolean mightContainMedia(String mediaName, String mediaType) {
+        return media.mightContain(BloomFilter.keyOf(mediaName, mediaType));
+    }
+
+    public void addMedia(String mediaName, String mediaType) {
+        media.add(BloomFilter.keyOf(mediaName, mediaType));
+    }
+
+    /**
+     * Records that the filter answered "maybe" for a link the database did not have.
+     */
+    public void linkFalsePositive() {
+        links.falsePositives.increment();
+    }
+
+    public void mediaFalsePositive() {
+        media.falsePositives.increment();
+    }
+
+    private interface Loader {
+        void load(BloomFilter filter);
+    }
+
+    private class KeySpace {
+        private volatile BloomFilter current;
+        private BloomFilter building;
+        // Guards building and the swap to the rebuilt filter, not the load itself
+        private final Object swap = new Object();
+        private Counter falsePositives;
+
+        void register(String name) {
+            Gauge.builder("datatracker.bloom.false_positive_rate", this,
+                            keySpace -> keySpace.current != null ? keySpace.current.currentFalsePositiveRate() : 1.0)
+                    .tag("keyspace", name)
+                    .description("Estimated false-positive probability at the current fill level")
+                    .register(meterRegistry);
+            Gauge.builder("datatracker.bloom.memory", this,
+                            keySpace -> keySpace.current != null ? keySpace.current.memoryBytes() : 0)
+                    .tag("keyspace", name)
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+            falsePositives = Counter.builder("datatracker.bloom.false_positives")
+                    .tag("keyspace", name)
+                    .description("Lookups the filter let through that found no row")
+                    .register(meterRegistry);
+        }
+
+        synchronized void rebuild(long keyCount, Loader loader) {
+            // Leave head room so the filter keeps its false-positive rate as keys are added until the next rebuild
+            BloomFilter filter = new BloomFilter(Math.max(expectedInsertions, keyCount * 2), falsePositiveProbability);
+            synchronized (swap) {
+                building = filter;
+            }
+            boolean loaded = false;
+            try {
+                loader.load(filter);
+                loaded = true;
+            } finally {
+                synchronized (swap) {
+                    if (loaded) {
+                        current = filter;
+                    }
+                    building = null;
+                }
+            }
+        }
+
+        boolean mightContain(long key) {
+            BloomFilter filter = current;
+            return filter == null || filter.mightContain(key);
+        }
+
+        void add(long key) {
+            // Under the swap lock, so a rebuild cannot publish its filter between the two adds and drop the key
+            synchronized (swap) {
+                if (current != null) {
+                    current.add(key);
+                }
+                // Keys inserted while a rebuild is streaming must also land in the replacement filter
+                if (building != null) {
+                    building.add(key);
+                }
+            }
+        }
+    }
+}
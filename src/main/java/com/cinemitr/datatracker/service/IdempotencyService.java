@@ -0,0 +1,129 @@
+package com.cinemitr.datatracker.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Honors the Idempotency-Key header of the create endpoints.
+ *
+ * The first request with a key runs the operation and its response is stored; repeats with the same
+ * key and body get the stored response back (marked with an Idempotent-Replayed header) instead of
+ * creating the entity again. A repeat arriving while the first request is still running waits for
+ * it. Reusing a key with a different body is rejected with 422. Failed operations (exceptions and
+ * 5xx responses) are not stored, so a retry runs them again.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_MILLIS = 25;
+
+    @Autowired
+    private IdempotencyStore store;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${datatracker.idempotency.in-flight-timeout-seconds:60}")
+    private long inFlightTimeoutSeconds;
+
+    /**
+     * Runs {@code action} once per (scope, key); without a key it simply runs it.
+     */
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.trim().isEmpty()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return error(HttpStatus.BAD_REQUEST, HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String storeKey = scope + ":" + key;
+        String fingerprint = fingerprint(request);
+
+        long deadline = System.currentTimeMillis() + inFlightTimeoutSeconds * 1000;
+        IdempotencyStore.Record existing;
+        while ((existing = store.claim(storeKey, fingerprint)) != null) {
+            if (!existing.getFingerprint().equals(fingerprint)) {
+                return error(HttpStatus.UNPROCESSABLE_ENTITY, HEADER + " '" + key + "' was already used with a different request body");
+            }
+            if (existing.getStatus() != null) {
+                return replay(existing);
+            }
+            if (System.currentTimeMillis() > deadline || !pause()) {
+                return error(HttpStatus.CONFLICT, "A request with " + HEADER + " '" + key + "' is still being processed");
+            }
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException | Error e) {
+            store.release(storeKey);
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError()) {
+            store.release(storeKey);
+            return response;
+        }
+        try {
+            String body = response.getBody() != null ? objectMapper.writeValueAsString(response.getBody()) : null;
+            store.complete(storeKey, response.getStatusCodeValue(), body);
+        } catch (JsonProcessingException e) {
+            System.err.println("Could not store response for " + HEADER + " '" + key + "': " + e.getMessage());
+            store.release(storeKey);
+        }
+        return response;
+    }
+
+    private static ResponseEntity<?> replay(IdempotencyStore.Record record) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(record.getStatus()).header(REPLAYED_HEADER, "true");
+        if (record.getBody() == null) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(record.getBody());
+    }
+
+    private static ResponseEntity<?> error(HttpStatus status, String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        return ResponseEntity.status(status).body(error);
+    }
+
+    private static boolean pause() {
+        try {
+            Thread.sleep(POLL_MILLIS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint request", e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.cinemitr.datatracker.service;
+
+/**
+ * Storage behind {@link IdempotencyService}: one record per idempotency key, first claimed by the
+ * request that runs the operation, then completed with the response to replay.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Claims the key for a new request. Returns null when the caller now owns the key, otherwise the
+     * record of the request that owns it (in flight when {@link Record#getStatus()} is null).
+     */
+    Record claim(String key, String fingerprint);
+
+    void complete(String key, int status, String body);
+
+    /**
+     * Forgets the key after the operation failed, so a retry runs it again.
+     */
+    void release(String key);
+
+    final class Record {
+        private final String fingerprint;
+        private final Integer status;
+        private final String body;
+
+        public Record(String fingerprint, Integer status, String body) {
+            this.fingerprint = fingerprint;
+            this.status = status;
+            this.body = body;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public Integer getStatus() {
+            return status;
+        }
+
+        public String getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.cinemitr.datatracker.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Default idempotency store: keys live in this JVM only. Bounded both by age (TTL) and by count;
+ * entries are kept in insertion order, so expired entries are always at the head and the oldest
+ * entry is the one evicted when the store is full.
+ */
+@Service
+@ConditionalOnProperty(name = "datatracker.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    @Value("${datatracker.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${datatracker.idempotency.in-flight-timeout-seconds:60}")
+    private long inFlightTimeoutSeconds;
+
+    @Value("${datatracker.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    @Override
+    public synchronized Record claim(String key, String fingerprint) {
+        long now = System.currentTimeMillis();
+        evictExpired(now);
+        Entry existing = entries.get(key);
+        if (existing != null && !existing.abandoned(now)) {
+            return existing.record;
+        }
+        entries.remove(key);
+        entries.put(key, new Entry(new Record(fingerprint, null, null), now));
+        if (entries.size() > maxEntries) {
+            Iterator<String> oldest = entries.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized void complete(String key, int status, String body) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.record = new Record(entry.record.getFingerprint(), status, body);
+        }
+    }
+
+    @Override
+    public synchronized void release(String key) {
+        entries.remove(key);
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().getValue().createdAt < ttlSeconds * 1000) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    private final class Entry {
+        private Record record;
+        private final long createdAt;
+
+        private Entry(Record record, long createdAt) {
+            this.record = record;
+            this.createdAt = createdAt;
+        }
+
+        // In flight for longer than any request takes: its owner died without completing or releasing
+        private boolean abandoned(long now) {
+            return record.getStatus() == null && now - createdAt > inFlightTimeoutSeconds * 1000;
+        }
+    }
+}
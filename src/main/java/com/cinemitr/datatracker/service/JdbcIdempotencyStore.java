@@ -0,0 +1,75 @@
+package com.cinemitr.datatracker.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Idempotency store in the idempotency_key table (datatracker.idempotency.store=database): keys
+ * survive restarts and are shared by every instance using the database. The primary key on the
+ * key column makes claiming atomic; expired rows are purged on a schedule.
+ */
+@Service
+@ConditionalOnProperty(name = "datatracker.idempotency.store", havingValue = "database")
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${datatracker.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${datatracker.idempotency.in-flight-timeout-seconds:60}")
+    private long inFlightTimeoutSeconds;
+
+    @Override
+    public Record claim(String key, String fingerprint) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            try {
+                jdbcTemplate.update("INSERT INTO idempotency_key (idempotency_key, fingerprint, created_at) VALUES (?, ?, ?)",
+                        key, fingerprint, new Timestamp(System.currentTimeMillis()));
+                return null;
+            } catch (DuplicateKeyException e) {
+                List<Record> existing = jdbcTemplate.query(
+                        "SELECT fingerprint, status, body FROM idempotency_key WHERE idempotency_key = ? "
+                                + "AND created_at >= ? AND (status IS NOT NULL OR created_at >= ?)",
+                        (rs, rowNum) -> new Record(rs.getString("fingerprint"), (Integer) rs.getObject("status"), rs.getString("body")),
+                        key, cutoff(ttlSeconds), cutoff(inFlightTimeoutSeconds));
+                if (!existing.isEmpty()) {
+                    return existing.get(0);
+                }
+                // Expired, or abandoned in flight: drop it and claim again
+                jdbcTemplate.update("DELETE FROM idempotency_key WHERE idempotency_key = ? "
+                                + "AND (created_at < ? OR (status IS NULL AND created_at < ?))",
+                        key, cutoff(ttlSeconds), cutoff(inFlightTimeoutSeconds));
+            }
+        }
+        throw new IllegalStateException("Could not claim idempotency key " + key);
+    }
+
+    @Override
+    public void complete(String key, int status, String body) {
+        jdbcTemplate.update("UPDATE idempotency_key SET status = ?, body = ? WHERE idempotency_key = ?", status, body, key);
+    }
+
+    @Override
+    public void release(String key) {
+        jdbcTemplate.update("DELETE FROM idempotency_key WHERE idempotency_key = ?", key);
+    }
+
+    @Scheduled(fixedDelayString = "${datatracker.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        jdbcTemplate.update("DELETE FROM idempotency_key WHERE created_at < ?", cutoff(ttlSeconds));
+    }
+
+    private static Timestamp cutoff(long seconds) {
+        return new Timestamp(System.currentTimeMillis() - seconds * 1000);
+    }
+}
@@ -1,31 +1,114 @@
 package com.cinemitr.datatracker.service;
 
+import com.cinemitr.datatracker.dto.ChangesDTO;
 import com.cinemitr.datatracker.dto.MediaCatalogDTO;
+import com.cinemitr.datatracker.dto.MediaDuplicateDTO;
+import com.cinemitr.datatracker.dto.MediaSuggestionDTO;
+import com.cinemitr.datatracker.dto.MultiGetDTO;
+import com.cinemitr.datatracker.entity.ContentCatalog;
 import com.cinemitr.datatracker.entity.MediaCatalog;
 import com.cinemitr.datatracker.entity.MetadataStatus;
+import com.cinemitr.datatracker.entity.UploadCatalog;
 import com.cinemitr.datatracker.enums.PathCategory;
+import com.cinemitr.datatracker.repository.ContentCatalogRepository;
 import com.cinemitr.datatracker.repository.MediaCatalogRepository;
 import com.cinemitr.datatracker.repository.MetadataStatusRepository;
+import com.cinemitr.datatracker.repository.UploadCatalogRepository;
+import com.cinemitr.datatracker.util.MergePatch;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class MediaCatalogService {
     
+    // Fields for ?fields= on the list endpoint, formatted like convertToDTO
+    private static final ProjectionService.Projection PROJECTION = new ProjectionService.Projection("MediaCatalog", "m")
+            .column("media_type", "m.mediaType")
+            .column("media_name", "m.mediaName")
+            .column("language", "m.language")
+            .column("main_genres", "m.mainGenres")
+            .column("sub_genres", "m.subGenres")
+            .column("is_downloaded", "m.isDownloaded", null, value -> Boolean.TRUE.equals(value) ? "Yes" : "No")
+            .column("download_path", "p.path", "LEFT JOIN m.downloadPath p", value -> value != null ? value : "")
+            .column("available_on", "m.availableOn");
+
     @Autowired
     private MediaCatalogRepository mediaRepository;
     
     @Autowired
     private MetadataStatusRepository metadataStatusRepository;
 
+    @Autowired
+    private ExistenceFilterService existenceFilter;
+
+    @Autowired
+    private MediaNameIndex mediaNameIndex;
+
+    @Autowired
+    private MediaSimilarityIndex similarityIndex;
+
+    @Autowired
+    private ContentCatalogRepository contentRepository;
+
+    @Autowired
+    private UploadCatalogRepository uploadRepository;
+
+    @Autowired
+    private ChangeFeedService changeFeed;
+
+    @Autowired
+    private ChangeSequencer changeSequencer;
+
+    @Autowired
+    private MultiGetService multiGet;
+
+    @Autowired
+    private ProjectionService projections;
+
+    @Autowired
+    private NdjsonExportService ndjsonExport;
+
+    @Autowired
+    private ReadCoalescer readCache;
+
+    @Autowired
+    private UploadViewService uploadView;
+
+    @Value("${datatracker.media.similarity-threshold:0.6}")
+    private double similarityThreshold;
+
     public List<MediaCatalogDTO> getAllMedia() {
-        return mediaRepository.findAll().stream()
+        return readCache.get(ChangeFeedService.MEDIA, "list", () -> mediaRepository.findAll().stream()
                 .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
+    }
+
+    public List<Map<String, Object>> getAllMedia(String fields) {
+        return readCache.get(ChangeFeedService.MEDIA, "fields:" + ProjectionService.fieldsKey(fields),
+                () -> projections.list(PROJECTION, fields));
+    }
+
+    public long countMedia() {
+        return readCache.get(ChangeFeedService.MEDIA, "count", mediaRepository::count);
+    }
+
+    public StreamingResponseBody streamAllMedia() {
+        return ndjsonExport.stream(mediaRepository::streamAll, this::convertToDTO);
     }
 
     public Optional<MediaCatalogDTO> getMediaById(Long id) {
@@ -33,10 +116,14 @@ public class MediaCatalogService {
                 .map(this::convertToDTO);
     }
 
+    @Transactional(readOnly = true)
+    public MultiGetDTO<MediaCatalogDTO> getMediaByIds(List<Long> ids) {
+        return multiGet.getByIds(ids, mediaRepository::findAllById, this::convertToDTO);
+    }
+
     public MediaCatalogDTO saveMedia(MediaCatalogDTO mediaDTO) {
         // Check if media with same name and type already exists
-        MediaCatalog existingMedia = mediaRepository.findByMediaNameAndMediaType(
-                mediaDTO.getMediaName(), mediaDTO.getMediaType());
+        MediaCatalog existingMedia = findByNameAndType(mediaDTO.getMediaName(), mediaDTO.getMediaType());
         if (existingMedia != null) {
             throw new IllegalArgumentException(
                     "Media with name '" + mediaDTO.getMediaName() + 
@@ -44,30 +131,312 @@ public class MediaCatalogService {
         }
         
         MediaCatalog media = convertToEntity(mediaDTO);
-        MediaCatalog savedMedia = mediaRepository.save(media);
-        return convertToDTO(savedMedia);
+        MediaCatalog savedMedia;
+        try {
+            savedMedia = mediaRepository.save(media);
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently, possibly by another instance whose Bloom filter this one has not seen
+            throw new IllegalArgumentException(
+                    "Media with name '" + mediaDTO.getMediaName() +
+                    "' and type '" + mediaDTO.getMediaType() + "' already exists");
+        }
+        existenceFilter.addMedia(savedMedia.getMediaName(), savedMedia.getMediaType());
+        MediaCatalogDTO savedDTO = convertToDTO(savedMedia);
+        // Not rejected, the caller decides whether to merge
+        savedDTO.setSimilarMedia(similarityIndex.findSimilar(
+                savedMedia.getMediaName(), savedMedia.getMediaType(), savedMedia.getId(), similarityThreshold, 5));
+        indexAfterCommit(savedMedia);
+        invalidateReads();
+        return savedDTO;
     }
 
+    /**
+     * Finds media by name and type, creating it with default values when it does not exist yet.
+     * Used for the comma-separated media names of content and upload entries.
+     */
+    public MediaCatalog findOrCreateMedia(String mediaName, String mediaType) {
+        String actualMediaType = mediaType != null && !mediaType.trim().isEmpty() ? mediaType : "Movie";
+        
+        // Search by both name AND type to respect unique constraint
+        MediaCatalog existingMedia = findByNameAndType(mediaName, actualMediaType);
+        if (existingMedia != null) {
+            return existingMedia;
+        }
+
+        // Not known here; the unique (name, type) constraint decides who creates it, across threads and instances
+        boolean created = mediaRepository.insertIfAbsent(mediaName, actualMediaType, "English", "Action", "Unknown") > 0;
+        MediaCatalog media = mediaRepository.findByMediaNameAndMediaType(mediaName, actualMediaType);
+        if (media == null) {
+            // The insert was skipped for a row whose transaction has not committed yet; the caller runs again
+            throw new ConcurrencyFailureException("Media '" + mediaName + "' (" + actualMediaType
+                    + ") is being created concurrently");
+        }
+        existenceFilter.addMedia(mediaName, actualMediaType);
+        if (created) {
+            changeSequencer.touched(MediaCatalog.class, media.getId());
+            List<MediaSuggestionDTO> similar = similarityIndex.findSimilar(
+                    mediaName, actualMediaType, media.getId(), similarityThreshold, 3);
+            if (!similar.isEmpty()) {
+                System.err.println("Created media '" + mediaName + "' (" + actualMediaType + ") looks like a duplicate of: "
+                        + similar.stream().map(m -> m.getId() + " '" + m.getMediaName() + "'").collect(Collectors.joining(", ")));
+            }
+            invalidateReads();
+        }
+        // Also when another instance created it: this instance's name indexes have not seen it yet
+        indexAfterCommit(media);
+        return media;
+    }
+
+    // Skips the lookup query when the Bloom filter rules the (name, type) pair out
+    private MediaCatalog findByNameAndType(String mediaName, String mediaType) {
+        if (!existenceFilter.mightContainMedia(mediaName, mediaType)) {
+            return null;
+        }
+        MediaCatalog media = mediaRepository.findByMediaNameAndMediaType(mediaName, mediaType);
+        if (media == null) {
+            existenceFilter.mediaFalsePositive();
+        }
+        return media;
+    }
+
+    @Transactional
     public MediaCatalogDTO updateMedia(Long id, MediaCatalogDTO mediaDTO) {
         MediaCatalog media = mediaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Media not found with id: " + id));
         
         // Check if media with same name and type already exists (excluding current record)
-        MediaCatalog existingMedia = mediaRepository.findByMediaNameAndMediaType(
-                mediaDTO.getMediaName(), mediaDTO.getMediaType());
+        MediaCatalog existingMedia = findByNameAndType(mediaDTO.getMediaName(), mediaDTO.getMediaType());
         if (existingMedia != null && !existingMedia.getId().equals(id)) {
             throw new IllegalArgumentException(
                     "Media with name '" + mediaDTO.getMediaName() + 
                     "' and type '" + mediaDTO.getMediaType() + "' already exists");
         }
         
+        String previousName = media.getMediaName();
+        String previousType = media.getMediaType();
         updateEntityFromDTO(media, mediaDTO);
         MediaCatalog updatedMedia = mediaRepository.save(media);
+        if (!previousName.equals(updatedMedia.getMediaName()) || !previousType.equals(updatedMedia.getMediaType())) {
+            touchMapped(id);
+            uploadView.refreshUploadsOfMedia(id);
+        }
+        existenceFilter.addMedia(updatedMedia.getMediaName(), updatedMedia.getMediaType());
+        indexAfterCommit(updatedMedia);
+        invalidateReads();
         return convertToDTO(updatedMedia);
     }
 
+    /**
+     * Applies a JSON merge patch: only the fields present are changed, and with dynamic updates
+     * only those columns are written.
+     */
+    @Transactional
+    public MediaCatalogDTO patchMedia(Long id, JsonNode body) {
+        MergePatch patch = new MergePatch(body, "media_name", "media_type", "language", "main_genres",
+                "sub_genres", "is_downloaded", "download_path", "available_on");
+        MediaCatalog media = mediaRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Media not found with id: " + id));
+
+        String mediaName = patch.has("media_name") ? patch.requiredText("media_name") : media.getMediaName();
+        String mediaType = patch.has("media_type") ? patch.requiredText("media_type") : media.getMediaType();
+        boolean renamed = !mediaName.equals(media.getMediaName()) || !mediaType.equals(media.getMediaType());
+        if (renamed) {
+            // Checked before the entity changes, so the lookup's auto-flush cannot hit the unique constraint
+            MediaCatalog existingMedia = findByNameAndType(mediaName, mediaType);
+            if (existingMedia != null && !existingMedia.getId().equals(id)) {
+                throw new IllegalArgumentException(
+                        "Media with name '" + mediaName + "' and type '" + mediaType + "' already exists");
+            }
+            media.setMediaName(mediaName);
+            media.setMediaType(mediaType);
+        }
+        if (patch.has("language")) {
+            media.setLanguage(trimmed(patch.text("language")));
+        }
+        if (patch.has("main_genres")) {
+            media.setMainGenres(patch.requiredText("main_genres"));
+        }
+        if (patch.has("sub_genres")) {
+            media.setSubGenres(trimmed(patch.text("sub_genres")));
+        }
+        if (patch.has("available_on")) {
+            media.setAvailableOn(trimmed(patch.text("available_on")));
+        }
+        if (patch.has("is_downloaded")) {
+            media.setIsDownloaded("Yes".equalsIgnoreCase(patch.requiredText("is_downloaded")));
+        }
+        if (patch.has("download_path")) {
+            String downloadPath = trimmed(patch.text("download_path"));
+            if (downloadPath == null || downloadPath.isEmpty()) {
+                media.setDownloadPath(null);
+            } else if (media.getDownloadPath() != null) {
+                media.getDownloadPath().setPath(downloadPath);
+                media.getDownloadPath().setIsAvailable(true);
+            } else {
+                MetadataStatus mediaDownloadPath = new MetadataStatus();
+                mediaDownloadPath.setPathCategory(PathCategory.MEDIA_FILE);
+                mediaDownloadPath.setPath(downloadPath);
+                mediaDownloadPath.setIsAvailable(true);
+                mediaDownloadPath.setMetaData("");
+                media.setDownloadPath(metadataStatusRepository.save(mediaDownloadPath));
+            }
+        }
+        if (media.getIsDownloaded() && media.getDownloadPath() == null) {
+            throw new IllegalArgumentException("Download Path  is required");
+        }
+
+        if (renamed) {
+            touchMapped(id);
+            uploadView.refreshUploadsOfMedia(id);
+            existenceFilter.addMedia(mediaName, mediaType);
+            indexAfterCommit(media);
+        }
+        invalidateReads();
+        return convertToDTO(media);
+    }
+
+    /**
+     * Applies the media_name / media_type fields of a content or upload patch to its media list.
+     * The set is changed in place, so Hibernate only inserts and deletes the join rows that differ
+     * instead of rewriting all of them, and media already in the list are matched without a query.
+     * A patch with only one of the two fields keeps the current names or type.
+     *
+     * @return whether the media list changed
+     */
+    public boolean patchMediaList(Set<MediaCatalog> mediaList, MergePatch patch) {
+        if (!patch.has("media_name") && !patch.has("media_type")) {
+            return false;
+        }
+        String mediaNames = patch.has("media_name") ? patch.text("media_name")
+                : mediaList.stream().map(MediaCatalog::getMediaName).collect(Collectors.joining(","));
+        String mediaType = patch.has("media_type") ? patch.text("media_type")
+                : mediaList.stream().findFirst().map(MediaCatalog::getMediaType).orElse(null);
+        String actualMediaType = mediaType != null && !mediaType.trim().isEmpty() ? mediaType : "Movie";
+
+        Set<MediaCatalog> patched = new HashSet<>();
+        if (mediaNames != null) {
+            for (String mediaName : mediaNames.split(",")) {
+                String trimmedMediaName = mediaName.trim();
+                if (trimmedMediaName.isEmpty()) {
+                    continue;
+                }
+                patched.add(mediaList.stream()
+                        .filter(media -> media.getMediaName().equals(trimmedMediaName)
+                                && media.getMediaType().equals(actualMediaType))
+                        .findFirst()
+                        .orElseGet(() -> findOrCreateMedia(trimmedMediaName, actualMediaType)));
+            }
+        }
+        boolean removed = mediaList.retainAll(patched);
+        boolean added = mediaList.addAll(patched);
+        return removed || added;
+    }
+
+    private static String trimmed(String value) {
+        return value != null ? value.trim() : null;
+    }
+
+    @Transactional
     public void deleteMedia(Long id) {
         mediaRepository.deleteById(id);
+        changeFeed.recordDeletion(ChangeFeedService.MEDIA, id);
+        unindexAfterCommit(id);
+        invalidateReads();
+    }
+
+    public ChangesDTO<MediaCatalogDTO> getMediaChanges(String since, int limit) {
+        return changeFeed.changesSince(ChangeFeedService.MEDIA, since, limit, mediaRepository::findChangedSince, this::convertToDTO);
+    }
+
+    public List<MediaSuggestionDTO> suggestMedia(String prefix, String mediaType, int limit) {
+        return mediaNameIndex.suggest(prefix, mediaType, limit);
+    }
+
+    public List<MediaSuggestionDTO> findSimilarMedia(String mediaName, String mediaType, Double threshold, int limit) {
+        return similarityIndex.findSimilar(mediaName, mediaType, null,
+                threshold != null ? threshold : similarityThreshold, limit);
+    }
+
+    public List<MediaDuplicateDTO> findDuplicateMedia(Double threshold) {
+        return similarityIndex.findDuplicatePairs(threshold != null ? threshold : similarityThreshold);
+    }
+
+    /**
+     * Merges the source media into the target: every content and upload mapped to the source is
+     * mapped to the target instead (set-based, without loading the rows), then the source is deleted.
+     * Runs in one transaction, so a failure leaves both media untouched.
+     */
+    @Transactional
+    public MediaCatalogDTO mergeMedia(Long sourceId, Long targetId) {
+        if (sourceId.equals(targetId)) {
+            throw new IllegalArgumentException("Cannot merge media " + sourceId + " into itself");
+        }
+        MediaCatalog source = mediaRepository.findById(sourceId)
+                .orElseThrow(() -> new RuntimeException("Media not found with id: " + sourceId));
+        MediaCatalog target = mediaRepository.findById(targetId)
+                .orElseThrow(() -> new RuntimeException("Media not found with id: " + targetId));
+        if (target.getDownloadPath() == null && source.getDownloadPath() != null) {
+            target.setDownloadPath(source.getDownloadPath());
+            target.setIsDownloaded(source.getIsDownloaded());
+        }
+
+        touchMapped(sourceId);
+        // Collected before the mappings move; the rows are rewritten at commit
+        uploadView.refreshUploadsOfMedia(sourceId);
+        mediaRepository.repointContentMappings(sourceId, targetId);
+        mediaRepository.deleteContentMappings(sourceId);
+        mediaRepository.repointUploadMappings(sourceId, targetId);
+        mediaRepository.deleteUploadMappings(sourceId);
+        mediaRepository.deleteById(sourceId);
+        changeFeed.recordDeletion(ChangeFeedService.MEDIA, sourceId);
+
+        unindexAfterCommit(sourceId);
+        invalidateReads();
+        return mediaRepository.findById(targetId)
+                .map(this::convertToDTO)
+                .orElseThrow(() -> new RuntimeException("Media not found with id: " + targetId));
+    }
+
+    // Native updates raise no Hibernate events, so the rows are handed to the sequencer by id
+    private void touchMapped(Long mediaId) {
+        mediaRepository.touchContentOfMedia(mediaId);
+        mediaRepository.touchUploadsOfMedia(mediaId);
+        changeSequencer.touched(ContentCatalog.class, contentRepository.findIdsByMediaId(mediaId));
+        changeSequencer.touched(UploadCatalog.class, uploadRepository.findIdsByMediaId(mediaId));
+    }
+
+    // The name indexes must not show media of a transaction that rolls back (e.g. a failed batch);
+    // the Bloom filter is updated right away since later lookups in the same transaction rely on it
+    private void indexAfterCommit(MediaCatalog media) {
+        afterCommit(() -> {
+            mediaNameIndex.put(media);
+            similarityIndex.put(media);
+        });
+    }
+
+    private void unindexAfterCommit(Long id) {
+        afterCommit(() -> {
+            mediaNameIndex.remove(id);
+            similarityIndex.remove(id);
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Media names and types also show in the content and upload lists
+    private void invalidateReads() {
+        readCache.invalidate(ChangeFeedService.MEDIA, ChangeFeedService.CONTENT, ChangeFeedService.UPLOAD);
     }
 
     private MediaCatalogDTO convertToDTO(MediaCatalog media) {
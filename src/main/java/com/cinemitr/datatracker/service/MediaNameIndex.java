@@ -0,0 +1,181 @@
+package com.cinemitr.datatracker.service;
+
+import com.cinemitr.datatracker.dto.MediaSuggestionDTO;
+import com.cinemitr.datatracker.entity.MediaCatalog;
+import com.cinemitr.datatracker.repository.MediaCatalogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * In-memory prefix index over all media names, backing the media name typeahead.
+ *
+ * Entries are kept in an array sorted by lower-cased name; a lookup is a binary search for the
+ * first entry at or after the prefix followed by a scan while entries still start with it, so no
+ * database query is involved. The array is immutable and replaced copy-on-write on every media
+ * change, so readers never lock. Changes made while a rebuild is loading are recorded and replayed
+ * onto the loaded entries before they are published. The scheduled rebuild picks up media created
+ * or deleted by other instances sharing the database.
+ */
+@Service
+public class MediaNameIndex {
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparing((Entry entry) -> entry.key)
+            .thenComparing(entry -> entry.mediaType)
+            .thenComparing(entry -> entry.id);
+
+    @Autowired
+    private MediaCatalogRepository mediaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private volatile Entry[] entries = new Entry[0];
+
+    // Media id -> entry put (null when removed) since the running rebuild started loading; null when none runs
+    private Map<Long, Entry> changedDuringRebuild;
+
+    private final Object rebuildLock = new Object();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${datatracker.media.index-rebuild-interval-ms:60000}",
+               fixedDelayString = "${datatracker.media.index-rebuild-interval-ms:60000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changedDuringRebuild = new LinkedHashMap<>();
+            }
+            try {
+                TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+                readOnly.setReadOnly(true);
+                List<Entry> loaded = new ArrayList<>();
+                readOnly.executeWithoutResult(status -> {
+                    try (Stream<Object[]> keys = mediaRepository.streamAllKeys()) {
+                        keys.forEach(key -> loaded.add(new Entry((Long) key[0], (String) key[1], (String) key[2])));
+                    }
+                });
+                Entry[] sorted = loaded.toArray(new Entry[0]);
+                Arrays.sort(sorted, ORDER);
+                synchronized (this) {
+                    entries = changedDuringRebuild.isEmpty() ? sorted : replay(sorted, changedDuringRebuild);
+                }
+            } finally {
+                synchronized (this) {
+                    changedDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Up to {@code limit} media whose name starts with {@code prefix} (case-insensitive), in name
+     * order, optionally restricted to one media type.
+     */
+    public List<MediaSuggestionDTO> suggest(String prefix, String mediaType, int limit) {
+        List<MediaSuggestionDTO> suggestions = new ArrayList<>();
+        if (prefix == null || limit <= 0) {
+            return suggestions;
+        }
+        String key = prefix.trim().toLowerCase(Locale.ROOT);
+        Entry[] snapshot = entries;
+        for (int i = lowerBound(snapshot, key); i < snapshot.length && suggestions.size() < limit; i++) {
+            Entry entry = snapshot[i];
+            if (!entry.key.startsWith(key)) {
+                break;
+            }
+            if (mediaType == null || mediaType.isEmpty() || mediaType.equalsIgnoreCase(entry.mediaType)) {
+                suggestions.add(new MediaSuggestionDTO(entry.id, entry.mediaName, entry.mediaType));
+            }
+        }
+        return suggestions;
+    }
+
+    public synchronized void put(MediaCatalog media) {
+        Entry added = new Entry(media.getId(), media.getMediaName(), media.getMediaType());
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(added.id, added);
+        }
+        Entry[] current = entries;
+        List<Entry> updated = new ArrayList<>(current.length + 1);
+        for (Entry entry : current) {
+            if (!entry.id.equals(media.getId())) {
+                updated.add(entry);
+            }
+        }
+        int position = 0;
+        while (position < updated.size() && ORDER.compare(updated.get(position), added) < 0) {
+            position++;
+        }
+        updated.add(position, added);
+        entries = updated.toArray(new Entry[0]);
+    }
+
+    public synchronized void remove(Long mediaId) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(mediaId, null);
+        }
+        entries = Arrays.stream(entries)
+                .filter(entry -> !entry.id.equals(mediaId))
+                .toArray(Entry[]::new);
+    }
+
+    // The loaded entries with the later puts and removes applied, the changed ids taking their latest state
+    private static Entry[] replay(Entry[] loaded, Map<Long, Entry> changes) {
+        List<Entry> merged = new ArrayList<>(loaded.length + changes.size());
+        for (Entry entry : loaded) {
+            if (!changes.containsKey(entry.id)) {
+                merged.add(entry);
+            }
+        }
+        for (Entry entry : changes.values()) {
+            if (entry != null) {
+                merged.add(entry);
+            }
+        }
+        Entry[] sorted = merged.toArray(new Entry[0]);
+        Arrays.sort(sorted, ORDER);
+        return sorted;
+    }
+
+    private static int lowerBound(Entry[] snapshot, String key) {
+        int low = 0;
+        int high = snapshot.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (snapshot[mid].key.compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static final class Entry {
+        private final Long id;
+        private final String key;
+        private final String mediaName;
+        private final String mediaType;
+
+        private Entry(Long id, String mediaName, String mediaType) {
+            this.id = id;
+            this.key = mediaName.toLowerCase(Locale.ROOT);
+            this.mediaName = mediaName;
+            this.mediaType = mediaType;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.cinemitr.datatracker.service;
+
+import com.cinemitr.datatracker.dto.MediaDuplicateDTO;
+import com.cinemitr.datatracker.dto.MediaSuggestionDTO;
+import com.cinemitr.datatracker.entity.MediaCatalog;
+import com.cinemitr.datatracker.repository.MediaCatalogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Trigram index over normalized media names, used to find near-duplicate media
+ * ("The Dark Knight" vs "Dark Knight", "Spiderman" vs "Spider-Man").
+ *
+ * Names are normalized (lower case, punctuation removed, leading article dropped) and split into
+ * padded character trigrams; similarity is the Jaccard coefficient of the two trigram sets.
+ * Candidates come from an inverted index (trigram -> media ids) using prefix filtering: a name with
+ * n trigrams can only reach similarity t with names sharing one of its n - ceil(t * n) + 1 rarest
+ * trigrams, so common trigrams are never probed and neither a lookup nor the duplicate report
+ * compares every pair of rows.
+ *
+ * The index is rebuilt from the database on a schedule so media created or deleted by other
+ * instances show up. A rebuild loads into new maps without blocking lookups and replays the
+ * changes made while it loaded before swapping them in.
+ */
+@Service
+public class MediaSimilarityIndex {
+
+    @Autowired
+    private MediaCatalogRepository mediaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<String, Set<Long>> postings = new HashMap<>();
+    private Map<Long, Indexed> media = new HashMap<>();
+
+    // Media id -> [name, type] put (null when removed) while a rebuild loads; null when none runs
+    private Map<Long, String[]> changedDuringRebuild;
+
+    private final Object rebuildLock = new Object();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${datatracker.media.index-rebuild-interval-ms:60000}",
+               fixedDelayString = "${datatracker.media.index-rebuild-interval-ms:60000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = new LinkedHashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Map<String, Set<Long>> loadedPostings = new HashMap<>();
+            Map<Long, Indexed> loadedMedia = new HashMap<>();
+            try {
+                TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+                readOnly.setReadOnly(true);
+                readOnly.executeWithoutResult(status -> {
+                    try (Stream<Object[]> keys = mediaRepository.streamAllKeys()) {
+                        keys.forEach(key -> add(loadedPostings, loadedMedia,
+                                (Long) key[0], (String) key[1], (String) key[2]));
+                    }
+                });
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    changedDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+            lock.writeLock().lock();
+            try {
+                for (Map.Entry<Long, String[]> change : changedDuringRebuild.entrySet()) {
+                    removeInternal(loadedPostings, loadedMedia, change.getKey());
+                    if (change.getValue() != null) {
+                        add(loadedPostings, loadedMedia, change.getKey(), change.getValue()[0], change.getValue()[1]);
+                    }
+                }
+                postings = loadedPostings;
+                media = loadedMedia;
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public void put(MediaCatalog entity) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(entity.getId(), new String[]{entity.getMediaName(), entity.getMediaType()});
+            }
+            removeInternal(postings, media, entity.getId());
+            add(postings, media, entity.getId(), entity.getMediaName(), entity.getMediaType());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long mediaId) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(mediaId, null);
+            }
+            removeInternal(postings, media, mediaId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Media whose name is at least {@code threshold} similar to the given name, most similar first.
+     * {@code excludeId} (may be null) is left out of the result.
+     */
+    public List<MediaSuggestionDTO> findSimilar(String mediaName, String mediaType, Long excludeId, double threshold, int limit) {
+        Set<String> trigrams = trigrams(normalize(mediaName));
+        lock.readLock().lock();
+        try {
+            List<MediaSuggestionDTO> matches = new ArrayList<>();
+            for (Long candidate : candidates(trigrams, threshold)) {
+                Indexed other = media.get(candidate);
+                if (candidate.equals(excludeId)
+                        || (mediaType != null && !mediaType.isEmpty() && !mediaType.equalsIgnoreCase(other.mediaType))) {
+                    continue;
+                }
+                double similarity = jaccard(trigrams, other.trigrams);
+                if (similarity >= threshold) {
+                    matches.add(other.toSuggestion(similarity));
+                }
+            }
+            matches.sort(Comparator.comparingDouble((MediaSuggestionDTO match) -> -match.getSimilarity())
+                    .thenComparing(MediaSuggestionDTO::getId));
+            return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * All pairs of media of the same type whose names are at least {@code threshold} similar,
+     * most similar first. Each pair is reported once, lower id first.
+     */
+    public List<MediaDuplicateDTO> findDuplicatePairs(double threshold) {
+        lock.readLock().lock();
+        try {
+            List<Indexed> ordered = new ArrayList<>(media.values());
+            ordered.sort(Comparator.comparing(indexed -> indexed.id));
+
+            // Both sides are cut to their prefixes under the same rarity order, so only prefixes need to be indexed
+            Map<String, List<Indexed>> prefixIndex = new HashMap<>();
+            List<MediaDuplicateDTO> pairs = new ArrayList<>();
+            for (Indexed second : ordered) {
+                Set<Long> compared = new HashSet<>();
+                for (String trigram : prefix(second.trigrams, threshold)) {
+                    List<Indexed> seen = prefixIndex.computeIfAbsent(trigram, key -> new ArrayList<>());
+                    for (Indexed first : seen) {
+                        if (!compared.add(first.id)
+                                || first.trigrams.size() < threshold * second.trigrams.size()
+                                || second.trigrams.size() < threshold * first.trigrams.size()
+                                || !first.mediaType.equalsIgnoreCase(second.mediaType)) {
+                            continue;
+                        }
+                        double similarity = jaccard(first.trigrams, second.trigrams);
+                        if (similarity >= threshold) {
+                            pairs.add(new MediaDuplicateDTO(first.toSuggestion(null), second.toSuggestion(null), similarity));
+                        }
+                    }
+                    seen.add(second);
+                }
+            }
+            pairs.sort(Comparator.comparingDouble((MediaDuplicateDTO pair) -> -pair.getSimilarity())
+                    .thenComparing(pair -> pair.getMedia().getId())
+                    .thenComparing(pair -> pair.getDuplicate().getId()));
+            return pairs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Media sharing at least one of the query's rarest trigrams, which every media at or above the threshold does
+    private Set<Long> candidates(Set<String> trigrams, double threshold) {
+        Set<Long> candidates = new HashSet<>();
+        for (String trigram : prefix(trigrams, threshold)) {
+            Set<Long> ids = postings.get(trigram);
+            if (ids != null) {
+                candidates.addAll(ids);
+            }
+        }
+        return candidates;
+    }
+
+    // The n - ceil(t * n) + 1 rarest trigrams; a set sharing none of them shares fewer than t * n trigrams
+    private List<String> prefix(Set<String> trigrams, double threshold) {
+        List<String> byRarity = new ArrayList<>(trigrams);
+        byRarity.sort(Comparator.comparingInt((String trigram) -> postingSize(trigram)).thenComparing(trigram -> trigram));
+        int required = Math.max(1, (int) Math.ceil(threshold * trigrams.size() - 1e-9));
+        return byRarity.subList(0, Math.min(byRarity.size(), byRarity.size() - required + 1));
+    }
+
+    private int postingSize(String trigram) {
+        Set<Long> ids = postings.get(trigram);
+        return ids == null ? 0 : ids.size();
+    }
+
+    private static void add(Map<String, Set<Long>> postings, Map<Long, Indexed> media,
+                            Long id, String mediaName, String mediaType) {
+        Indexed indexed = new Indexed(id, mediaName, mediaType, trigrams(normalize(mediaName)));
+        media.put(id, indexed);
+        for (String trigram : indexed.trigrams) {
+            postings.computeIfAbsent(trigram, key -> new HashSet<>()).add(id);
+        }
+    }
+
+    private static void removeInternal(Map<String, Set<Long>> postings, Map<Long, Indexed> media, Long id) {
+        Indexed removed = media.remove(id);
+        if (removed == null) {
+            return;
+        }
+        for (String trigram : removed.trigrams) {
+            Set<Long> ids = postings.get(trigram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    private static double jaccard(Set<String> first, Set<String> second) {
+        Set<String> smaller = first.size() <= second.size() ? first : second;
+        Set<String> larger = smaller == first ? second : first;
+        int shared = 0;
+        for (String trigram : smaller) {
+            if (larger.contains(trigram)) {
+                shared++;
+            }
+        }
+        int union = first.size() + second.size() - shared;
+        return union == 0 ? 0 : (double) shared / union;
+    }
+
+    static String normalize(String mediaName) {
+        String normalized = mediaName == null ? "" : mediaName.toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N}]+", " ")
+                .trim();
+        for (String article : new String[]{"the ", "a ", "an "}) {
+            if (normalized.startsWith(article) && normalized.length() > article.length()) {
+                normalized = normalized.substring(article.length());
+                break;
+            }
+        }
+        // "spider man" and "spiderman" should share as many trigrams as possible
+        return normalized.replace(" ", "");
+    }
+
+    static Set<String> trigrams(String normalized) {
+        Set<String> trigrams = new HashSet<>();
+        String padded = "  " + normalized + " ";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static final class Indexed {
+        private final Long id;
+        private final String mediaName;
+        private final String mediaType;
+        private final Set<String> trigrams;
+
+        private Indexed(Long id, String mediaName, String mediaType, Set<String> trigrams) {
+            this.id = id;
+            this.mediaName = mediaName;
+            this.mediaType = mediaType;
+            this.trigrams = trigrams;
+        }
+
+        private MediaSuggestionDTO toSuggestion(Double similarity) {
+            MediaSuggestionDTO suggestion = new MediaSuggestionDTO(id, mediaName, mediaType);
+            suggestion.setSimilarity(similarity);
+            return suggestion;
+        }
+    }
+}
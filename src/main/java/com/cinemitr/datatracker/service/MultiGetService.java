@@ -0,0 +1,60 @@
+package com.cinemitr.datatracker.service;
+
+import com.cinemitr.datatracker.dto.MultiGetDTO;
+import com.cinemitr.datatracker.entity.TrackedEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Fetching many rows by id in one request, shared by the catalog services.
+ *
+ * The ids are loaded with IN queries of up to {@link #CHUNK_SIZE} ids, so up to that many
+ * references cost a single query; the associations the DTOs read are then loaded in batches
+ * (hibernate.default_batch_fetch_size) rather than one query per row.
+ */
+@Service
+public class MultiGetService {
+
+    public static final int MAX_IDS = 5000;
+
+    // Some databases cap the number of IN list elements at 1000
+    private static final int CHUNK_SIZE = 1000;
+
+    public <E extends TrackedEntity, D> MultiGetDTO<D> getByIds(List<Long> ids, Function<List<Long>, List<E>> loader,
+                                                               Function<E, D> converter) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("ids must not be empty");
+        }
+        // Repeated ids are loaded once but still answered in every requested position
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinctIds.contains(null)) {
+            throw new IllegalArgumentException("ids must not contain null");
+        }
+        if (distinctIds.size() > MAX_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_IDS + " ids per request");
+        }
+
+        Map<Long, D> found = new HashMap<>();
+        for (int from = 0; from < distinctIds.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(distinctIds.size(), from + CHUNK_SIZE));
+            for (E entity : loader.apply(chunk)) {
+                found.put(entity.getId(), converter.apply(entity));
+            }
+        }
+
+        MultiGetDTO<D> result = new MultiGetDTO<>();
+        Set<Long> missingIds = new LinkedHashSet<>();
+        for (Long id : ids) {
+            D item = found.get(id);
+            if (item != null) {
+                result.getItems().add(item);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        result.setMissingIds(new ArrayList<>(missingIds));
+        return result;
+    }
+}
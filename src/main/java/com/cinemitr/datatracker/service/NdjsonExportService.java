@@ -0,0 +1,77 @@
+package com.cinemitr.datatracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Streams a whole table as NDJSON (one DTO per line) for the list endpoints.
+ *
+ * Rows come from a streamed repository query and are converted and written {@link #CHUNK_SIZE} at a
+ * time, so the full entity and DTO lists are never built. After each chunk the output is flushed to
+ * the client and the persistence context is cleared, which keeps heap use flat however large the
+ * table is. Runs in its own read-only transaction on the async request thread.
+ */
+@Service
+public class NdjsonExportService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public <E, D> StreamingResponseBody stream(Supplier<Stream<E>> query, Function<E, D> converter) {
+        return out -> {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<E> rows = query.get()) {
+                    write(rows.iterator(), converter, out);
+                } catch (IOException e) {
+                    // Usually the client went away; nothing more to send
+                    throw new UncheckedIOException(e);
+                }
+            });
+        };
+    }
+
+    private <E, D> void write(Iterator<E> rows, Function<E, D> converter, OutputStream out) throws IOException {
+        List<E> chunk = new ArrayList<>(CHUNK_SIZE);
+        while (rows.hasNext()) {
+            // The whole chunk is read before converting, so the lazy associations the DTOs need are
+            // batch-fetched for all of its rows rather than one row at a time. The size check comes
+            // first: hasNext() already loads the next row, which must not be loaded before the clear.
+            while (chunk.size() < CHUNK_SIZE && rows.hasNext()) {
+                chunk.add(rows.next());
+            }
+            for (E row : chunk) {
+                out.write(objectMapper.writeValueAsBytes(converter.apply(row)));
+                out.write('\n');
+            }
+            out.flush();
+            chunk.clear();
+            entityManager.clear();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.cinemitr.datatracker.service;
+
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sparse fieldsets for the list endpoints ({@code ?fields=id,status,media_name}).
+ *
+ * The requested DTO fields are compiled into one JPQL tuple query that selects only their columns
+ * and joins only the associations they read, so no entities are loaded. The media name fields come
+ * from a single extra query over the mapping table, and only when one of them is requested. Rows
+ * are returned as maps keyed and formatted like the full DTOs; the id is always included.
+ */
+@Service
+public class ProjectionService {
+
+    public static final String MEDIA_NAME = "media_name";
+    public static final String MEDIA_NAMES_LIST = "media_names_list";
+    public static final String MEDIA_TYPE = "media_type";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public List<Map<String, Object>> list(Projection projection, String fields) {
+        List<String> requested = projection.parse(fields);
+
+        Set<String> joins = new LinkedHashSet<>();
+        List<String> select = new ArrayList<>();
+        select.add(projection.alias + ".id");
+        List<String> columns = new ArrayList<>();
+        boolean mediaFields = false;
+        for (String field : requested) {
+            Column column = projection.columns.get(field);
+            if (column != null) {
+                select.add(column.expression);
+                columns.add(field);
+                if (column.join != null) {
+                    joins.add(column.join);
+                }
+            } else {
+                mediaFields = true;
+            }
+        }
+
+        String jpql = "SELECT " + String.join(", ", select) + " FROM " + projection.entity + " " + projection.alias
+                + joins.stream().map(join -> " " + join).collect(Collectors.joining())
+                + " ORDER BY " + projection.alias + ".id";
+        List<Tuple> tuples = entityManager.createQuery(jpql, Tuple.class).getResultList();
+        Map<Long, List<Object[]>> media = mediaFields ? mediaByOwner(projection) : Collections.emptyMap();
+
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Long id = (Long) tuple.get(0);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", id);
+            int index = 1;
+            for (String field : requested) {
+                if (projection.columns.containsKey(field)) {
+                    row.put(field, projection.columns.get(field).format.apply(tuple.get(index++)));
+                } else {
+                    row.put(field, mediaField(field, media.getOrDefault(id, Collections.emptyList())));
+                }
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * The requested fields of rows already in their DTO form (field name to value, e.g. archived
+     * rows), shaped like the rows of {@link #list}.
+     */
+    public List<Map<String, Object>> select(Projection projection, String fields, List<Map<String, Object>> dtoRows) {
+        List<String> requested = projection.parse(fields);
+        List<Map<String, Object>> rows = new ArrayList<>(dtoRows.size());
+        for (Map<String, Object> dto : dtoRows) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", ((Number) dto.get("id")).longValue());
+            for (String field : requested) {
+                row.put(field, dto.get(field));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * The requested fields trimmed, without blanks, repeats and the implicit id, for keying cached
+     * lists: "status, id,status" and "status" select the same rows.
+     */
+    public static String fieldsKey(String fields) {
+        return Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty() && !field.equals("id"))
+                .distinct()
+                .collect(Collectors.joining(","));
+    }
+
+    // (owner id, media name, media type) for every mapped media
+    private Map<Long, List<Object[]>> mediaByOwner(Projection projection) {
+        String jpql = "SELECT " + projection.alias + ".id, m.mediaName, m.mediaType FROM " + projection.entity + " "
+                + projection.alias + " JOIN " + projection.alias + "." + projection.mediaList + " m";
+        return entityManager.createQuery(jpql, Object[].class).getResultList().stream()
+                .collect(Collectors.groupingBy(row -> (Long) row[0]));
+    }
+
+    // Same values as the DTO conversions: comma-joined names, the name list and the first media's type
+    private static Object mediaField(String field, List<Object[]> media) {
+        switch (field) {
+            case MEDIA_NAME:
+                return media.stream().map(row -> (String) row[1]).collect(Collectors.joining(", "));
+            case MEDIA_NAMES_LIST:
+                return media.stream().map(row -> (String) row[1]).collect(Collectors.toList());
+            default:
+                return media.isEmpty() ? "" : media.get(0)[2];
+        }
+    }
+
+    /**
+     * The fields one list endpoint can project: DTO field name to JPQL expression, the join the
+     * expression needs (if any) and the formatting the DTO applies to the value.
+     */
+    public static final class Projection {
+        private final String entity;
+        private final String alias;
+        private final Map<String, Column> columns = new LinkedHashMap<>();
+        private String mediaList;
+
+        public Projection(String entity, String alias) {
+            this.entity = entity;
+            this.alias = alias;
+        }
+
+        public Projection column(String field, String expression) {
+            return column(field, expression, null, value -> value);
+        }
+
+        public Projection column(String field, String expression, String join, Function<Object, Object> format) {
+            columns.put(field, new Column(expression, join, format));
+            return this;
+        }
+
+        // Enables media_name, media_names_list and media_type, read from the given media collection
+        public Projection mediaList(String path) {
+            this.mediaList = path;
+            return this;
+        }
+
+        private List<String> parse(String fields) {
+            Set<String> requested = new LinkedHashSet<>();
+            for (String field : fields.split(",")) {
+                String trimmed = field.trim();
+                if (trimmed.isEmpty() || trimmed.equals("id")) {
+                    continue;
+                }
+                if (!columns.containsKey(trimmed) && !(mediaList != null && isMediaField(trimmed))) {
+                    throw new IllegalArgumentException("Unknown field '" + trimmed + "', expected one of: " + available());
+                }
+                requested.add(trimmed);
+            }
+            return new ArrayList<>(requested);
+        }
+
+        private String available() {
+            List<String> available = new ArrayList<>();
+            available.add("id");
+            available.addAll(columns.keySet());
+            if (mediaList != null) {
+                available.addAll(Arrays.asList(MEDIA_TYPE, MEDIA_NAME, MEDIA_NAMES_LIST));
+            }
+            return String.join(", ", available);
+        }
+
+        private static boolean isMediaField(String field) {
+            return field.equals(MEDIA_NAME) || field.equals(MEDIA_NAMES_LIST) || field.equals(MEDIA_TYPE);
+        }
+    }
+
+    private static final class Column {
+        private final String expression;
+        private final String join;
+        private final Function<Object, Object> format;
+
+        private Column(String expression, String join, Function<Object, Object> format) {
+            this.expression = expression;
+            this.join = join;
+            this.format = format;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.cinemitr.datatracker.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing and a short-lived cache for the hot list and count reads.
+ *
+ * Concurrent identical reads (same type and key, e.g. "list" or "fields:id,status") share one
+ * computation: the first caller runs it and the others wait for its result, which is then served
+ * for ttl-ms. Writes invalidate their types right away and again when their transaction ends; a
+ * computation that overlapped an invalidation still answers its waiters but is not cached.
+ * Cached values are shared between callers and must not be modified. Reads served by the read
+ * replica are cached separately from reads on the primary (see {@link ReplicaReads}).
+ */
+@Service
+public class ReadCoalescer {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ReplicaReads replicaReads;
+
+    @Value("${datatracker.read-cache.ttl-ms:2000}")
+    private long ttlMillis;
+
+    private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private Counter computed;
+    private Counter coalesced;
+    private Counter cached;
+
+    @PostConstruct
+    public void registerMetrics() {
+        computed = counter("computed", "Reads that ran the query");
+        coalesced = counter("coalesced", "Reads that waited for an identical read in flight");
+        cached = counter("cached", "Reads answered from a recent result");
+    }
+
+    private Counter counter(String result, String description) {
+        return Counter.builder("datatracker.read_cache.requests")
+                .tag("result", result)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String type, String key, Supplier<T> loader) {
+        // Inside a read-write transaction the caller may see its own uncommitted rows
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return loader.get();
+        }
+        // Replica results may lag behind the primary and are kept apart from primary ones
+        String cacheKey = type + ":" + (replicaReads.routesToReplica() ? "replica:" : "") + key;
+        while (true) {
+            Flight flight = flights.get(cacheKey);
+            if (flight != null && flight.isExpired()) {
+                flights.remove(cacheKey, flight);
+                continue;
+            }
+            if (flight == null) {
+                Flight started = new Flight(generation(type).get());
+                if (flights.putIfAbsent(cacheKey, started) == null) {
+                    computed.increment();
+                    return (T) run(type, cacheKey, started, loader);
+                }
+                continue;
+            }
+            (flight.result.isDone() ? cached : coalesced).increment();
+            return (T) flight.await();
+        }
+    }
+
+    private Object run(String type, String cacheKey, Flight flight, Supplier<?> loader) {
+        Object value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            flights.remove(cacheKey, flight);
+            flight.result.completeExceptionally(e);
+            throw e;
+        }
+        flight.expiresAt = System.currentTimeMillis() + ttlMillis;
+        if (generation(type).get() != flight.generation) {
+            flights.remove(cacheKey, flight);
+        }
+        flight.result.complete(value);
+        return value;
+    }
+
+    /**
+     * Drops the cached reads of the given types. Inside a transaction they are dropped again when
+     * it ends, so a read that ran before the commit cannot keep serving the old rows.
+     */
+    public void invalidate(String... types) {
+        drop(types);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    drop(types);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops every cached read, e.g. once the replica has caught up with the primary.
+     */
+    public void invalidateAll() {
+        drop(generations.keySet().toArray(new String[0]));
+    }
+
+    private void drop(String[] types) {
+        for (String type : types) {
+            generation(type).incrementAndGet();
+            flights.keySet().removeIf(key -> key.startsWith(type + ":"));
+        }
+    }
+
+    private AtomicLong generation(String type) {
+        return generations.computeIfAbsent(type, t -> new AtomicLong());
+    }
+
+    private static final class Flight {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final long generation;
+        // Set once the result is in; in-flight computations never expire
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private Flight(long generation) {
+            this.generation = generation;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+
+        private Object await() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+}
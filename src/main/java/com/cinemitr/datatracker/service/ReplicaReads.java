@@ -0,0 +1,224 @@
+package com.cinemitr.datatracker.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.function.Supplier;
+
+/**
+ * Decides which reads may be served by the read replica (datatracker.datasource.replica.url).
+ * Without a replica configured everything runs on the primary as before.
+ *
+ * A read goes to the replica only when it runs inside {@link #run} in a read-only transaction of
+ * its own; joined to a read-write transaction it stays on the primary. Repository calls elsewhere
+ * stay on the primary as well, although Spring Data runs them read-only: the write paths look
+ * rows up right before changing them and must not see a lagging copy.
+ *
+ * Reads inside {@link #run} still use the primary
+ * - for the rest of a request that committed a write, and for read-your-writes-ms afterwards for
+ *   the same client, remembered in the {@link #WRITE_COOKIE} cookie set when the write commits
+ * - while the replica is more than max-lag-ms behind, as far as that is known (only the
+ *   replication stand-in reports its progress, see ReplicationStandIn)
+ */
+@Service
+public class ReplicaReads {
+
+    public static final String WRITE_COOKIE = "dt_last_write";
+
+    private static final String WROTE_ATTRIBUTE = ReplicaReads.class.getName() + ".WROTE";
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${datatracker.datasource.replica.url:}")
+    private String replicaUrl;
+
+    @Value("${datatracker.datasource.replica.read-your-writes-ms:5000}")
+    private long readYourWritesMillis;
+
+    @Value("${datatracker.datasource.replica.max-lag-ms:2000}")
+    private long maxLagMillis;
+
+    @Value("${datatracker.datasource.replica.stand-in:false}")
+    private boolean lagReported;
+
+    private final ThreadLocal<Boolean> replicaAllowed = new ThreadLocal<>();
+
+    // Oldest commit on the primary the replica does not have yet, 0 when it is up to date
+    private volatile long firstUnreplicatedCommit;
+    private volatile long lastCommit;
+
+    private Counter replicaReads;
+    private Counter primaryReads;
+
+    @PostConstruct
+    public void init() {
+        if (lagReported) {
+            // Nothing has been copied yet, so the replica counts as far behind until the first copy
+            firstUnreplicatedCommit = 1;
+        }
+        replicaReads = counter("replica", "Reads served by the read replica");
+        primaryReads = counter("primary", "Replica-eligible reads kept on the primary (recent write or replica lag)");
+        Gauge.builder("datatracker.replica.lag_ms", this, ReplicaReads::replicaLagMillis)
+                .description("Age of the oldest primary commit the replica stand-in has not copied yet")
+                .register(meterRegistry);
+    }
+
+    private Counter counter(String target, String description) {
+        return Counter.builder("datatracker.replica.reads")
+                .tag("target", target)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return replicaUrl != null && !replicaUrl.trim().isEmpty();
+    }
+
+    /**
+     * Runs a read that may be served by the replica, in a read-only transaction.
+     */
+    public <T> T run(Supplier<T> read) {
+        if (!isEnabled()) {
+            return read.get();
+        }
+        boolean outer = replicaAllowed.get() != null;
+        replicaAllowed.set(Boolean.TRUE);
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            return transaction.execute(status -> read.get());
+        } finally {
+            if (!outer) {
+                replicaAllowed.remove();
+            }
+        }
+    }
+
+    /**
+     * Whether a read on this thread would currently be served by the replica.
+     */
+    public boolean routesToReplica() {
+        return isEnabled() && replicaAllowed.get() != null
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !wroteRecently() && !isLagging();
+    }
+
+    /**
+     * Called by the routing data source for every connection it hands out; true picks the replica.
+     */
+    public boolean useReplica() {
+        if (routesToReplica()) {
+            replicaReads.increment();
+            return true;
+        }
+        if (replicaAllowed.get() != null) {
+            primaryReads.increment();
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    writeCommitted();
+                }
+            });
+        }
+        return false;
+    }
+
+    /**
+     * Reported by the replication stand-in: the replica now holds everything the primary had
+     * committed at asOf.
+     */
+    public synchronized void replicated(long asOf) {
+        if (lastCommit < asOf) {
+            firstUnreplicatedCommit = 0;
+        } else if (firstUnreplicatedCommit != 0 && firstUnreplicatedCommit < asOf) {
+            firstUnreplicatedCommit = asOf;
+        }
+    }
+
+    public boolean hasUnreplicatedWrites() {
+        return firstUnreplicatedCommit != 0;
+    }
+
+    public long replicaLagMillis() {
+        long first = firstUnreplicatedCommit;
+        return first == 0 ? 0 : System.currentTimeMillis() - first;
+    }
+
+    private boolean isLagging() {
+        return lagReported && replicaLagMillis() > maxLagMillis;
+    }
+
+    private synchronized void writeCommitted() {
+        long now = System.currentTimeMillis();
+        lastCommit = now;
+        if (firstUnreplicatedCommit == 0) {
+            firstUnreplicatedCommit = now;
+        }
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null || attributes.getRequest().getAttribute(WROTE_ATTRIBUTE) != null) {
+            return;
+        }
+        attributes.getRequest().setAttribute(WROTE_ATTRIBUTE, Boolean.TRUE);
+        HttpServletResponse response = attributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            Cookie cookie = new Cookie(WRITE_COOKIE, String.valueOf(now));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (readYourWritesMillis + 999) / 1000));
+            response.addCookie(cookie);
+        }
+    }
+
+    private boolean wroteRecently() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null) {
+            return false;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        if (request.getAttribute(WROTE_ATTRIBUTE) != null) {
+            return true;
+        }
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        for (Cookie cookie : cookies) {
+            if (WRITE_COOKIE.equals(cookie.getName())) {
+                try {
+                    if (now - Long.parseLong(cookie.getValue()) < readYourWritesMillis) {
+                        return true;
+                    }
+                } catch (NumberFormatException ignored) {
+                    // Not one of ours, the read goes wherever it would without the cookie
+                }
+            }
+        }
+        return false;
+    }
+
+    private static ServletRequestAttributes currentRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes
+                ? (ServletRequestAttributes) RequestContextHolder.getRequestAttributes() : null;
+    }
+}
@@ -1,15 +1,33 @@
 package com.cinemitr.datatracker.service;
 
+import com.cinemitr.datatracker.dto.ChangesDTO;
+import com.cinemitr.datatracker.dto.MultiGetDTO;
 import com.cinemitr.datatracker.dto.StatsCatalogDTO;
+import com.cinemitr.datatracker.dto.StatsRollupDTO;
 import com.cinemitr.datatracker.entity.StatsCatalog;
+import com.cinemitr.datatracker.entity.StatsMonthlyRollup;
+import com.cinemitr.datatracker.enums.StatsPage;
+import com.cinemitr.datatracker.repository.StatsArchivedDayRepository;
 import com.cinemitr.datatracker.repository.StatsCatalogRepository;
+import com.cinemitr.datatracker.repository.StatsMonthlyRollupRepository;
+import com.cinemitr.datatracker.util.MergePatch;
+import com.cinemitr.datatracker.util.NumberText;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -18,13 +36,78 @@ public class StatsCatalogService {
     
     @Autowired
     private StatsCatalogRepository statsRepository;
+
+    @Autowired
+    private ChangeFeedService changeFeed;
+
+    @Autowired
+    private MultiGetService multiGet;
+
+    @Autowired
+    private ProjectionService projections;
+
+    @Autowired
+    private NdjsonExportService ndjsonExport;
+
+    @Autowired
+    private ReadCoalescer readCache;
+
+    @Autowired
+    private ArchiveService archive;
+
+    @Autowired
+    private StatsRollupService rollup;
+
+    @Autowired
+    private StatsMonthlyRollupRepository rollupRepository;
+
+    @Autowired
+    private StatsArchivedDayRepository archivedDayRepository;
+
+    @Value("${datatracker.archive.stats-after-days:365}")
+    private int archiveAfterDays;
     
-    private static final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+    // Fields for ?fields= on the list endpoint, formatted like convertToDTO
+    private static final ProjectionService.Projection PROJECTION = new ProjectionService.Projection("StatsCatalog", "s")
+            .column("date", "s.date", null, Object::toString)
+            .column("total_views", "s.totalViews", null, value -> NumberText.wholeNumber((Double) value))
+            .column("subscribers", "s.subscribers", null, value -> NumberText.wholeNumber((Double) value))
+            .column("interaction", "s.interaction", null, value -> NumberText.wholeNumber((Double) value))
+            .column("content", "c.link", "LEFT JOIN s.content c", value -> value != null ? value : "Daily analytics")
+            .column("page", "s.page", null, value -> ((StatsPage) value).getLabel());
 
-    public List<StatsCatalogDTO> getAllStats() {
-        return statsRepository.findAll().stream()
+    public List<StatsCatalogDTO> getAllStats(boolean includeArchived) {
+        if (includeArchived) {
+            return readCache.get(ChangeFeedService.STATS, "list:archived", () -> {
+                List<StatsCatalogDTO> stats = new ArrayList<>(getAllStats(false));
+                stats.addAll(archive.list(ChangeFeedService.STATS, StatsCatalogDTO.class));
+                stats.sort(Comparator.comparing(StatsCatalogDTO::getId));
+                return stats;
+            });
+        }
+        return readCache.get(ChangeFeedService.STATS, "list", () -> statsRepository.findAll().stream()
                 .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
+    }
+
+    public List<Map<String, Object>> getAllStats(String fields, boolean includeArchived) {
+        String key = (includeArchived ? "fields:archived:" : "fields:") + ProjectionService.fieldsKey(fields);
+        return readCache.get(ChangeFeedService.STATS, key, () -> {
+            List<Map<String, Object>> rows = projections.list(PROJECTION, fields);
+            if (includeArchived) {
+                rows.addAll(projections.select(PROJECTION, fields, archive.rows(ChangeFeedService.STATS)));
+                rows.sort(Comparator.comparing(row -> (Long) row.get("id")));
+            }
+            return rows;
+        });
+    }
+
+    public long countStats() {
+        return readCache.get(ChangeFeedService.STATS, "count", statsRepository::count);
+    }
+
+    public StreamingResponseBody streamAllStats() {
+        return ndjsonExport.stream(statsRepository::streamAll, this::convertToDTO);
     }
 
     public Optional<StatsCatalogDTO> getStatsById(Long id) {
@@ -32,34 +115,176 @@ public class StatsCatalogService {
                 .map(this::convertToDTO);
     }
 
+    @Transactional(readOnly = true)
+    public MultiGetDTO<StatsCatalogDTO> getStatsByIds(List<Long> ids) {
+        return multiGet.getByIds(ids, statsRepository::findAllById, this::convertToDTO);
+    }
+
+    @Transactional
     public StatsCatalogDTO saveStats(StatsCatalogDTO statsDTO) {
         StatsCatalog stats = convertToEntity(statsDTO);
-        StatsCatalog savedStats = statsRepository.save(stats);
+        requireDayAndPageFree(null, stats.getDate(), stats.getPage());
+        StatsCatalog savedStats;
+        try {
+            savedStats = statsRepository.save(stats);
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently by another request or instance
+            throw dayAndPageTaken(stats.getDate(), stats.getPage());
+        }
+        rollup.added(savedStats);
+        invalidateReads();
         return convertToDTO(savedStats);
     }
 
+    @Transactional
     public StatsCatalogDTO updateStats(Long id, StatsCatalogDTO statsDTO) {
         StatsCatalog stats = statsRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Stats not found with id: " + id));
         
+        StatsRollupService.Contribution before = StatsRollupService.contribution(stats);
+        requireDayAndPageFree(id, parseDate(statsDTO.getDate()), StatsPage.fromValue(statsDTO.getPage()));
         updateEntityFromDTO(stats, statsDTO);
         StatsCatalog updatedStats = statsRepository.save(stats);
+        rollup.changed(before, updatedStats);
+        invalidateReads();
         return convertToDTO(updatedStats);
     }
 
+    /**
+     * Applies a JSON merge patch: only the fields present are changed and written.
+     */
+    @Transactional
+    public StatsCatalogDTO patchStats(Long id, JsonNode body) {
+        MergePatch patch = new MergePatch(body, "date", "total_views", "subscribers", "interaction", "page");
+        StatsCatalog stats = statsRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Stats not found with id: " + id));
+
+        StatsRollupService.Contribution before = StatsRollupService.contribution(stats);
+        LocalDate date = patch.has("date") ? parseDate(patch.requiredText("date")) : stats.getDate();
+        StatsPage page = patch.has("page") ? StatsPage.fromValue(patch.requiredText("page")) : stats.getPage();
+        if (patch.has("date") || patch.has("page")) {
+            requireDayAndPageFree(id, date, page);
+            stats.setDate(date);
+            stats.setPage(page);
+        }
+        if (patch.has("total_views")) {
+            stats.setTotalViews(Double.parseDouble(patch.requiredText("total_views")));
+        }
+        if (patch.has("subscribers")) {
+            stats.setSubscribers(Double.parseDouble(patch.requiredText("subscribers")));
+        }
+        if (patch.has("interaction")) {
+            stats.setInteraction(Double.parseDouble(patch.requiredText("interaction")));
+        }
+        rollup.changed(before, stats);
+        invalidateReads();
+        return convertToDTO(stats);
+    }
+
+    @Transactional
     public void deleteStats(Long id) {
+        statsRepository.findById(id).ifPresent(stats -> rollup.removed(StatsRollupService.contribution(stats)));
         statsRepository.deleteById(id);
+        changeFeed.recordDeletion(ChangeFeedService.STATS, id);
+        invalidateReads();
+    }
+
+    public ChangesDTO<StatsCatalogDTO> getStatsChanges(String since, int limit) {
+        return changeFeed.changesSince(ChangeFeedService.STATS, since, limit, statsRepository::findChangedSince, this::convertToDTO);
+    }
+
+    /**
+     * Monthly sums per page for the months from..to (yyyy-MM, both included), all pages or one.
+     * Defaults to the last 12 months.
+     */
+    public List<StatsRollupDTO> getMonthlyRollup(String from, String to, String page) {
+        YearMonth toMonth = to != null ? parseMonth(to) : YearMonth.now();
+        YearMonth fromMonth = from != null ? parseMonth(from) : toMonth.minusMonths(11);
+        if (fromMonth.isAfter(toMonth)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        return rollupRepository.findMonths(fromMonth.atDay(1), toMonth.atDay(1),
+                        page != null ? StatsPage.fromValue(page) : null).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    private static YearMonth parseMonth(String month) {
+        try {
+            return YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid month, expected yyyy-MM: " + month);
+        }
+    }
+
+    /**
+     * Moves statistics for days more than datatracker.archive.stats-after-days ago into the archive.
+     *
+     * @return the number of rows archived
+     */
+    public long archiveStats() {
+        LocalDate before = LocalDate.now().minusDays(archiveAfterDays);
+        long archived = archive.archive(ChangeFeedService.STATS,
+                afterId -> statsRepository.findArchivableIds(before, afterId, PageRequest.of(0, ArchiveService.BATCH_SIZE)),
+                statsRepository::findAllById,
+                stats -> stats.getDate().isBefore(before),
+                this::convertToDTO,
+                stats -> {
+                    archivedDayRepository.insertIfAbsent(stats.getDate(), stats.getPage().getCode());
+                    statsRepository.delete(stats);
+                });
+        if (archived > 0) {
+            invalidateReads();
+        }
+        return archived;
+    }
+
+    private void invalidateReads() {
+        readCache.invalidate(ChangeFeedService.STATS);
     }
 
-    private StatsCatalogDTO convertToDTO(StatsCatalog stats) {
+    private void requireDayAndPageFree(Long id, LocalDate date, StatsPage page) {
+        StatsCatalog existing = statsRepository.findByDateAndPage(date, page);
+        if (existing != null && !existing.getId().equals(id)) {
+            throw dayAndPageTaken(date, page);
+        }
+        // Checked after the live row, so a day archived in between is recorded by now
+        if (archivedDayRepository.existsByDateAndPage(date, page)) {
+            throw archived(date, page);
+        }
+    }
+
+    private IllegalArgumentException dayAndPageTaken(LocalDate date, StatsPage page) {
+        return new IllegalArgumentException("Statistics for page '" + page + "' on " + date
+                + " already exist, use POST /api/states/ingest to update them");
+    }
+
+    static IllegalArgumentException archived(LocalDate date, StatsPage page) {
+        return new IllegalArgumentException("Statistics for page '" + page + "' on " + date
+                + " are archived and can no longer be changed");
+    }
+
+    private StatsRollupDTO convertToDTO(StatsMonthlyRollup rollup) {
+        StatsRollupDTO dto = new StatsRollupDTO();
+        dto.setMonth(YearMonth.from(rollup.getMonthStart()).toString());
+        dto.setPage(rollup.getPage().getLabel());
+        dto.setDays(rollup.getDays());
+        dto.setTotalViews(rollup.getTotalViews());
+        dto.setAvgSubscribers(rollup.getDays() > 0 ? rollup.getSubscribers() / rollup.getDays() : 0);
+        dto.setInteraction(rollup.getInteraction());
+        return dto;
+    }
+
+    // Package-private, like parseDate, for StatsConversionStressTest and the jmh profile's benchmark
+    StatsCatalogDTO convertToDTO(StatsCatalog stats) {
         StatsCatalogDTO dto = new StatsCatalogDTO();
         dto.setId(stats.getId());
-        dto.setDate(dateFormat.format(stats.getDate()));
-        dto.setTotalViews(String.format("%.0f", stats.getTotalViews()));
-        dto.setSubscribers(String.format("%.0f", stats.getSubscribers()));
-        dto.setInteraction(String.format("%.0f", stats.getInteraction()));
+        dto.setDate(stats.getDate().toString());
+        dto.setTotalViews(NumberText.wholeNumber(stats.getTotalViews()));
+        dto.setSubscribers(NumberText.wholeNumber(stats.getSubscribers()));
+        dto.setInteraction(NumberText.wholeNumber(stats.getInteraction()));
         dto.setContent(stats.getContent() != null ? stats.getContent().getLink() : "Daily analytics");
-        dto.setPage(stats.getPage().toLowerCase().replace("CINE.MITR", "cine.mitr"));
+        dto.setPage(stats.getPage().getLabel());
         return dto;
     }
 
@@ -70,14 +295,21 @@ public class StatsCatalogService {
     }
 
     private void updateEntityFromDTO(StatsCatalog stats, StatsCatalogDTO dto) {
-        try {
-            stats.setDate(dateFormat.parse(dto.getDate()));
-        } catch (ParseException e) {
-            throw new RuntimeException("Invalid date format: " + dto.getDate(), e);
-        }
+        stats.setDate(parseDate(dto.getDate()));
         stats.setTotalViews(Double.parseDouble(dto.getTotalViews()));
         stats.setSubscribers(Double.parseDouble(dto.getSubscribers()));
         stats.setInteraction(Double.parseDouble(dto.getInteraction()));
-        stats.setPage(dto.getPage().toUpperCase());
+        stats.setPage(StatsPage.fromValue(dto.getPage()));
+    }
+
+    static LocalDate parseDate(String date) {
+        if (date == null) {
+            throw new IllegalArgumentException("date is required");
+        }
+        try {
+            return LocalDate.parse(date.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date format: " + date);
+        }
     }
 }
\ No newline at end of file
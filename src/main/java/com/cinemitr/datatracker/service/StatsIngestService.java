@@ -0,0 +1,272 @@
+package com.cinemitr.datatracker.service;
+
+import com.cinemitr.datatracker.dto.BatchResultDTO;
+import com.cinemitr.datatracker.dto.StatsCatalogDTO;
+import com.cinemitr.datatracker.dto.StatsIngestBatchDTO;
+import com.cinemitr.datatracker.dto.StatsIngestDTO;
+import com.cinemitr.datatracker.entity.ContentCatalog;
+import com.cinemitr.datatracker.entity.StatsArchivedDay;
+import com.cinemitr.datatracker.entity.StatsCatalog;
+import com.cinemitr.datatracker.enums.StatsPage;
+import com.cinemitr.datatracker.repository.ContentCatalogRepository;
+import com.cinemitr.datatracker.repository.StatsArchivedDayRepository;
+import com.cinemitr.datatracker.repository.StatsCatalogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Stats ingestion (POST /api/states/ingest): many daily rows upserted on (date, page), the
+ * uq_stats_day_page key, so a day that is reported again is updated instead of failing.
+ *
+ * Rows are checked up front; invalid ones are reported and skipped. The valid rows are written in
+ * batches of {@link #BATCH_SIZE}, each in its own transaction that is run again on a concurrent
+ * change (see {@link ConflictRetry}): one query finds the rows of the batch that exist, the others
+ * are inserted with INSERT IGNORE, and a row another writer inserted in between is updated
+ * instead. A row whose values are already stored is left alone and not reported by the changes
+ * feed. When a day and page appear more than once in a batch, the last row wins. Rows for a day
+ * that was archived are rejected like invalid ones: the archive holds its statistics for good.
+ */
+@Service
+public class StatsIngestService {
+
+    public static final int BATCH_SIZE = 500;
+    public static final int MAX_ROWS = 100000;
+
+    // What the list shows for statistics without content; sent back unchanged by clients
+    private static final String NO_CONTENT = "Daily analytics";
+
+    @Autowired
+    private StatsCatalogRepository statsRepository;
+
+    @Autowired
+    private ContentCatalogRepository contentRepository;
+
+    @Autowired
+    private StatsArchivedDayRepository archivedDayRepository;
+
+    @Autowired
+    private StatsRollupService rollup;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    @Autowired
+    private ChangeSequencer changeSequencer;
+
+    @Autowired
+    private ReadCoalescer readCache;
+
+    public StatsIngestDTO ingest(List<StatsCatalogDTO> rows) {
+        if (rows == null || rows.isEmpty()) {
+            throw new IllegalArgumentException("At least one row is required");
+        }
+        if (rows.size() > MAX_ROWS) {
+            throw new IllegalArgumentException("At most " + MAX_ROWS + " rows per request, got " + rows.size());
+        }
+        StatsIngestDTO result = new StatsIngestDTO();
+        result.setRows(rows.size());
+        List<Row> valid = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            try {
+                valid.add(parse(i, rows.get(i)));
+            } catch (IllegalArgumentException e) {
+                result.getErrors().add(error(i, e));
+            }
+        }
+
+        try {
+            conflictRetry.withOwnEntityManagers(() -> {
+                for (int from = 0; from < valid.size(); from += BATCH_SIZE) {
+                    List<Row> batch = valid.subList(from, Math.min(valid.size(), from + BATCH_SIZE));
+                    List<BatchResultDTO> archived = new ArrayList<>();
+                    StatsIngestBatchDTO counts = conflictRetry.execute(status -> write(batch, archived));
+                    result.getErrors().addAll(archived);
+                    counts.setFirstRow(batch.get(0).index);
+                    counts.setRows(batch.size());
+                    result.getBatches().add(counts);
+                    result.setInserted(result.getInserted() + counts.getInserted());
+                    result.setUpdated(result.getUpdated() + counts.getUpdated());
+                    result.setUnchanged(result.getUnchanged() + counts.getUnchanged());
+                    result.setUnmatchedContent(result.getUnmatchedContent() + counts.getUnmatchedContent());
+                }
+            });
+        } finally {
+            result.getErrors().sort(Comparator.comparingInt(BatchResultDTO::getIndex));
+            result.setRejected(result.getErrors().size());
+            // Also after a failed batch: the batches before it are committed
+            if (result.getInserted() + result.getUpdated() > 0) {
+                readCache.invalidate(ChangeFeedService.STATS);
+            }
+        }
+        return result;
+    }
+
+    // Rows of archived days go to archived, which is refilled when the batch runs again
+    private StatsIngestBatchDTO write(List<Row> batch, List<BatchResultDTO> archived) {
+        StatsIngestBatchDTO counts = new StatsIngestBatchDTO();
+        archived.clear();
+        Map<String, Row> latest = new LinkedHashMap<>();
+        Set<LocalDate> dates = new HashSet<>();
+        Set<StatsPage> pages = EnumSet.noneOf(StatsPage.class);
+        for (Row row : batch) {
+            latest.remove(row.key());
+            latest.put(row.key(), row);
+            dates.add(row.date);
+            pages.add(row.page);
+        }
+        Map<String, StatsCatalog> existing = new HashMap<>();
+        for (StatsCatalog stats : statsRepository.findByDateInAndPageIn(dates, pages)) {
+            existing.put(key(stats.getDate(), stats.getPage()), stats);
+        }
+        // Read after the live rows: a day archived in between is either still live above, where an
+        // update of it fails the version check, or listed here
+        Set<String> archivedDays = new HashSet<>();
+        for (StatsArchivedDay day : archivedDayRepository.findByDateInAndPageIn(dates, pages)) {
+            archivedDays.add(key(day.getDate(), day.getPage()));
+        }
+        Map<String, Optional<ContentCatalog>> contents = new HashMap<>();
+
+        StatsRollupService.Changes changes = new StatsRollupService.Changes();
+        Set<String> inserted = new HashSet<>();
+        for (Row row : latest.values()) {
+            if (archivedDays.contains(row.key())) {
+                archived.add(error(row.index, StatsCatalogService.archived(row.date, row.page)));
+                continue;
+            }
+            ContentCatalog content = null;
+            if (row.contentLink != null) {
+                content = contents.computeIfAbsent(row.contentLink,
+                        link -> Optional.ofNullable(contentRepository.findByNormalizedLink(link))).orElse(null);
+                if (content == null) {
+                    counts.setUnmatchedContent(counts.getUnmatchedContent() + 1);
+                }
+            }
+            StatsCatalog stats = existing.get(row.key());
+            if (stats == null) {
+                if (statsRepository.insertIfAbsent(row.date, row.page.getCode(), row.totalViews, row.subscribers,
+                        row.interaction, content != null ? content.getId() : null) == 1) {
+                    changes.add(new StatsRollupService.Contribution(row.date, row.page, row.totalViews,
+                            row.subscribers, row.interaction));
+                    counts.setInserted(counts.getInserted() + 1);
+                    inserted.add(row.key());
+                    continue;
+                }
+                // Inserted by another request or instance since the lookup above
+                stats = statsRepository.findByDateAndPage(row.date, row.page);
+                if (stats == null) {
+                    // That insert was rolled back after ours was ignored; the batch runs again
+                    throw new OptimisticLockingFailureException("Statistics for page '" + row.page + "' on "
+                            + row.date + " were inserted and rolled back concurrently");
+                }
+            }
+            StatsRollupService.Contribution before = StatsRollupService.contribution(stats);
+            if (update(stats, row, content)) {
+                changes.remove(before);
+                changes.add(StatsRollupService.contribution(stats));
+                counts.setUpdated(counts.getUpdated() + 1);
+            } else {
+                counts.setUnchanged(counts.getUnchanged() + 1);
+            }
+        }
+        if (!inserted.isEmpty()) {
+            // The inserts above bypass the session; their ids are read back for the change feed
+            changeSequencer.touched(StatsCatalog.class, statsRepository.findByDateInAndPageIn(dates, pages).stream()
+                    .filter(stats -> inserted.contains(key(stats.getDate(), stats.getPage())))
+                    .map(StatsCatalog::getId)
+                    .collect(Collectors.toList()));
+        }
+        rollup.apply(changes);
+        return counts;
+    }
+
+    private static BatchResultDTO error(int index, IllegalArgumentException e) {
+        BatchResultDTO error = new BatchResultDTO();
+        error.setIndex(index);
+        error.setStatus("error");
+        error.setError(e.getMessage());
+        return error;
+    }
+
+    // Only differing values are set, so an unchanged row keeps its version and updated_at
+    private static boolean update(StatsCatalog stats, Row row, ContentCatalog content) {
+        boolean changed = false;
+        if (stats.getTotalViews() != row.totalViews) {
+            stats.setTotalViews(row.totalViews);
+            changed = true;
+        }
+        if (stats.getSubscribers() != row.subscribers) {
+            stats.setSubscribers(row.subscribers);
+            changed = true;
+        }
+        if (stats.getInteraction() != row.interaction) {
+            stats.setInteraction(row.interaction);
+            changed = true;
+        }
+        if (content != null && (stats.getContent() == null || !content.getId().equals(stats.getContent().getId()))) {
+            stats.setContent(content);
+            changed = true;
+        }
+        return changed;
+    }
+
+    private static Row parse(int index, StatsCatalogDTO dto) {
+        if (dto == null) {
+            throw new IllegalArgumentException("Row is missing");
+        }
+        Row row = new Row();
+        row.index = index;
+        if (dto.getDate() == null) {
+            throw new IllegalArgumentException("date is required");
+        }
+        try {
+            row.date = LocalDate.parse(dto.getDate().trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date format: " + dto.getDate());
+        }
+        if (dto.getPage() == null || dto.getPage().trim().isEmpty()) {
+            throw new IllegalArgumentException("page is required");
+        }
+        row.page = StatsPage.fromValue(dto.getPage());
+        row.totalViews = number("total_views", dto.getTotalViews());
+        row.subscribers = number("subscribers", dto.getSubscribers());
+        row.interaction = number("interaction", dto.getInteraction());
+        String content = dto.getContent() != null ? dto.getContent().trim() : "";
+        row.contentLink = content.isEmpty() || content.equals(NO_CONTENT) ? null : content;
+        return row;
+    }
+
+    private static double number(String field, String value) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+    }
+
+    private static String key(LocalDate date, StatsPage page) {
+        return date + "|" + page;
+    }
+
+    private static final class Row {
+        private int index;
+        private LocalDate date;
+        private StatsPage page;
+        private double totalViews;
+        private double subscribers;
+        private double interaction;
+        private String contentLink;
+
+        private String key() {
+            return StatsIngestService.key(date, page);
+        }
+    }
+}
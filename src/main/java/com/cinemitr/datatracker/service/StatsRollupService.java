@@ -0,0 +1,134 @@
+package com.cinemitr.datatracker.service;
+
+import com.cinemitr.datatracker.entity.StatsCatalog;
+import com.cinemitr.datatracker.enums.StatsPage;
+import com.cinemitr.datatracker.repository.StatsMonthlyRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps stats_monthly_rollup in step with stats_catalog. Every statistics write reports the rows
+ * it added, changed or removed, and the sums of their months are adjusted by the difference in the
+ * same transaction. The sums are never recomputed from stats_catalog, so days moved to the
+ * archive (see ArchiveService) stay counted.
+ */
+@Service
+public class StatsRollupService {
+
+    @Autowired
+    private StatsMonthlyRollupRepository rollupRepository;
+
+    /**
+     * What a row adds to its month, taken before the row is changed or deleted.
+     */
+    public static Contribution contribution(StatsCatalog stats) {
+        return new Contribution(stats.getDate(), stats.getPage(), stats.getTotalViews(), stats.getSubscribers(),
+                stats.getInteraction());
+    }
+
+    public void added(StatsCatalog stats) {
+        Changes changes = new Changes();
+        changes.add(contribution(stats));
+        apply(changes);
+    }
+
+    public void changed(Contribution before, StatsCatalog after) {
+        Changes changes = new Changes();
+        changes.remove(before);
+        changes.add(contribution(after));
+        apply(changes);
+    }
+
+    public void removed(Contribution before) {
+        Changes changes = new Changes();
+        changes.remove(before);
+        apply(changes);
+    }
+
+    /**
+     * Writes the collected changes, one statement per month and page, in a fixed order so that
+     * concurrent writers lock the rollup rows in the same order.
+     */
+    public void apply(Changes changes) {
+        for (Delta delta : changes.deltas.values()) {
+            if (delta.isEmpty()) {
+                continue;
+            }
+            rollupRepository.add(delta.monthStart, delta.page.getCode(), delta.days, delta.totalViews, delta.subscribers,
+                    delta.interaction);
+            if (delta.days < 0) {
+                rollupRepository.deleteIfEmpty(delta.monthStart, delta.page.getCode());
+            }
+        }
+    }
+
+    static LocalDate monthStart(LocalDate date) {
+        return date.withDayOfMonth(1);
+    }
+
+    public static final class Contribution {
+        private final LocalDate date;
+        private final StatsPage page;
+        private final double totalViews;
+        private final double subscribers;
+        private final double interaction;
+
+        Contribution(LocalDate date, StatsPage page, double totalViews, double subscribers, double interaction) {
+            this.date = date;
+            this.page = page;
+            this.totalViews = totalViews;
+            this.subscribers = subscribers;
+            this.interaction = interaction;
+        }
+    }
+
+    /**
+     * Changes collected over several rows, e.g. an ingestion batch, summed per month and page.
+     */
+    public static final class Changes {
+        private final Map<String, Delta> deltas = new TreeMap<>();
+
+        public void add(Contribution row) {
+            delta(row).add(row, 1);
+        }
+
+        public void remove(Contribution row) {
+            delta(row).add(row, -1);
+        }
+
+        private Delta delta(Contribution row) {
+            LocalDate monthStart = monthStart(row.date);
+            return deltas.computeIfAbsent(monthStart + "|" + row.page, key -> new Delta(monthStart, row.page));
+        }
+    }
+
+    private static final class Delta {
+        private final LocalDate monthStart;
+        private final StatsPage page;
+        private int days;
+        private double totalViews;
+        private double subscribers;
+        private double interaction;
+
+        private Delta(LocalDate monthStart, StatsPage page) {
+            this.monthStart = monthStart;
+            this.page = page;
+        }
+
+        private void add(Contribution row, int sign) {
+            days += sign;
+            totalViews += sign * row.totalViews;
+            subscribers += sign * row.subscribers;
+            interaction += sign * row.interaction;
+        }
+
+        // A row changed and changed back, or a value rewritten as it was
+        private boolean isEmpty() {
+            return days == 0 && totalViews == 0 && subscribers == 0 && interaction == 0;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.cinemitr.datatracker.service;
+
+import com.cinemitr.datatracker.dto.BatchResultDTO;
+import com.cinemitr.datatracker.dto.StatsCatalogDTO;
+import com.cinemitr.datatracker.dto.StatsIngestDTO;
+import com.cinemitr.datatracker.dto.StatsSampleDTO;
+import com.cinemitr.datatracker.dto.StatsSeriesDTO;
+import com.cinemitr.datatracker.dto.StatsSeriesIngestDTO;
+import com.cinemitr.datatracker.entity.StatsSeriesBlock;
+import com.cinemitr.datatracker.enums.SeriesResolution;
+import com.cinemitr.datatracker.enums.StatsPage;
+import com.cinemitr.datatracker.repository.StatsSeriesBlockRepository;
+import com.cinemitr.datatracker.util.SeriesBlock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Sub-daily statistics: hourly or minutely samples of a page's total views, subscribers and
+ * interaction, stored as one packed {@link SeriesBlock} per page, resolution and day rather than
+ * a row per sample.
+ *
+ * Ingestion groups the samples by block and rewrites each block it touches once, up to
+ * {@link #BATCH_BLOCKS} blocks per transaction, run again on a concurrent change (see
+ * {@link ConflictRetry}). A sample for a slot that already holds one replaces it; within a
+ * request the last sample for a slot wins. Samples do not change the daily statistics until they
+ * are downsampled into them.
+ */
+@Service
+public class StatsSeriesService {
+
+    public static final int BATCH_BLOCKS = 100;
+    public static final int MAX_SAMPLES = 100000;
+    // Longest range a query or downsampling covers, per resolution
+    private static final int MAX_HOUR_DAYS = 366;
+    private static final int MAX_MINUTE_DAYS = 31;
+
+    @Autowired
+    private StatsSeriesBlockRepository blockRepository;
+
+    @Autowired
+    private StatsIngestService statsIngestService;
+
+    @Autowired
+    private ConflictRetry conflictRetry;
+
+    public StatsSeriesIngestDTO ingest(String resolutionValue, List<StatsSampleDTO> samples) {
+        SeriesResolution resolution = SeriesResolution.fromValue(resolutionValue);
+        if (samples == null || samples.isEmpty()) {
+            throw new IllegalArgumentException("At least one sample is required");
+        }
+        if (samples.size() > MAX_SAMPLES) {
+            throw new IllegalArgumentException("At most " + MAX_SAMPLES + " samples per request, got " + samples.size());
+        }
+        StatsSeriesIngestDTO result = new StatsSeriesIngestDTO();
+        result.setSamples(samples.size());
+        // Page, then day, then the day's samples in request order
+        Map<StatsPage, TreeMap<LocalDate, List<Sample>>> byBlock = new EnumMap<>(StatsPage.class);
+        for (int i = 0; i < samples.size(); i++) {
+            try {
+                Sample sample = parse(samples.get(i), resolution);
+                byBlock.computeIfAbsent(sample.page, page -> new TreeMap<>())
+                        .computeIfAbsent(sample.day, day -> new ArrayList<>()).add(sample);
+            } catch (IllegalArgumentException e) {
+                BatchResultDTO error = new BatchResultDTO();
+                error.setIndex(i);
+                error.setStatus("error");
+                error.setError(e.getMessage());
+                result.getErrors().add(error);
+            }
+        }
+        result.setRejected(result.getErrors().size());
+
+        conflictRetry.withOwnEntityManagers(() -> {
+            for (Map.Entry<StatsPage, TreeMap<LocalDate, List<Sample>>> page : byBlock.entrySet()) {
+                List<LocalDate> days = new ArrayList<>(page.getValue().keySet());
+                for (int from = 0; from < days.size(); from += BATCH_BLOCKS) {
+                    Map<LocalDate, List<Sample>> batch = page.getValue().subMap(days.get(from), true,
+                            days.get(Math.min(days.size(), from + BATCH_BLOCKS) - 1), true);
+                    int[] counts = conflictRetry.execute(status -> write(page.getKey(), resolution, batch));
+                    result.setWritten(result.getWritten() + counts[0]);
+                    result.setUnchanged(result.getUnchanged() + counts[1]);
+                    result.setBlocks(result.getBlocks() + counts[2]);
+                }
+            }
+        });
+        return result;
+    }
+
+    // Returns the written and unchanged samples and the rewritten blocks
+    private int[] write(StatsPage page, SeriesResolution resolution, Map<LocalDate, List<Sample>> batch) {
+        int step = resolution.getStepSeconds();
+        Map<LocalDate, StatsSeriesBlock> blocks = blocksOn(page, step, batch.keySet());
+        if (blocks.size() < batch.size()) {
+            byte[] empty = new SeriesBlock(resolution.getSlots()).encode();
+            List<LocalDate> missing = new ArrayList<>();
+            for (LocalDate day : batch.keySet()) {
+                if (!blocks.containsKey(day)) {
+                    // Another writer may have created the block since the lookup; either way it exists after this
+                    blockRepository.insertIfAbsent(page.getCode(), step, day, empty);
+                    missing.add(day);
+                }
+            }
+            blocks.putAll(blocksOn(page, step, missing));
+        }
+
+        int[] counts = new int[3];
+        for (Map.Entry<LocalDate, List<Sample>> day : batch.entrySet()) {
+            StatsSeriesBlock entity = blocks.get(day.getKey());
+            if (entity == null) {
+                // The insert we deferred to was rolled back; the batch runs again
+                throw new OptimisticLockingFailureException("The " + resolution + "ly block of page '" + page + "' on "
+                        + day.getKey() + " was inserted and rolled back concurrently");
+            }
+            SeriesBlock block = SeriesBlock.decode(entity.getPayload(), resolution.getSlots());
+            int written = 0;
+            for (Sample sample : day.getValue()) {
+                if (block.put(sample.slot, sample.totalViews, sample.subscribers, sample.interaction)) {
+                    written++;
+                }
+            }
+            counts[0] += written;
+            counts[1] += day.getValue().size() - written;
+            if (written > 0) {
+                entity.setPayload(block.encode());
+                entity.setSamples(block.samples());
+                counts[2]++;
+            }
+        }
+        return counts;
+    }
+
+    private Map<LocalDate, StatsSeriesBlock> blocksOn(StatsPage page, int step, Collection<LocalDate> days) {
+        Map<LocalDate, StatsSeriesBlock> blocks = new HashMap<>();
+        for (StatsSeriesBlock block : blockRepository.findBlocksOn(page, step, days)) {
+            blocks.put(block.getBlockDate(), block);
+        }
+        return blocks;
+    }
+
+    /**
+     * The samples of a page on the days from and to (inclusive), oldest first.
+     */
+    public StatsSeriesDTO getSeries(String pageValue, String fromValue, String toValue, String resolutionValue) {
+        SeriesResolution resolution = SeriesResolution.fromValue(resolutionValue);
+        StatsPage page = StatsPage.fromValue(pageValue);
+        LocalDate to = toValue != null ? parseDay(toValue) : LocalDate.now();
+        LocalDate from = fromValue != null ? parseDay(fromValue) : to;
+        checkRange(from, to, resolution);
+
+        List<StatsSeriesBlock> blocks = blockRepository.findBlocks(page, resolution.getStepSeconds(), from, to);
+        int total = 0;
+        for (StatsSeriesBlock block : blocks) {
+            total += block.getSamples();
+        }
+        List<String> timestamps = new ArrayList<>(total);
+        double[] totalViews = new double[total];
+        double[] subscribers = new double[total];
+        double[] interaction = new double[total];
+        int i = 0;
+        for (StatsSeriesBlock entity : blocks) {
+            LocalDateTime midnight = entity.getBlockDate().atStartOfDay();
+            SeriesBlock block = SeriesBlock.decode(entity.getPayload(), resolution.getSlots());
+            for (int slot = block.next(0); slot >= 0 && i < total; slot = next(block, slot)) {
+                timestamps.add(midnight.plusSeconds((long) slot * resolution.getStepSeconds()).toString());
+                totalViews[i] = block.get(SeriesBlock.TOTAL_VIEWS, slot);
+                subscribers[i] = block.get(SeriesBlock.SUBSCRIBERS, slot);
+                interaction[i] = block.get(SeriesBlock.INTERACTION, slot);
+                i++;
+            }
+        }
+
+        StatsSeriesDTO dto = new StatsSeriesDTO();
+        dto.setPage(page.getLabel());
+        dto.setResolution(resolution.getValue());
+        dto.setFrom(from.toString());
+        dto.setTo(to.toString());
+        dto.setTimestamps(timestamps);
+        dto.setTotalViews(totalViews);
+        dto.setSubscribers(subscribers);
+        dto.setInteraction(interaction);
+        return dto;
+    }
+
+    /**
+     * Writes a daily statistics row for every day from and to (inclusive) that has samples of the
+     * page, through the stats ingestion upsert: total views and interaction are the sums of the
+     * day's samples, subscribers the day's last sample.
+     */
+    public StatsIngestDTO downsample(String pageValue, String fromValue, String toValue, String resolutionValue) {
+        SeriesResolution resolution = SeriesResolution.fromValue(resolutionValue);
+        StatsPage page = StatsPage.fromValue(pageValue);
+        if (fromValue == null || toValue == null) {
+            throw new IllegalArgumentException("from and to are required");
+        }
+        LocalDate from = parseDay(fromValue);
+        LocalDate to = parseDay(toValue);
+        checkRange(from, to, resolution);
+
+        List<StatsCatalogDTO> rows = new ArrayList<>();
+        for (StatsSeriesBlock entity : blockRepository.findBlocks(page, resolution.getStepSeconds(), from, to)) {
+            SeriesBlock block = SeriesBlock.decode(entity.getPayload(), resolution.getSlots());
+            double totalViews = 0;
+            double interaction = 0;
+            int last = -1;
+            for (int slot = block.next(0); slot >= 0; slot = next(block, slot)) {
+                totalViews += block.get(SeriesBlock.TOTAL_VIEWS, slot);
+                interaction += block.get(SeriesBlock.INTERACTION, slot);
+                last = slot;
+            }
+            if (last < 0) {
+                continue;
+            }
+            rows.add(new StatsCatalogDTO(entity.getBlockDate().toString(),
+                    Double.toString(totalViews), Double.toString(block.get(SeriesBlock.SUBSCRIBERS, last)),
+                    Double.toString(interaction), null, page.getValue()));
+        }
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("No " + resolution + "ly samples for page '" + page + "' from "
+                    + from + " to " + to);
+        }
+        return statsIngestService.ingest(rows);
+    }
+
+    private static int next(SeriesBlock block, int slot) {
+        return slot + 1 < block.slots() ? block.next(slot + 1) : -1;
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to, SeriesResolution resolution) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        int maxDays = resolution == SeriesResolution.MINUTE ? MAX_MINUTE_DAYS : MAX_HOUR_DAYS;
+        if (from.plusDays(maxDays - 1).isBefore(to)) {
+            throw new IllegalArgumentException("At most " + maxDays + " days of " + resolution + "ly samples per request");
+        }
+    }
+
+    private static Sample parse(StatsSampleDTO dto, SeriesResolution resolution) {
+        if (dto == null) {
+            throw new IllegalArgumentException("Sample is missing");
+        }
+        if (dto.getTimestamp() == null) {
+            throw new IllegalArgumentException("timestamp is required");
+        }
+        LocalDateTime timestamp;
+        try {
+            timestamp = LocalDateTime.parse(dto.getTimestamp().trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid timestamp format: " + dto.getTimestamp());
+        }
+        int secondOfDay = timestamp.toLocalTime().toSecondOfDay();
+        if (timestamp.getNano() != 0 || secondOfDay % resolution.getStepSeconds() != 0) {
+            throw new IllegalArgumentException("timestamp " + dto.getTimestamp() + " is not on the " + resolution);
+        }
+        Sample sample = new Sample();
+        sample.page = StatsPage.fromValue(dto.getPage());
+        sample.day = timestamp.toLocalDate();
+        sample.slot = secondOfDay / resolution.getStepSeconds();
+        sample.totalViews = number("total_views", dto.getTotalViews());
+        sample.subscribers = number("subscribers", dto.getSubscribers());
+        sample.interaction = number("interaction", dto.getInteraction());
+        return sample;
+    }
+
+    private static LocalDate parseDay(String value) {
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date format: " + value + ", expected yyyy-MM-dd");
+        }
+    }
+
+    private static double number(String field, String value) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        double number;
+        try {
+            number = Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+        if (!SeriesBlock.storable(number)) {
+            throw new IllegalArgumentException(field + " out of range: " + value);
+        }
+        return number;
+    }
+
+    private static final class Sample {
+        private StatsPage page;
+        private LocalDate day;
+        private int slot;
+        private double totalViews;
+        private double subscribers;
+        private double interaction;
+    }
+}
@@ -0,0 +1,187 @@
+package com.cinemitr.datatracker.service;
+
+import com.cinemitr.datatracker.dto.PipelineAnalyticsDTO;
+import com.cinemitr.datatracker.dto.StageStatsDTO;
+import com.cinemitr.datatracker.entity.StatusTransition;
+import com.cinemitr.datatracker.repository.StatusTransitionRepository;
+import com.cinemitr.datatracker.util.DurationHistogram;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Status history of content and uploads: an append-only log with one row per status change, and
+ * funnel analytics computed from it.
+ *
+ * The analytics stream the log in entity order and keep only the previous transition, per-stage
+ * counters and a fixed-size dwell-time histogram per status, so memory does not grow with the log.
+ * A stay counts towards a status's dwell times when it ended within the window; stays still open
+ * are not sampled.
+ */
+@Service
+public class StatusHistoryService {
+
+    private static final int DEFAULT_DAYS = 30;
+    private static final int MAX_DAYS = 366;
+
+    @Autowired
+    private StatusTransitionRepository transitionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ArchiveService archive;
+
+    /**
+     * Logs a status change; nothing is logged when the status stays the same. A null fromStatus
+     * marks the status a row was created with.
+     */
+    public void record(String entityType, Long entityId, String fromStatus, String toStatus) {
+        if (toStatus == null || toStatus.equals(fromStatus)) {
+            return;
+        }
+        transitionRepository.save(new StatusTransition(entityType, entityId, fromStatus, toStatus));
+    }
+
+    /**
+     * Per-status counts, daily throughput and p50/p95 dwell times for the days from..to (yyyy-MM-dd,
+     * both included, server time zone). Defaults to the last 30 days.
+     *
+     * @param currentCounts   (status, row count) pairs of the entity's table, for the current stage sizes; a status
+     *                        counts as its string value
+     * @param includeArchived whether archived rows and their history count as well (see ArchiveService)
+     */
+    public PipelineAnalyticsDTO analytics(String entityType, String from, String to, List<Object[]> currentCounts,
+                                          boolean includeArchived) {
+        LocalDate toDate = to != null ? parseDate(to) : LocalDate.now();
+        LocalDate fromDate = from != null ? parseDate(from) : toDate.minusDays(DEFAULT_DAYS - 1);
+        if (fromDate.isAfter(toDate)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(fromDate, toDate) >= MAX_DAYS) {
+            throw new IllegalArgumentException("The window can span at most " + MAX_DAYS + " days");
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        Date windowStart = Date.from(fromDate.atStartOfDay(zone).toInstant());
+        Date windowEnd = Date.from(toDate.plusDays(1).atStartOfDay(zone).toInstant());
+
+        PipelineAnalyticsDTO result = new PipelineAnalyticsDTO();
+        result.setEntityType(entityType);
+        result.setFrom(fromDate.toString());
+        result.setTo(toDate.toString());
+        Map<String, Map<String, Long>> throughput = result.getThroughput();
+        for (LocalDate day = fromDate; !day.isAfter(toDate); day = day.plusDays(1)) {
+            throughput.put(day.toString(), new TreeMap<>());
+        }
+
+        Map<String, Stage> stages = new TreeMap<>();
+        for (Object[] count : currentCounts) {
+            stage(stages, count[0].toString()).current = ((Number) count[1]).longValue();
+        }
+
+        Funnel funnel = new Funnel(stages, throughput, windowStart, zone);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<Object[]> transitions = transitionRepository.streamTransitions(entityType, windowEnd)) {
+                Iterator<Object[]> rows = transitions.iterator();
+                while (rows.hasNext()) {
+                    Object[] row = rows.next();
+                    funnel.add((Long) row[0], (String) row[1], (Date) row[2]);
+                }
+            }
+        });
+        if (includeArchived) {
+            // Archived rows keep their history; their ids never appear in the live log
+            archive.forEach(entityType, line -> {
+                JsonNode data = line.get("data");
+                stage(stages, data.get("status").asText()).current++;
+                for (JsonNode transition : line.path("history")) {
+                    Date changedAt = new Date(transition.get("changed_at").asLong());
+                    if (changedAt.before(windowEnd)) {
+                        funnel.add(data.get("id").asLong(), transition.get("to_status").asText(), changedAt);
+                    }
+                }
+            });
+        }
+
+        for (Map.Entry<String, Stage> entry : stages.entrySet()) {
+            Stage stage = entry.getValue();
+            StageStatsDTO stats = new StageStatsDTO(entry.getKey());
+            stats.setCurrent(stage.current);
+            stats.setEntered(stage.entered);
+            stats.setExited(stage.exited);
+            stats.setDwellP50Seconds(stage.dwell.percentile(0.5));
+            stats.setDwellP95Seconds(stage.dwell.percentile(0.95));
+            result.getStages().add(stats);
+        }
+        return result;
+    }
+
+    private static LocalDate parseDate(String date) {
+        try {
+            return LocalDate.parse(date.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date format: " + date + ", expected yyyy-MM-dd");
+        }
+    }
+
+    private static Stage stage(Map<String, Stage> stages, String status) {
+        return stages.computeIfAbsent(status, s -> new Stage());
+    }
+
+    /**
+     * Feeds transitions, each entity's together in log order, into the stage counters and the
+     * throughput of the window.
+     */
+    private static final class Funnel {
+        private final Map<String, Stage> stages;
+        private final Map<String, Map<String, Long>> throughput;
+        private final Date windowStart;
+        private final ZoneId zone;
+        private Long previousId;
+        private String previousStatus;
+        private Date previousAt;
+
+        private Funnel(Map<String, Stage> stages, Map<String, Map<String, Long>> throughput, Date windowStart, ZoneId zone) {
+            this.stages = stages;
+            this.throughput = throughput;
+            this.windowStart = windowStart;
+            this.zone = zone;
+        }
+
+        private void add(Long entityId, String toStatus, Date changedAt) {
+            if (!changedAt.before(windowStart)) {
+                if (entityId.equals(previousId)) {
+                    // The previous status was left here: one finished stay
+                    Stage left = stage(stages, previousStatus);
+                    left.exited++;
+                    left.dwell.add((changedAt.getTime() - previousAt.getTime()) / 1000);
+                }
+                stage(stages, toStatus).entered++;
+                String day = changedAt.toInstant().atZone(zone).toLocalDate().toString();
+                throughput.get(day).merge(toStatus, 1L, Long::sum);
+            }
+            previousId = entityId;
+            previousStatus = toStatus;
+            previousAt = changedAt;
+        }
+    }
+
+    private static final class Stage {
+        private long current;
+        private long entered;
+        private long exited;
+        private final DurationHistogram dwell = new DurationHistogram();
+    }
+}
@@ -1,29 +1,59 @@
 package com.cinemitr.datatracker.service;
 
+import com.cinemitr.datatracker.dto.ChangesDTO;
+import com.cinemitr.datatracker.dto.MultiGetDTO;
+import com.cinemitr.datatracker.dto.PipelineAnalyticsDTO;
 import com.cinemitr.datatracker.dto.UploadCatalogDTO;
+import com.cinemitr.datatracker.dto.UploadViewCheckDTO;
 import com.cinemitr.datatracker.entity.ContentCatalog;
 import com.cinemitr.datatracker.entity.MediaCatalog;
 import com.cinemitr.datatracker.entity.MetadataStatus;
 import com.cinemitr.datatracker.entity.UploadCatalog;
+import com.cinemitr.datatracker.entity.UploadView;
+import com.cinemitr.datatracker.enums.ContentPriority;
+import com.cinemitr.datatracker.enums.ContentStatus;
+import com.cinemitr.datatracker.enums.LocalStatus;
 import com.cinemitr.datatracker.enums.PathCategory;
+import com.cinemitr.datatracker.enums.UploadStatus;
 import com.cinemitr.datatracker.repository.ContentCatalogRepository;
-import com.cinemitr.datatracker.repository.MediaCatalogRepository;
 import com.cinemitr.datatracker.repository.MetadataStatusRepository;
 import com.cinemitr.datatracker.repository.UploadCatalogRepository;
+import com.cinemitr.datatracker.util.LinkNormalizer;
+import com.cinemitr.datatracker.util.MergePatch;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class UploadCatalogService {
     
+    // Final pipeline statuses; uploads in them become archivable
+    private static final Set<UploadStatus> ARCHIVED_STATUSES = EnumSet.of(UploadStatus.UPLOADED, UploadStatus.COMPLETED);
+
+    // Fields for ?fields= on the list endpoint, formatted like convertToDTO
+    private static final ProjectionService.Projection PROJECTION = new ProjectionService.Projection("UploadCatalog", "u")
+            .column("source_link", "c.link", "LEFT JOIN u.sourceLink c", value -> value != null ? value : "")
+            .column("source_data", "d.metaData", "LEFT JOIN u.sourceData d", value -> value != null ? value : "")
+            .column("status", "u.status", null, Object::toString)
+            .column("media_data", "u.mediaFormat", null, value -> value != null ? value : "")
+            .column("metadata", "u.metadata", null, value -> value != null ? value : "")
+            .mediaList("mediaList");
+
     @Autowired
     private UploadCatalogRepository uploadRepository;
     
     @Autowired
-    private MediaCatalogRepository mediaRepository;
+    private MediaCatalogService mediaService;
     
     @Autowired
     private MetadataStatusRepository metadataStatusRepository;
@@ -31,10 +61,79 @@ public class UploadCatalogService {
     @Autowired
     private ContentCatalogRepository contentRepository;
 
-    public List<UploadCatalogDTO> getAllUploads() {
-        return uploadRepository.findAll().stream()
+    @Autowired
+    private ExistenceFilterService existenceFilter;
+
+    @Autowired
+    private ChangeFeedService changeFeed;
+
+    @Autowired
+    private ChangeSequencer changeSequencer;
+
+    @Autowired
+    private MultiGetService multiGet;
+
+    @Autowired
+    private ProjectionService projections;
+
+    @Autowired
+    private NdjsonExportService ndjsonExport;
+
+    @Autowired
+    private ReadCoalescer readCache;
+
+    @Autowired
+    private StatusHistoryService statusHistory;
+
+    @Autowired
+    private UploadViewService uploadView;
+
+    @Autowired
+    private ArchiveService archive;
+
+    @Value("${datatracker.archive.upload-after-days:365}")
+    private int archiveAfterDays;
+
+    public List<UploadCatalogDTO> getAllUploads(boolean includeArchived) {
+        if (includeArchived) {
+            return readCache.get(ChangeFeedService.UPLOAD, "list:archived", () -> {
+                List<UploadCatalogDTO> uploads = new ArrayList<>(getAllUploads(false));
+                uploads.addAll(archive.list(ChangeFeedService.UPLOAD, UploadCatalogDTO.class));
+                uploads.sort(Comparator.comparing(UploadCatalogDTO::getId));
+                return uploads;
+            });
+        }
+        return readCache.get(ChangeFeedService.UPLOAD, "list", () -> uploadView.list().stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList()));
+    }
+
+    // Status is matched ignoring case; read from upload_view on idx_upload_view_status
+    public List<UploadCatalogDTO> getUploadsByStatus(String status) {
+        UploadStatus wanted = UploadStatus.fromValue(status);
+        return readCache.get(ChangeFeedService.UPLOAD, "status:" + wanted.getValue(), () -> uploadView.listByStatus(wanted).stream()
                 .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
+    }
+
+    public List<Map<String, Object>> getAllUploads(String fields, boolean includeArchived) {
+        String key = (includeArchived ? "fields:archived:" : "fields:") + ProjectionService.fieldsKey(fields);
+        return readCache.get(ChangeFeedService.UPLOAD, key, () -> {
+            List<Map<String, Object>> rows = projections.list(PROJECTION, fields);
+            if (includeArchived) {
+                rows.addAll(projections.select(PROJECTION, fields, archive.rows(ChangeFeedService.UPLOAD)));
+                rows.sort(Comparator.comparing(row -> (Long) row.get("id")));
+            }
+            return rows;
+        });
+    }
+
+    public long countUploads() {
+        return readCache.get(ChangeFeedService.UPLOAD, "count", uploadRepository::count);
+    }
+
+    public StreamingResponseBody streamAllUploads() {
+        return ndjsonExport.stream(uploadRepository::streamAll, this::convertToDTO);
     }
 
     public Optional<UploadCatalogDTO> getUploadById(Long id) {
@@ -42,23 +141,32 @@ public class UploadCatalogService {
                 .map(this::convertToDTO);
     }
 
+    @Transactional(readOnly = true)
+    public MultiGetDTO<UploadCatalogDTO> getUploadsByIds(List<Long> ids) {
+        return multiGet.getByIds(ids, uploadRepository::findAllWithDetailsByIdIn, this::convertToDTO);
+    }
+
     public UploadCatalog saveUploadEntity(UploadCatalog upload) {
-        return uploadRepository.save(upload);
+        UploadCatalog savedUpload = uploadRepository.save(upload);
+        statusHistory.record(ChangeFeedService.UPLOAD, savedUpload.getId(), null, savedUpload.getStatus().getValue());
+        uploadView.refresh(savedUpload.getId());
+        invalidateReads();
+        return savedUpload;
     }
 
     public UploadCatalogDTO saveUpload(UploadCatalogDTO uploadDTO) {
         UploadCatalog upload = new UploadCatalog();
         
         // Set required fields with proper null handling - allow empty strings
-        upload.setStatus(uploadDTO.getStatus() != null ? uploadDTO.getStatus() : "pending");
+        upload.setStatus(status(uploadDTO.getStatus()));
         upload.setMediaFormat(uploadDTO.getMediaData()); // Allow null/empty media format
         upload.setMetadata(uploadDTO.getMetadata()); // Allow null/empty metadata
         
         // Handle source link - check if it matches content table or create new content entry
         String sourceLink = uploadDTO.getSourceLink();
         if (sourceLink != null && !sourceLink.trim().isEmpty()) {
-            // Try to find matching content by link
-            ContentCatalog matchingContent = contentRepository.findByLink(sourceLink.trim());
+            // Try to find matching content by link (same link after normalization)
+            ContentCatalog matchingContent = findContentByLink(sourceLink.trim());
             if (matchingContent != null) {
                 upload.setSourceLink(matchingContent); // Map to existing content
             } else {
@@ -102,13 +210,16 @@ public class UploadCatalogService {
             
             // Process each unique media name
             for (String uniqueMediaName : uniqueMediaNames) {
-                MediaCatalog media = findOrCreateMediaByName(uniqueMediaName, uploadDTO.getMediaType());
+                MediaCatalog media = mediaService.findOrCreateMedia(uniqueMediaName, uploadDTO.getMediaType());
                 mediaSet.add(media);
             }
         }
         
         upload.setMediaList(mediaSet);
         UploadCatalog savedUpload = uploadRepository.save(upload);
+        statusHistory.record(ChangeFeedService.UPLOAD, savedUpload.getId(), null, savedUpload.getStatus().getValue());
+        uploadView.refresh(savedUpload.getId());
+        invalidateReads();
         return convertToDTO(savedUpload);
     }
 
@@ -116,48 +227,166 @@ public class UploadCatalogService {
         UploadCatalog upload = uploadRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Upload not found with id: " + id));
         
+        UploadStatus previousStatus = upload.getStatus();
         updateEntityFromDTO(upload, uploadDTO);
+        // Replacing only the media list does not dirty the row itself, but the change feed must still see it
+        upload.setUpdatedAt(new Date());
         UploadCatalog updatedUpload = uploadRepository.save(upload);
+        statusHistory.record(ChangeFeedService.UPLOAD, id, previousStatus.getValue(), updatedUpload.getStatus().getValue());
+        uploadView.refresh(id);
+        invalidateReads();
         return convertToDTO(updatedUpload);
     }
 
+    /**
+     * Applies a JSON merge patch: only the fields present are changed. The source link is only
+     * resolved again when it changes, the source data row is left alone unless its text changes,
+     * and the media list is diffed instead of rebuilt.
+     */
+    @Transactional
+    public UploadCatalogDTO patchUpload(Long id, JsonNode body) {
+        MergePatch patch = new MergePatch(body, "source_link", "source_data", "status", "media_data",
+                "metadata", "media_name", "media_type");
+        UploadCatalog upload = uploadRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Upload not found with id: " + id));
+
+        if (patch.has("status")) {
+            UploadStatus status = UploadStatus.fromValue(patch.requiredText("status"));
+            statusHistory.record(ChangeFeedService.UPLOAD, id, upload.getStatus().getValue(), status.getValue());
+            upload.setStatus(status);
+        }
+        if (patch.has("media_data")) {
+            upload.setMediaFormat(patch.text("media_data"));
+        }
+        if (patch.has("metadata")) {
+            upload.setMetadata(patch.text("metadata"));
+        }
+        if (patch.has("source_link")) {
+            String sourceLink = patch.text("source_link");
+            if (sourceLink == null || sourceLink.trim().isEmpty()) {
+                upload.setSourceLink(null);
+            } else if (upload.getSourceLink() == null || !LinkNormalizer.sameLink(sourceLink.trim(), upload.getSourceLink().getLink())) {
+                ContentCatalog matchingContent = findContentByLink(sourceLink.trim());
+                upload.setSourceLink(matchingContent != null ? matchingContent
+                        : createContentFromUpload(sourceLink.trim(), patchedMediaDTO(upload, patch)));
+            }
+        }
+        if (patch.has("source_data")) {
+            String sourceDataValue = patch.text("source_data") != null ? patch.text("source_data") : "";
+            MetadataStatus sourceDataMeta = upload.getSourceData();
+            if (sourceDataMeta == null) {
+                sourceDataMeta = new MetadataStatus();
+                sourceDataMeta.setPath("");
+                sourceDataMeta.setPathCategory(PathCategory.UPLOADED_FILE);
+                sourceDataMeta.setIsAvailable(true);
+                sourceDataMeta.setMetaData(sourceDataValue);
+                upload.setSourceData(metadataStatusRepository.save(sourceDataMeta));
+            } else if (!sourceDataValue.equals(sourceDataMeta.getMetaData())) {
+                sourceDataMeta.setMetaData(sourceDataValue);
+            }
+        }
+        if (mediaService.patchMediaList(upload.getMediaList(), patch)) {
+            // A media-only change does not dirty the row itself, but the change feed must still see it
+            upload.setUpdatedAt(new Date());
+        }
+        uploadView.refresh(id);
+        invalidateReads();
+        return convertToDTO(upload);
+    }
+
+    // Media names/type for content auto-created by a patched source link: the patched values, else the upload's own
+    private UploadCatalogDTO patchedMediaDTO(UploadCatalog upload, MergePatch patch) {
+        UploadCatalogDTO current = convertToDTO(upload);
+        if (patch.has("media_name")) {
+            current.setMediaName(patch.text("media_name"));
+        }
+        if (patch.has("media_type")) {
+            current.setMediaType(patch.text("media_type"));
+        }
+        return current;
+    }
+
+    @Transactional
     public void deleteUpload(Long id) {
         uploadRepository.deleteById(id);
+        changeFeed.recordDeletion(ChangeFeedService.UPLOAD, id);
+        uploadView.refresh(id);
+        invalidateReads();
     }
 
+    public ChangesDTO<UploadCatalogDTO> getUploadChanges(String since, int limit) {
+        return changeFeed.changesSince(ChangeFeedService.UPLOAD, since, limit, uploadRepository::findChangedSince, this::convertToDTO);
+    }
+
+    public PipelineAnalyticsDTO getUploadAnalytics(String from, String to, boolean includeArchived) {
+        return statusHistory.analytics(ChangeFeedService.UPLOAD, from, to, uploadRepository.countByStatus(), includeArchived);
+    }
+
+    /**
+     * Moves uploads that finished the pipeline (uploaded or completed) and were not changed for
+     * datatracker.archive.upload-after-days into the archive.
+     *
+     * @return the number of uploads archived
+     */
+    public long archiveUploads() {
+        Date before = Date.from(Instant.now().minus(archiveAfterDays, ChronoUnit.DAYS));
+        long archived = archive.archive(ChangeFeedService.UPLOAD,
+                afterId -> uploadRepository.findArchivableIds(ARCHIVED_STATUSES, before, afterId,
+                        PageRequest.of(0, ArchiveService.BATCH_SIZE)),
+                uploadRepository::findAllWithDetailsByIdIn,
+                upload -> ARCHIVED_STATUSES.contains(upload.getStatus())
+                        && upload.getUpdatedAt() != null && upload.getUpdatedAt().before(before),
+                this::convertToDTO,
+                upload -> {
+                    uploadRepository.delete(upload);
+                    uploadView.refresh(upload.getId());
+                });
+        if (archived > 0) {
+            invalidateReads();
+        }
+        return archived;
+    }
+
+    public UploadViewCheckDTO checkUploadView() {
+        return uploadView.check();
+    }
+
+    public long rebuildUploadView() {
+        return uploadView.rebuild();
+    }
+
+    // Upload writes may create content and media
+    private void invalidateReads() {
+        readCache.invalidate(ChangeFeedService.MEDIA, ChangeFeedService.CONTENT, ChangeFeedService.UPLOAD);
+    }
+
+    // Goes through the view row, so the list (read from upload_view) and every other read show the same values
     private UploadCatalogDTO convertToDTO(UploadCatalog upload) {
+        return convertToDTO(uploadView.toRow(upload));
+    }
+
+    private UploadCatalogDTO convertToDTO(UploadView row) {
         UploadCatalogDTO dto = new UploadCatalogDTO();
-        dto.setId(upload.getId());
-        dto.setSourceLink(upload.getSourceLink() != null ? upload.getSourceLink().getLink() : "");
-        dto.setSourceData(upload.getSourceData() != null ? upload.getSourceData().getMetaData() : "");
-        dto.setStatus(upload.getStatus());
-        dto.setMediaData(upload.getMediaFormat() != null ? upload.getMediaFormat() : "");
-        dto.setMetadata(upload.getMetadata() != null ? upload.getMetadata() : "");
-        
-        // Handle multiple media similar to ContentCatalogService
-        if (upload.getMediaList() != null && !upload.getMediaList().isEmpty()) {
-            List<String> mediaNames = upload.getMediaList().stream()
-                    .map(MediaCatalog::getMediaName)
-                    .collect(Collectors.toList());
-            
-            dto.setMediaNamesList(mediaNames);
-            dto.setMediaName(String.join(", ", mediaNames));
-            
-            // For media type, use the first media's type or default
-            String mediaType = upload.getMediaList().stream()
-                    .findFirst()
-                    .map(MediaCatalog::getMediaType)
-                    .orElse("");
-            dto.setMediaType(mediaType);
-        } else {
-            dto.setMediaType("");
-            dto.setMediaName("");
-            dto.setMediaNamesList(new ArrayList<>());
-        }
-        
+        dto.setId(row.getUploadId());
+        dto.setSourceLink(row.getSourceLink());
+        dto.setSourceData(row.getSourceData());
+        dto.setStatus(row.getStatus().getValue());
+        dto.setMediaData(row.getMediaData());
+        dto.setMetadata(row.getMetadata());
+
+        List<String> mediaNames = row.getMediaNames().isEmpty() ? new ArrayList<>()
+                : new ArrayList<>(Arrays.asList(row.getMediaNames().split("\n")));
+        dto.setMediaNamesList(mediaNames);
+        dto.setMediaName(String.join(", ", mediaNames));
+        dto.setMediaType(row.getMediaType());
         return dto;
     }
 
+    // Uploads without a status start as pending
+    private static UploadStatus status(String value) {
+        return value != null ? UploadStatus.fromValue(value) : UploadStatus.PENDING;
+    }
+
     private UploadCatalog convertToEntity(UploadCatalogDTO dto) {
         UploadCatalog upload = new UploadCatalog();
         updateEntityFromDTO(upload, dto);
@@ -165,15 +394,15 @@ public class UploadCatalogService {
     }
 
     private void updateEntityFromDTO(UploadCatalog upload, UploadCatalogDTO dto) {
-        upload.setStatus(dto.getStatus() != null ? dto.getStatus() : "pending");
+        upload.setStatus(status(dto.getStatus()));
         upload.setMediaFormat(dto.getMediaData()); // Allow null/empty media format
         upload.setMetadata(dto.getMetadata()); // Allow null/empty metadata
         
         // Handle source link - check if it matches content table or create new content entry
         String sourceLink = dto.getSourceLink();
         if (sourceLink != null && !sourceLink.trim().isEmpty()) {
-            // Try to find matching content by link
-            ContentCatalog matchingContent = contentRepository.findByLink(sourceLink.trim());
+            // Try to find matching content by link (same link after normalization)
+            ContentCatalog matchingContent = findContentByLink(sourceLink.trim());
             if (matchingContent != null) {
                 upload.setSourceLink(matchingContent); // Map to existing content
             } else {
@@ -219,7 +448,7 @@ public class UploadCatalogService {
             
             // Process each unique media name
             for (String uniqueMediaName : uniqueMediaNames) {
-                MediaCatalog media = findOrCreateMediaByName(uniqueMediaName, dto.getMediaType());
+                MediaCatalog media = mediaService.findOrCreateMedia(uniqueMediaName, dto.getMediaType());
                 mediaSet.add(media);
             }
         }
@@ -227,57 +456,38 @@ public class UploadCatalogService {
         upload.setMediaList(mediaSet);
     }
     
-    private MediaCatalog findOrCreateMediaByName(String mediaName, String mediaType) {
-        String actualMediaType = mediaType != null && !mediaType.trim().isEmpty() ? mediaType : "Movie";
-        
-        // Search by both name AND type to respect unique constraint
-        MediaCatalog existingMedia = mediaRepository.findByMediaNameAndMediaType(mediaName, actualMediaType);
-        
-        if (existingMedia != null) {
-            return existingMedia;
+    // Skips the lookup query when the Bloom filter rules the link out
+    private ContentCatalog findContentByLink(String link) {
+        if (!existenceFilter.mightContainLink(link)) {
+            return null;
         }
-        
-        // Use synchronized block to prevent race conditions when creating new media
-        synchronized (this) {
-            // Double-check after acquiring lock
-            existingMedia = mediaRepository.findByMediaNameAndMediaType(mediaName, actualMediaType);
-            if (existingMedia != null) {
-                return existingMedia;
-            }
-            
-            // Create new media with proper error handling
-            try {
-                MediaCatalog newMedia = new MediaCatalog();
-                newMedia.setMediaName(mediaName);
-                newMedia.setMediaType(actualMediaType);
-                newMedia.setLanguage("English");
-                newMedia.setMainGenres("Action");
-                newMedia.setSubGenres("");
-                newMedia.setIsDownloaded(false);
-                newMedia.setAvailableOn("Unknown");
-                
-                return mediaRepository.save(newMedia);
-            } catch (Exception e) {
-                // If save fails due to constraint violation, try to find the media again
-                existingMedia = mediaRepository.findByMediaNameAndMediaType(mediaName, actualMediaType);
-                if (existingMedia != null) {
-                    return existingMedia;
-                }
-                throw new RuntimeException("Failed to create or find media: " + mediaName + " of type: " + actualMediaType, e);
-            }
+        ContentCatalog content = contentRepository.findByNormalizedLink(link);
+        if (content == null) {
+            existenceFilter.linkFalsePositive();
         }
+        return content;
     }
     
     private ContentCatalog createContentFromUpload(String link, UploadCatalogDTO uploadDTO) {
         try {
-            ContentCatalog content = new ContentCatalog();
-            content.setLink(link);
-            
-            // Set default values for auto-created content from upload
-            content.setStatus("pending");
-            content.setPriority("medium");
-            content.setLocalStatus("not-available");
-            content.setLocalFilePath(null);
+            // Set default values for auto-created content from upload; inserts nothing when another
+            // request or instance created content for the link since the lookup, and that row is used
+            boolean created = contentRepository.insertIfAbsent(
+                    link, LinkNormalizer.hash(link), ContentStatus.PENDING.getCode(), ContentPriority.MEDIUM.getCode(),
+                    LocalStatus.NOT_AVAILABLE.getCode()) > 0;
+            ContentCatalog content = contentRepository.findByNormalizedLink(link);
+            if (content == null && !created && contentRepository.findByLinkHash(LinkNormalizer.hash(link)) == null) {
+                // Skipped for content another transaction inserted but has not committed yet; the caller runs again
+                throw new ConcurrencyFailureException("Content for link '" + link + "' is being created concurrently");
+            }
+            if (content == null) {
+                throw new IllegalStateException("the link hash belongs to another link");
+            }
+            existenceFilter.addLink(content.getLink());
+            if (!created) {
+                return content;
+            }
+            changeSequencer.touched(ContentCatalog.class, content.getId());
             
             // Handle media from upload DTO
             Set<MediaCatalog> mediaSet = new HashSet<>();
@@ -295,14 +505,16 @@ public class UploadCatalogService {
                 for (String uniqueMediaName : uniqueMediaNames) {
                     String mediaType = uploadDTO.getMediaType() != null && !uploadDTO.getMediaType().trim().isEmpty() 
                         ? uploadDTO.getMediaType() : "Movie";
-                    MediaCatalog media = findOrCreateMediaByName(uniqueMediaName, mediaType);
+                    MediaCatalog media = mediaService.findOrCreateMedia(uniqueMediaName, mediaType);
                     mediaSet.add(media);
                 }
             }
             content.setMediaList(mediaSet);
             
             // Save the content
-            return contentRepository.save(content);
+            ContentCatalog savedContent = contentRepository.save(content);
+            statusHistory.record(ChangeFeedService.CONTENT, savedContent.getId(), null, savedContent.getStatus().getValue());
+            return savedContent;
         } catch (Exception e) {
             System.err.println("Failed to create content from upload: " + e.getMessage());
             throw new RuntimeException("Failed to create content entry for link: " + link, e);
@@ -0,0 +1,245 @@
+package com.cinemitr.datatracker.service;
+
+import com.cinemitr.datatracker.dto.UploadViewCheckDTO;
+import com.cinemitr.datatracker.entity.MediaCatalog;
+import com.cinemitr.datatracker.entity.UploadCatalog;
+import com.cinemitr.datatracker.entity.UploadView;
+import com.cinemitr.datatracker.enums.UploadStatus;
+import com.cinemitr.datatracker.repository.UploadCatalogRepository;
+import com.cinemitr.datatracker.repository.UploadViewRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains upload_view, the denormalized read model behind the upload list.
+ *
+ * Write paths report the uploads whose shown values may have changed: the upload itself, the
+ * uploads of a content whose link changed and the uploads of a renamed or merged media. Inside a
+ * transaction the ids are collected and their rows rewritten just before commit, so a batch
+ * rewrites each row once and a rollback leaves the view alone; outside one they are rewritten
+ * right away. Unchanged values are not written again. {@link #rebuild()} and {@link #check()}
+ * cover rows changed behind the services' back.
+ */
+@Service
+public class UploadViewService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    @Autowired
+    private UploadViewRepository viewRepository;
+
+    @Autowired
+    private UploadCatalogRepository uploadRepository;
+
+    @Autowired
+    private ReadCoalescer readCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Fills the view after the migration that adds it, or after uploads were inserted without the services
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfIncomplete() {
+        if (viewRepository.count() != uploadRepository.count()) {
+            System.out.println("Upload view is incomplete, rebuilt " + rebuild() + " rows");
+        }
+    }
+
+    public List<UploadView> list() {
+        return viewRepository.findAllInOrder();
+    }
+
+    public List<UploadView> listByStatus(UploadStatus status) {
+        return viewRepository.findByStatusInOrder(status);
+    }
+
+    /**
+     * The view row for an upload, built from its current entity state without touching the table.
+     */
+    public UploadView toRow(UploadCatalog upload) {
+        UploadView row = new UploadView(upload.getId());
+        fill(row, upload);
+        return row;
+    }
+
+    public void refresh(Long uploadId) {
+        refresh(Collections.singleton(uploadId));
+    }
+
+    public void refreshUploadsOfContent(Long contentId) {
+        refresh(uploadRepository.findIdsBySourceLinkId(contentId));
+    }
+
+    public void refreshUploadsOfMedia(Long mediaId) {
+        refresh(uploadRepository.findIdsByMediaId(mediaId));
+    }
+
+    public void refresh(Collection<Long> uploadIds) {
+        if (uploadIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> write(uploadIds));
+            return;
+        }
+        pendingRefresh().uploadIds.addAll(uploadIds);
+    }
+
+    /**
+     * Rewrites every row from the base tables and drops rows of deleted uploads, one transaction
+     * per chunk of uploads. Rows that are already correct are left as they are.
+     *
+     * @return the number of uploads
+     */
+    public long rebuild() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long uploads = 0;
+        long afterId = 0;
+        while (true) {
+            long cursor = afterId;
+            List<Long> ids = transaction.execute(status -> {
+                List<Long> chunk = uploadRepository.findIdsAfter(cursor, PageRequest.of(0, CHUNK_SIZE));
+                write(chunk);
+                entityManager.flush();
+                entityManager.clear();
+                return chunk;
+            });
+            if (ids.isEmpty()) {
+                break;
+            }
+            uploads += ids.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+        transaction.executeWithoutResult(status -> write(viewRepository.findOrphanIds()));
+        readCache.invalidate(ChangeFeedService.UPLOAD);
+        return uploads;
+    }
+
+    /**
+     * Compares every row with what the base tables currently give, without changing anything.
+     */
+    public UploadViewCheckDTO check() {
+        UploadViewCheckDTO result = new UploadViewCheckDTO();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        long afterId = 0;
+        while (true) {
+            long cursor = afterId;
+            List<Long> ids = readOnly.execute(status -> {
+                List<Long> chunk = uploadRepository.findIdsAfter(cursor, PageRequest.of(0, CHUNK_SIZE));
+                compare(chunk, result);
+                entityManager.clear();
+                return chunk;
+            });
+            if (ids.isEmpty()) {
+                break;
+            }
+            result.setUploadsChecked(result.getUploadsChecked() + ids.size());
+            afterId = ids.get(ids.size() - 1);
+        }
+        result.setOrphanedIds(viewRepository.findOrphanIds());
+        return result;
+    }
+
+    private void compare(List<Long> uploadIds, UploadViewCheckDTO result) {
+        if (uploadIds.isEmpty()) {
+            return;
+        }
+        Map<Long, UploadView> rows = rowsById(uploadIds);
+        List<UploadCatalog> uploads = new ArrayList<>(uploadRepository.findAllWithDetailsByIdIn(uploadIds));
+        uploads.sort(Comparator.comparing(UploadCatalog::getId));
+        for (UploadCatalog upload : uploads) {
+            UploadView row = rows.get(upload.getId());
+            if (row == null) {
+                result.getMissingIds().add(upload.getId());
+            } else if (!sameValues(row, toRow(upload))) {
+                result.getStaleIds().add(upload.getId());
+            }
+        }
+    }
+
+    // Rewrites the rows of the given uploads from their current state; rows of uploads that are gone are removed
+    private void write(Collection<Long> uploadIds) {
+        List<Long> ids = new ArrayList<>(new TreeSet<>(uploadIds));
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + CHUNK_SIZE));
+            Map<Long, UploadView> rows = rowsById(chunk);
+            for (UploadCatalog upload : uploadRepository.findAllWithDetailsByIdIn(chunk)) {
+                UploadView row = rows.remove(upload.getId());
+                if (row != null) {
+                    fill(row, upload);
+                } else {
+                    entityManager.persist(toRow(upload));
+                }
+            }
+            rows.values().forEach(entityManager::remove);
+        }
+    }
+
+    private Map<Long, UploadView> rowsById(List<Long> uploadIds) {
+        return viewRepository.findAllById(uploadIds).stream()
+                .collect(Collectors.toMap(UploadView::getUploadId, Function.identity()));
+    }
+
+    // Same values as UploadCatalogService showed before the view existed, with media in id order
+    private static void fill(UploadView row, UploadCatalog upload) {
+        List<MediaCatalog> media = upload.getMediaList() == null ? Collections.emptyList()
+                : upload.getMediaList().stream()
+                        .sorted(Comparator.comparing(MediaCatalog::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                        .collect(Collectors.toList());
+        row.setSourceLink(upload.getSourceLink() != null ? upload.getSourceLink().getLink() : "");
+        row.setSourceData(upload.getSourceData() != null ? upload.getSourceData().getMetaData() : "");
+        row.setStatus(upload.getStatus());
+        row.setMediaData(upload.getMediaFormat() != null ? upload.getMediaFormat() : "");
+        row.setMetadata(upload.getMetadata() != null ? upload.getMetadata() : "");
+        row.setMediaNames(media.stream().map(MediaCatalog::getMediaName).collect(Collectors.joining("\n")));
+        row.setMediaType(media.isEmpty() ? "" : media.get(0).getMediaType());
+    }
+
+    private static boolean sameValues(UploadView a, UploadView b) {
+        return Objects.equals(a.getSourceLink(), b.getSourceLink())
+                && Objects.equals(a.getSourceData(), b.getSourceData())
+                && Objects.equals(a.getStatus(), b.getStatus())
+                && Objects.equals(a.getMediaData(), b.getMediaData())
+                && Objects.equals(a.getMetadata(), b.getMetadata())
+                && Objects.equals(a.getMediaNames(), b.getMediaNames())
+                && Objects.equals(a.getMediaType(), b.getMediaType());
+    }
+
+    // One per transaction; looked up among the registered synchronizations, which are suspended with their transaction
+    private PendingRefresh pendingRefresh() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingRefresh) {
+                return (PendingRefresh) synchronization;
+            }
+        }
+        PendingRefresh pending = new PendingRefresh();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private final class PendingRefresh implements TransactionSynchronization {
+        private final Set<Long> uploadIds = new HashSet<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            write(uploadIds);
+        }
+    }
+}
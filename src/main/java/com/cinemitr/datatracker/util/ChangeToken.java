@@ -0,0 +1,62 @@
+package com.cinemitr.datatracker.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor of the change feed: the (change_seq, id) of the last row and of the last deletion
+ * log entry a client has seen. Encoded as URL-safe base64 so clients treat it as a string.
+ *
+ * Version 1 tokens held an updated_at cursor; they are rejected and the client syncs from scratch.
+ */
+public final class ChangeToken {
+
+    private static final String VERSION = "v2";
+
+    private final long changeSeq;
+    private final long lastId;
+    private final long deletionSeq;
+    private final long lastDeletionId;
+
+    public ChangeToken(long changeSeq, long lastId, long deletionSeq, long lastDeletionId) {
+        this.changeSeq = changeSeq;
+        this.lastId = lastId;
+        this.deletionSeq = deletionSeq;
+        this.lastDeletionId = lastDeletionId;
+    }
+
+    public static ChangeToken decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 5 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid change token: " + token);
+            }
+            return new ChangeToken(Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                    Long.parseLong(parts[3]), Long.parseLong(parts[4]));
+        } catch (IllegalArgumentException e) {
+            // Also covers bad base64 and NumberFormatException
+            throw new IllegalArgumentException("Invalid change token: " + token, e);
+        }
+    }
+
+    public String encode() {
+        String raw = VERSION + ":" + changeSeq + ":" + lastId + ":" + deletionSeq + ":" + lastDeletionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+
+    public long getDeletionSeq() {
+        return deletionSeq;
+    }
+
+    public long getLastDeletionId() {
+        return lastDeletionId;
+    }
+}
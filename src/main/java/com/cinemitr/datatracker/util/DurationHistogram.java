@@ -0,0 +1,50 @@
+package com.cinemitr.datatracker.util;
+
+/**
+ * Fixed-memory histogram of durations in seconds, for percentiles over more values than should be
+ * kept in memory.
+ *
+ * Bucket bounds grow by 5%, so {@link #percentile(double)} is at most 5% above the exact value
+ * (and never above the largest value added). Not thread-safe.
+ */
+public class DurationHistogram {
+
+    private static final double GROWTH = 1.05;
+    private static final double LOG_GROWTH = Math.log(GROWTH);
+    // Bucket 0 holds durations up to one second, the last one everything from ~30 years up
+    private static final int BUCKETS = 1 + (int) Math.ceil(Math.log(1e9) / LOG_GROWTH);
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long max;
+
+    public void add(long seconds) {
+        int bucket = seconds <= 1 ? 0 : Math.min(BUCKETS - 1, (int) Math.ceil(Math.log(seconds) / LOG_GROWTH));
+        counts[bucket]++;
+        count++;
+        max = Math.max(max, seconds);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * The duration at or below which the given fraction (0..1] of the added durations lie, rounded
+     * up to its bucket bound, or null when nothing was added.
+     */
+    public Long percentile(double fraction) {
+        if (count == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(max, bucket == 0 ? 1 : (long) Math.floor(Math.pow(GROWTH, bucket)));
+            }
+        }
+        return max;
+    }
+}
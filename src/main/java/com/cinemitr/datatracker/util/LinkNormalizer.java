@@ -0,0 +1,92 @@
+package com.cinemitr.datatracker.util;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Canonical form and fixed-width hash of content links, used to deduplicate ContentCatalog rows.
+ *
+ * Two links are considered the same content when they only differ in: http vs https, host case,
+ * default port, trailing slash, query parameter order, empty query parameters or fragment.
+ */
+public final class LinkNormalizer {
+
+    private LinkNormalizer() {}
+
+    public static String normalize(String link) {
+        if (link == null) {
+            return "";
+        }
+        String trimmed = link.trim();
+        URI uri;
+        try {
+            uri = new URI(trimmed);
+        } catch (URISyntaxException e) {
+            return trimmed;
+        }
+        if (uri.getHost() == null || uri.getScheme() == null) {
+            return trimmed;
+        }
+
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        if (scheme.equals("http")) {
+            scheme = "https";
+        }
+
+        StringBuilder canonical = new StringBuilder(trimmed.length());
+        canonical.append(scheme).append("://").append(uri.getHost().toLowerCase(Locale.ROOT));
+        int port = uri.getPort();
+        if (port != -1 && port != 80 && port != 443) {
+            canonical.append(':').append(port);
+        }
+
+        String path = uri.getRawPath() != null ? uri.getRawPath() : "";
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        canonical.append(path);
+
+        String query = uri.getRawQuery();
+        if (query != null && !query.isEmpty()) {
+            List<String> params = new ArrayList<>();
+            for (String param : query.split("&")) {
+                if (!param.isEmpty()) {
+                    params.add(param);
+                }
+            }
+            if (!params.isEmpty()) {
+                Collections.sort(params);
+                canonical.append('?').append(String.join("&", params));
+            }
+        }
+        return canonical.toString();
+    }
+
+    /**
+     * 64-bit hash of the normalized link (first 8 bytes of its SHA-256 digest).
+     */
+    public static long hash(String link) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(normalize(link).getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static boolean sameLink(String first, String second) {
+        return normalize(first).equals(normalize(second));
+    }
+}
@@ -0,0 +1,61 @@
+package com.cinemitr.datatracker.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * A JSON merge patch (RFC 7396) body for one entity. Only the fields present in the object are
+ * changed; an explicit null clears a field. Field names are the same as in the entity's DTO.
+ */
+public final class MergePatch {
+
+    private final JsonNode patch;
+
+    public MergePatch(JsonNode patch, String... patchableFields) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("Patch body must be a JSON object");
+        }
+        Set<String> allowed = new HashSet<>(Arrays.asList(patchableFields));
+        Iterator<String> fields = patch.fieldNames();
+        while (fields.hasNext()) {
+            String field = fields.next();
+            if (!allowed.contains(field)) {
+                throw new IllegalArgumentException("Field '" + field + "' cannot be patched");
+            }
+        }
+        this.patch = patch;
+    }
+
+    public boolean has(String field) {
+        return patch.has(field);
+    }
+
+    /**
+     * The field as text (numbers and booleans included), or null when it is an explicit JSON null.
+     */
+    public String text(String field) {
+        JsonNode value = patch.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        if (value.isContainerNode()) {
+            throw new IllegalArgumentException("Field '" + field + "' must be a single value");
+        }
+        return value.asText();
+    }
+
+    /**
+     * The field as trimmed text, for columns that cannot be cleared.
+     */
+    public String requiredText(String field) {
+        String value = text(field);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Field '" + field + "' cannot be empty");
+        }
+        return value.trim();
+    }
+}
@@ -0,0 +1,36 @@
+package com.cinemitr.datatracker.util;
+
+/**
+ * Number to text conversions for hot paths, without the parsing of a format pattern and the
+ * Formatter, StringBuilder and BigDecimal that {@link String#format} allocates for each call.
+ * Thread-safe.
+ */
+public final class NumberText {
+
+    // Below this every double has at most 16 significant digits before the point, so the digits of
+    // the rounded long are the ones String.format prints
+    private static final double EXACT_LIMIT = 1e15;
+
+    private NumberText() {
+    }
+
+    /**
+     * The value rounded half away from zero to a whole number, as {@code String.format("%.0f", value)}
+     * prints it, e.g. "3" for 2.5 and "-0" for -0.2.
+     */
+    public static String wholeNumber(double value) {
+        double magnitude = Math.abs(value);
+        if (!(magnitude < EXACT_LIMIT)) {
+            return String.format("%.0f", value);
+        }
+        long whole = (long) magnitude;
+        // Exact: the difference of a double and its integer part is representable
+        if (magnitude - whole >= 0.5) {
+            whole++;
+        }
+        if (Double.doubleToRawLongBits(value) < 0) {
+            return whole == 0 ? "-0" : Long.toString(-whole);
+        }
+        return Long.toString(whole);
+    }
+}
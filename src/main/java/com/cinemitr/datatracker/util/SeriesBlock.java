@@ -0,0 +1,158 @@
+package com.cinemitr.datatracker.util;
+
+import java.util.Arrays;
+
+/**
+ * One day of a page's samples at a fixed step, held in primitive arrays, and its packed form.
+ *
+ * Packed, a block is a format byte, a bitmap of the slots that hold a sample, and then the three
+ * metrics one after the other (column by column): the values of the set slots in slot order, each
+ * as the zigzag varint of its difference to the value before. Values are stored as fixed-point
+ * thousandths, so a series that changes little from one slot to the next takes one or two bytes
+ * per value. Not thread-safe.
+ */
+public class SeriesBlock {
+
+    public static final int TOTAL_VIEWS = 0;
+    public static final int SUBSCRIBERS = 1;
+    public static final int INTERACTION = 2;
+    private static final int METRICS = 3;
+
+    private static final byte FORMAT = 1;
+    private static final double SCALE = 1000;
+    // Largest magnitude whose thousandths, and their differences, fit in a long
+    private static final double MAX_VALUE = 1e12;
+
+    private final int slots;
+    private final long[] set;
+    private final long[][] values;
+    private int samples;
+
+    public SeriesBlock(int slots) {
+        this.slots = slots;
+        this.set = new long[(slots + 63) / 64];
+        this.values = new long[METRICS][slots];
+    }
+
+    /**
+     * Whether a value can be stored: finite and at most 10^12 in magnitude. Values are kept to
+     * three decimals.
+     */
+    public static boolean storable(double value) {
+        return !Double.isNaN(value) && Math.abs(value) <= MAX_VALUE;
+    }
+
+    public int slots() {
+        return slots;
+    }
+
+    public int samples() {
+        return samples;
+    }
+
+    public boolean has(int slot) {
+        return (set[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    /**
+     * The first slot at or after the given one that holds a sample, or -1.
+     */
+    public int next(int slot) {
+        for (int word = slot >>> 6; word < set.length && slot < slots; word++) {
+            long bits = set[word] & (-1L << slot);
+            if (bits != 0) {
+                int found = (word << 6) + Long.numberOfTrailingZeros(bits);
+                return found < slots ? found : -1;
+            }
+            slot = (word + 1) << 6;
+        }
+        return -1;
+    }
+
+    public double get(int metric, int slot) {
+        return values[metric][slot] / SCALE;
+    }
+
+    /**
+     * Stores a sample, replacing the one in the slot.
+     *
+     * @return whether the slot was empty or held different values
+     */
+    public boolean put(int slot, double totalViews, double subscribers, double interaction) {
+        long views = Math.round(totalViews * SCALE);
+        long subs = Math.round(subscribers * SCALE);
+        long inter = Math.round(interaction * SCALE);
+        if (has(slot)) {
+            if (values[TOTAL_VIEWS][slot] == views && values[SUBSCRIBERS][slot] == subs
+                    && values[INTERACTION][slot] == inter) {
+                return false;
+            }
+        } else {
+            set[slot >>> 6] |= 1L << slot;
+            samples++;
+        }
+        values[TOTAL_VIEWS][slot] = views;
+        values[SUBSCRIBERS][slot] = subs;
+        values[INTERACTION][slot] = inter;
+        return true;
+    }
+
+    public byte[] encode() {
+        int bitmapBytes = (slots + 7) / 8;
+        // A varint takes at most 10 bytes
+        byte[] out = new byte[1 + bitmapBytes + samples * METRICS * 10];
+        out[0] = FORMAT;
+        for (int i = 0; i < bitmapBytes; i++) {
+            out[1 + i] = (byte) (set[i >>> 3] >>> ((i & 7) << 3));
+        }
+        int position = 1 + bitmapBytes;
+        for (int metric = 0; metric < METRICS; metric++) {
+            long previous = 0;
+            for (int slot = next(0); slot >= 0; slot = slot + 1 < slots ? next(slot + 1) : -1) {
+                long delta = values[metric][slot] - previous;
+                previous = values[metric][slot];
+                long zigzag = (delta << 1) ^ (delta >> 63);
+                while ((zigzag & ~0x7FL) != 0) {
+                    out[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+                    zigzag >>>= 7;
+                }
+                out[position++] = (byte) zigzag;
+            }
+        }
+        return Arrays.copyOf(out, position);
+    }
+
+    public static SeriesBlock decode(byte[] packed, int slots) {
+        SeriesBlock block = new SeriesBlock(slots);
+        int bitmapBytes = (slots + 7) / 8;
+        if (packed.length < 1 + bitmapBytes || packed[0] != FORMAT) {
+            throw new IllegalStateException("Unreadable series block of " + packed.length + " bytes");
+        }
+        for (int i = 0; i < bitmapBytes; i++) {
+            block.set[i >>> 3] |= (packed[1 + i] & 0xFFL) << ((i & 7) << 3);
+        }
+        for (long word : block.set) {
+            block.samples += Long.bitCount(word);
+        }
+        int position = 1 + bitmapBytes;
+        for (int metric = 0; metric < METRICS; metric++) {
+            long previous = 0;
+            for (int slot = block.next(0); slot >= 0; slot = slot + 1 < slots ? block.next(slot + 1) : -1) {
+                long zigzag = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    if (position >= packed.length || shift > 63) {
+                        throw new IllegalStateException("Truncated series block of " + packed.length + " bytes");
+                    }
+                    b = packed[position++];
+                    zigzag |= (b & 0x7FL) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                previous += (zigzag >>> 1) ^ -(zigzag & 1);
+                block.values[metric][slot] = previous;
+            }
+        }
+        return block;
+    }
+}
@@ -0,0 +1,9 @@
+-- Optimistic locking: every update checks and bumps the row's version, so concurrent writers
+-- (threads or application instances) cannot silently overwrite each other.
+-- The append-only logs and the upload_view read model are not versioned.
+
+ALTER TABLE media_catalog ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE content_catalog ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE upload_catalog ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE stats_catalog ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE metadata_status ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,15 @@
+-- Archive tier: uploads that finished their pipeline and old statistics move out of the hot tables
+-- in batches. Each segment holds one batch as gzip-compressed NDJSON, one line per archived row
+-- (its API representation plus, for uploads, its status history).
+CREATE TABLE archive_segment (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    entity_type VARCHAR(32) NOT NULL,
+    first_id BIGINT NOT NULL,
+    last_id BIGINT NOT NULL,
+    row_count INT NOT NULL,
+    raw_bytes BIGINT NOT NULL,
+    payload BLOB NOT NULL,
+    archived_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_archive_segment_type ON archive_segment(entity_type, id);
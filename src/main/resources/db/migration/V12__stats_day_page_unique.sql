@@ -0,0 +1,39 @@
+-- One statistics row per day and page, so stats ingestion can upsert on (date, page), and monthly
+-- rollups per page kept up to date by the application on every statistics write.
+
+-- The API always stored pages upper-cased; rows written otherwise would slip past the constraint
+UPDATE stats_catalog SET page = UPPER(page) WHERE page <> UPPER(page);
+
+-- Duplicates collapse into the oldest row (the id clients know), holding the latest submission's values
+UPDATE stats_catalog s SET (total_views, subscribers, interaction, content_id, updated_at) = (
+    SELECT n.total_views, n.subscribers, n.interaction, n.content_id, CURRENT_TIMESTAMP
+    FROM stats_catalog n WHERE n.date = s.date AND n.page = s.page ORDER BY n.id DESC LIMIT 1)
+WHERE s.id IN (SELECT MIN(id) FROM stats_catalog GROUP BY date, page HAVING COUNT(*) > 1);
+
+INSERT INTO deletion_log (entity_type, entity_id, deleted_at)
+SELECT 'stats', s.id, CURRENT_TIMESTAMP FROM stats_catalog s
+WHERE s.id > (SELECT MIN(k.id) FROM stats_catalog k WHERE k.date = s.date AND k.page = s.page);
+
+DELETE FROM stats_catalog s
+WHERE s.id > (SELECT MIN(k.id) FROM stats_catalog k WHERE k.date = s.date AND k.page = s.page);
+
+ALTER TABLE stats_catalog ADD CONSTRAINT uq_stats_day_page UNIQUE (date, page);
+-- Lookups by date use the leading column of the unique index
+DROP INDEX IF EXISTS idx_stats_date;
+
+-- Per page and month: the number of days reported and the sums of their values. Subscribers are
+-- summed too and averaged over days when read. Archived days stay counted.
+CREATE TABLE stats_monthly_rollup (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    month_start DATE NOT NULL,
+    page VARCHAR(255) NOT NULL,
+    days INT NOT NULL,
+    total_views DOUBLE NOT NULL,
+    subscribers DOUBLE NOT NULL,
+    interaction DOUBLE NOT NULL,
+    CONSTRAINT uq_stats_rollup_month_page UNIQUE (month_start, page)
+);
+
+INSERT INTO stats_monthly_rollup (month_start, page, days, total_views, subscribers, interaction)
+SELECT CAST(DATE_TRUNC('MONTH', date) AS DATE), page, COUNT(*), SUM(total_views), SUM(subscribers), SUM(interaction)
+FROM stats_catalog GROUP BY CAST(DATE_TRUNC('MONTH', date) AS DATE), page;
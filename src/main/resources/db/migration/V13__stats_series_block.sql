@@ -0,0 +1,13 @@
+-- Sub-daily statistics: one row per page, step (3600 or 60 seconds) and day, holding the day's
+-- samples as a packed blob (slot bitmap, then each metric delta-encoded) instead of a row per sample.
+CREATE TABLE stats_series_block (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    page VARCHAR(255) NOT NULL,
+    step_seconds INT NOT NULL,
+    block_date DATE NOT NULL,
+    samples INT NOT NULL,
+    payload BLOB NOT NULL,
+    updated_at TIMESTAMP,
+    version BIGINT NOT NULL,
+    CONSTRAINT uq_stats_series_block UNIQUE (page, step_seconds, block_date)
+);
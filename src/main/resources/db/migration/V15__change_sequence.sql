@@ -0,0 +1,27 @@
+-- Change feed cursor in commit order: every write transaction increments the single change_clock row
+-- as its last statement and stamps the value into change_seq of the rows it wrote. The row lock on the
+-- clock is held until the commit, so stamped values become visible in increasing order.
+
+CREATE TABLE change_clock (
+    id INT PRIMARY KEY,
+    seq BIGINT NOT NULL
+);
+
+INSERT INTO change_clock (id, seq) VALUES (1, 0);
+
+-- Rows written before this migration keep 0 and are returned first, in id order
+ALTER TABLE media_catalog ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE content_catalog ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE upload_catalog ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE stats_catalog ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE deletion_log ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX idx_media_change_seq ON media_catalog(change_seq, id);
+CREATE INDEX idx_content_change_seq ON content_catalog(change_seq, id);
+CREATE INDEX idx_upload_change_seq ON upload_catalog(change_seq, id);
+CREATE INDEX idx_stats_change_seq ON stats_catalog(change_seq, id);
+
+DROP INDEX idx_deletion_log_type;
+CREATE INDEX idx_deletion_log_type ON deletion_log(entity_type, change_seq, id);
+-- Newest entry first, where a first sync starts its deletion cursor
+CREATE INDEX idx_deletion_log_change_seq ON deletion_log(change_seq DESC, id DESC);
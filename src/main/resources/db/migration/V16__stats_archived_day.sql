@@ -0,0 +1,9 @@
+-- Days and pages whose statistics were archived. The (date, page) key leaves stats_catalog with
+-- the row, so writes check this table to keep an archived day from being reported again and
+-- counted twice in the monthly rollup. Filled from existing segments by V17.
+CREATE TABLE stats_archived_day (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    date DATE NOT NULL,
+    page SMALLINT NOT NULL,
+    CONSTRAINT uq_stats_archived_day_page UNIQUE (date, page)
+);
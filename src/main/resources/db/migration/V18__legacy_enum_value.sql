@@ -0,0 +1,14 @@
+-- Original text of status, priority and page values that matched no enum constant when V14 coded
+-- the columns; those rows hold the LEGACY code. row_data holds a whole statistics row V14 moved out
+-- because its key was taken. V14 creates the table; databases it converted before then get it here.
+CREATE TABLE IF NOT EXISTS legacy_enum_value (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    table_name VARCHAR(64) NOT NULL,
+    column_name VARCHAR(64) NOT NULL,
+    row_id BIGINT NOT NULL,
+    original_value VARCHAR(255) NOT NULL,
+    row_data CLOB,
+    recorded_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_legacy_enum_value_row ON legacy_enum_value(table_name, row_id);
@@ -0,0 +1,91 @@
+-- Baseline schema, matching what hibernate.ddl-auto=update produced for existing installations.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate) and skip it.
+
+-- METADATA STATUS
+CREATE TABLE metadata_status (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    path_category VARCHAR(255) NOT NULL,
+    path VARCHAR(1024) NOT NULL,
+    is_available BOOLEAN NOT NULL,
+    meta_data CLOB NOT NULL,
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+-- MEDIA CATALOG
+CREATE TABLE media_catalog (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    media_type VARCHAR(255) NOT NULL,
+    media_name VARCHAR(255) NOT NULL,
+    language VARCHAR(255),
+    is_downloaded BOOLEAN NOT NULL,
+    download_path BIGINT,
+    main_genres VARCHAR(255),
+    sub_genres VARCHAR(255),
+    available_on VARCHAR(255),
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    CONSTRAINT uq_media_name_type UNIQUE (media_name, media_type),
+    CONSTRAINT fk_media_download_path FOREIGN KEY (download_path) REFERENCES metadata_status(id)
+);
+
+-- CONTENT CATALOG
+CREATE TABLE content_catalog (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    link VARCHAR(255) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    priority VARCHAR(255) NOT NULL,
+    local_status VARCHAR(255) NOT NULL,
+    local_file_path BIGINT,
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    CONSTRAINT fk_content_local_file FOREIGN KEY (local_file_path) REFERENCES metadata_status(id)
+);
+
+-- UPLOAD CATALOG
+CREATE TABLE upload_catalog (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    source_link_id BIGINT,
+    source_data BIGINT NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    media_format VARCHAR(255),
+    metadata VARCHAR(9000),
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    CONSTRAINT fk_upload_source_data FOREIGN KEY (source_data) REFERENCES metadata_status(id),
+    CONSTRAINT fk_upload_source_link FOREIGN KEY (source_link_id) REFERENCES content_catalog(id)
+);
+
+-- STATS CATALOG
+CREATE TABLE stats_catalog (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    date DATE NOT NULL,
+    total_views DOUBLE NOT NULL,
+    subscribers DOUBLE NOT NULL,
+    interaction DOUBLE NOT NULL,
+    content_id BIGINT,
+    page VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    CONSTRAINT fk_stats_content FOREIGN KEY (content_id) REFERENCES content_catalog(id)
+);
+
+-- MANY-TO-MANY RELATIONSHIPS
+
+-- Content Media Junction Table
+CREATE TABLE content_media_mapping (
+    content_id BIGINT NOT NULL,
+    media_id BIGINT NOT NULL,
+    PRIMARY KEY (content_id, media_id),
+    CONSTRAINT fk_content_media_content FOREIGN KEY (content_id) REFERENCES content_catalog(id),
+    CONSTRAINT fk_content_media_media FOREIGN KEY (media_id) REFERENCES media_catalog(id)
+);
+
+-- Upload Media Junction Table
+CREATE TABLE upload_media_mapping (
+    upload_id BIGINT NOT NULL,
+    media_id BIGINT NOT NULL,
+    PRIMARY KEY (upload_id, media_id),
+    CONSTRAINT fk_upload_media_upload FOREIGN KEY (upload_id) REFERENCES upload_catalog(id),
+    CONSTRAINT fk_upload_media_media FOREIGN KEY (media_id) REFERENCES media_catalog(id)
+);
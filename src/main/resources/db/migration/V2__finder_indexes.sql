@@ -0,0 +1,18 @@
+-- Indexes for the repository finders (see QueryPlanCheckRunner).
+-- IF NOT EXISTS because databases that ran with ddl-auto=update may already have them.
+
+CREATE INDEX IF NOT EXISTS idx_metadata_path_category ON metadata_status(path_category);
+
+CREATE INDEX IF NOT EXISTS idx_media_type ON media_catalog(media_type);
+CREATE INDEX IF NOT EXISTS idx_language ON media_catalog(language);
+CREATE INDEX IF NOT EXISTS idx_media_main_genres ON media_catalog(main_genres);
+
+CREATE INDEX IF NOT EXISTS idx_content_link ON content_catalog(link);
+CREATE INDEX IF NOT EXISTS idx_content_status ON content_catalog(status);
+CREATE INDEX IF NOT EXISTS idx_content_priority ON content_catalog(priority);
+CREATE INDEX IF NOT EXISTS idx_content_local_status ON content_catalog(local_status);
+
+CREATE INDEX IF NOT EXISTS idx_upload_status ON upload_catalog(status);
+
+CREATE INDEX IF NOT EXISTS idx_stats_date ON stats_catalog(date);
+CREATE INDEX IF NOT EXISTS idx_stats_page ON stats_catalog(page);
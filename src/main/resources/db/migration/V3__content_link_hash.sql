@@ -0,0 +1,3 @@
+-- Hash of the normalized content link (see LinkNormalizer).
+-- Backfilled, and duplicate content merged, by V4; made NOT NULL and unique by V5.
+ALTER TABLE content_catalog ADD COLUMN link_hash BIGINT;
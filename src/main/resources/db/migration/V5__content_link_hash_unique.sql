@@ -0,0 +1,2 @@
+ALTER TABLE content_catalog ALTER COLUMN link_hash SET NOT NULL;
+CREATE UNIQUE INDEX uq_content_link_hash ON content_catalog(link_hash);
@@ -0,0 +1,21 @@
+-- Change feed (GET /api/{type}/changes): keyset reads on (updated_at, id) plus a log of deleted ids.
+
+-- Rows written outside JPA may lack updated_at, and the feed would never return them
+UPDATE media_catalog SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP) WHERE updated_at IS NULL;
+UPDATE content_catalog SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP) WHERE updated_at IS NULL;
+UPDATE upload_catalog SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP) WHERE updated_at IS NULL;
+UPDATE stats_catalog SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP) WHERE updated_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_media_updated_at ON media_catalog(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_content_updated_at ON content_catalog(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_upload_updated_at ON upload_catalog(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_stats_updated_at ON stats_catalog(updated_at, id);
+
+CREATE TABLE deletion_log (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entity_type VARCHAR(32) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    deleted_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_deletion_log_type ON deletion_log(entity_type, id);
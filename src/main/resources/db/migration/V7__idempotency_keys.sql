@@ -0,0 +1,11 @@
+-- Idempotency-Key records for the create endpoints, used when datatracker.idempotency.store=database.
+-- status/body stay NULL while the first request is still running.
+CREATE TABLE idempotency_key (
+    idempotency_key VARCHAR(300) PRIMARY KEY,
+    fingerprint VARCHAR(64) NOT NULL,
+    status INT,
+    body CLOB,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_idempotency_key_created_at ON idempotency_key(created_at);
@@ -0,0 +1,13 @@
+-- Denormalized read model for the upload list: one row per upload holding the values UploadCatalogDTO
+-- shows, kept up to date by UploadViewService on every write that changes them.
+-- media_names is newline-separated in media id order; media_type is the first media's type.
+CREATE TABLE upload_view (
+    upload_id BIGINT PRIMARY KEY,
+    source_link VARCHAR(255) NOT NULL,
+    source_data CLOB NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    media_data VARCHAR(255) NOT NULL,
+    metadata VARCHAR(9000) NOT NULL,
+    media_names CLOB NOT NULL,
+    media_type VARCHAR(255) NOT NULL
+);
@@ -0,0 +1,12 @@
+-- Append-only log of content and upload status changes, for funnel and dwell-time analytics.
+-- from_status is NULL for the status a row was created with.
+CREATE TABLE status_transition (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    entity_type VARCHAR(32) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    from_status VARCHAR(255),
+    to_status VARCHAR(255) NOT NULL,
+    changed_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_status_transition_entity ON status_transition(entity_type, entity_id, id);
@@ -610,7 +610,33 @@ async function processCSVFile(file) {
             let successCount = 0;
             let errorCount = 0;
 
-            for (const item of newItems) {
+            if (currentBulkType === 'states') {
+                // Statistics go in one request that updates days already stored
+                try {
+                    const response = await fetch(`${endpoints.states}/ingest`, {
+                        method: 'POST',
+                        headers: {
+                            'Content-Type': 'application/json',
+                        },
+                        body: JSON.stringify(newItems)
+                    });
+
+                    if (response.ok) {
+                        const result = await response.json();
+                        successCount = result.inserted + result.updated + result.unchanged;
+                        errorCount = result.rejected;
+                        result.errors.forEach(error => console.error(`Row ${error.index + 1} rejected:`, error.error));
+                    } else {
+                        errorCount = newItems.length;
+                        console.error('Failed to ingest states:', await response.text());
+                    }
+                } catch (error) {
+                    errorCount = newItems.length;
+                    console.error('Error ingesting states:', error);
+                }
+            }
+
+            for (const item of currentBulkType === 'states' ? [] : newItems) {
                 try {
                     const response = await fetch(endpoints[currentBulkType], {
                         method: 'POST',
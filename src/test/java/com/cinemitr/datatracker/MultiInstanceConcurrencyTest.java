@@ -0,0 +1,276 @@
+package com.cinemitr.datatracker;
+
+import com.cinemitr.datatracker.service.MediaCatalogService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Two application instances, each with its own context, connection pool, caches and indexes,
+ * writing concurrently to one file database opened with AUTO_SERVER=TRUE.
+ */
+class MultiInstanceConcurrencyTest {
+
+    @TempDir
+    static Path directory;
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static ConfigurableApplicationContext first;
+    private static ConfigurableApplicationContext second;
+    private static MockMvc[] instances;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void startInstances() {
+        String url = "jdbc:h2:file:" + directory.resolve("db").toAbsolutePath()
+                + ";AUTO_SERVER=TRUE;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE";
+        first = start(url);
+        second = start(url);
+        instances = new MockMvc[]{
+                MockMvcBuilders.webAppContextSetup((WebApplicationContext) first).build(),
+                MockMvcBuilders.webAppContextSetup((WebApplicationContext) second).build()};
+        jdbcTemplate = first.getBean(JdbcTemplate.class);
+    }
+
+    @AfterAll
+    static void stopInstances() {
+        if (second != null) {
+            second.close();
+        }
+        if (first != null) {
+            first.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String url) {
+        return new SpringApplicationBuilder(DataTrackerApplication.class).run(
+                "--spring.datasource.url=" + url,
+                "--server.port=-1",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.cinemitr=INFO",
+                "--logging.level.org.springframework.web=INFO",
+                "--datatracker.media.index-rebuild-interval-ms=500");
+    }
+
+    @Test
+    void concurrentCreatesOfTheSameLinksAndNamesShareOneRowEach() throws Exception {
+        List<Callable<Integer>> creates = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            MockMvc instance = instances[i % 2];
+            String body = "{\"source_link\": \"https://multi.example.com/title-" + i % 6 + "\", "
+                    + "\"media_name\": \"Multi Instance Title " + i % 6 + "\", \"media_type\": \"Movie\", "
+                    + "\"status\": \"pending\"}";
+            creates.add(() -> send(instance, post("/api/upload").contentType(MediaType.APPLICATION_JSON), body));
+        }
+
+        List<Integer> statuses = runConcurrently(creates, 12);
+
+        assertThat(statuses).containsOnly(200);
+        assertThat(count("SELECT COUNT(*) FROM upload_catalog u JOIN content_catalog c ON c.id = u.source_link_id "
+                + "WHERE c.link LIKE 'https://multi.example.com/%'")).isEqualTo(60);
+        assertThat(count("SELECT COUNT(*) FROM content_catalog WHERE link LIKE 'https://multi.example.com/%'"))
+                .isEqualTo(6);
+        assertThat(count("SELECT COUNT(*) FROM media_catalog WHERE media_name LIKE 'Multi Instance Title %'"))
+                .isEqualTo(6);
+    }
+
+    @Test
+    void concurrentPatchesOfOneRowNeverLoseAnUpdate() throws Exception {
+        int created = send(instances[0], post("/api/upload").contentType(MediaType.APPLICATION_JSON),
+                "{\"status\": \"pending\", \"metadata\": \"patch-0\"}");
+        assertThat(created).isEqualTo(200);
+        long id = jdbcTemplate.queryForObject(
+                "SELECT id FROM upload_catalog WHERE metadata = 'patch-0'", Long.class);
+        long versionBefore = version(id);
+
+        String[] cycle = {"in-progress", "blocked", "ready-to-upload", "pending"};
+        List<Callable<Integer>> patches = new ArrayList<>();
+        for (int i = 1; i <= 80; i++) {
+            MockMvc instance = instances[i % 2];
+            // A fresh metadata value makes every applied patch a real change that bumps the version
+            String body = "{\"status\": \"" + cycle[i % cycle.length] + "\", \"metadata\": \"patch-" + i + "\"}";
+            patches.add(() -> send(instance, patch("/api/upload/" + id).contentType("application/merge-patch+json"), body));
+        }
+
+        List<Integer> statuses = runConcurrently(patches, 16);
+
+        assertThat(statuses).containsOnly(200, 409);
+        long applied = statuses.stream().filter(status -> status == 200).count();
+        assertThat(applied).isPositive();
+        assertThat(version(id) - versionBefore).isEqualTo(applied);
+
+        // Every logged transition starts where the one before it ended
+        List<Map<String, Object>> transitions = jdbcTemplate.queryForList(
+                "SELECT from_status, to_status FROM status_transition WHERE entity_type = 'upload' AND entity_id = ? "
+                        + "ORDER BY id", id);
+        for (int i = 1; i < transitions.size(); i++) {
+            assertThat(transitions.get(i).get("from_status")).isEqualTo(transitions.get(i - 1).get("to_status"));
+        }
+    }
+
+    @Test
+    void mediaCreatedOnOneInstanceReachesTheOtherInstancesSuggestions() throws Exception {
+        int created = send(instances[0], post("/api/media").contentType(MediaType.APPLICATION_JSON),
+                "{\"media_name\": \"Zyxwv Multi Instance\", \"media_type\": \"Movie\", \"main_genres\": \"Drama\", "
+                        + "\"is_downloaded\": \"No\", \"available_on\": \"Netflix\"}");
+        assertThat(created).isEqualTo(200);
+
+        String suggestions = "";
+        for (int attempt = 0; attempt < 50 && !suggestions.contains("Zyxwv Multi Instance"); attempt++) {
+            Thread.sleep(200);
+            suggestions = instances[1].perform(get("/api/media/suggest").param("prefix", "zyxwv"))
+                    .andReturn().getResponse().getContentAsString();
+        }
+        assertThat(suggestions).contains("Zyxwv Multi Instance");
+    }
+
+    @Test
+    void changesFeedReturnsARowThatCommitsAfterALaterWrite() throws Exception {
+        String token = drainMediaChanges(null, new ArrayList<>());
+        TransactionTemplate transaction = new TransactionTemplate(first.getBean(PlatformTransactionManager.class));
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            // Written first on one instance, committed only after a later write on the other one was read
+            Future<Long> slow = pool.submit(() -> transaction.execute(status -> {
+                Long id = first.getBean(MediaCatalogService.class).findOrCreateMedia("Slow Commit Title", "Movie").getId();
+                written.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return id;
+            }));
+            written.await();
+            assertThat(send(instances[1], post("/api/media").contentType(MediaType.APPLICATION_JSON),
+                    "{\"media_name\": \"Fast Commit Title\", \"media_type\": \"Movie\", \"main_genres\": \"Drama\", "
+                            + "\"is_downloaded\": \"No\", \"available_on\": \"Netflix\"}")).isEqualTo(200);
+            long fast = jdbcTemplate.queryForObject(
+                    "SELECT id FROM media_catalog WHERE media_name = 'Fast Commit Title'", Long.class);
+
+            List<Long> seen = new ArrayList<>();
+            token = drainMediaChanges(token, seen);
+            assertThat(seen).containsExactly(fast);
+
+            release.countDown();
+            long slowId = slow.get();
+            seen.clear();
+            drainMediaChanges(token, seen);
+            assertThat(seen).containsExactly(slowId);
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void statisticsArchivedOnOneInstanceAreNotIngestedAgainOnTheOther() throws Exception {
+        String days = "[{\"date\": \"2020-03-01\", \"total_views\": \"100\", \"subscribers\": \"10\", "
+                + "\"interaction\": \"1\", \"page\": \"CINE.MITR\"}, "
+                + "{\"date\": \"2020-03-02\", \"total_views\": \"200\", \"subscribers\": \"20\", "
+                + "\"interaction\": \"2\", \"page\": \"CINE.MITR\"}]";
+        assertThat(json(instances[0], post("/api/states/ingest").contentType(MediaType.APPLICATION_JSON), days)
+                .get("inserted").asInt()).isEqualTo(2);
+        assertThat(json(instances[0], post("/api/states/archive"), "").get("archived").asLong()).isGreaterThanOrEqualTo(2);
+
+        JsonNode ingested = json(instances[1], post("/api/states/ingest").contentType(MediaType.APPLICATION_JSON),
+                "[{\"date\": \"2020-03-01\", \"total_views\": \"150\", \"subscribers\": \"15\", "
+                        + "\"interaction\": \"1\", \"page\": \"cine.mitr\"}, "
+                        + "{\"date\": \"2020-03-03\", \"total_views\": \"300\", \"subscribers\": \"30\", "
+                        + "\"interaction\": \"3\", \"page\": \"CINE.MITR\"}]");
+        assertThat(ingested.get("inserted").asInt()).isEqualTo(1);
+        assertThat(ingested.get("rejected").asInt()).isEqualTo(1);
+        assertThat(ingested.get("errors").get(0).get("index").asInt()).isZero();
+        assertThat(send(instances[1], post("/api/states").contentType(MediaType.APPLICATION_JSON),
+                "{\"date\": \"2020-03-02\", \"total_views\": \"1\", \"subscribers\": \"1\", "
+                        + "\"interaction\": \"1\", \"page\": \"CINE.MITR\"}")).isEqualTo(400);
+
+        JsonNode month = json(instances[1], get("/api/states/rollup").param("from", "2020-03").param("to", "2020-03")
+                .param("page", "CINE.MITR"), "").get(0);
+        assertThat(month.get("days").asInt()).isEqualTo(3);
+        assertThat(month.get("total_views").asDouble()).isEqualTo(600.0);
+        List<String> listed = new ArrayList<>();
+        json(instances[1], get("/api/states").param("include_archived", "true"), "")
+                .forEach(stats -> listed.add(stats.get("date").asText()));
+        assertThat(listed).containsOnlyOnce("2020-03-01", "2020-03-02", "2020-03-03");
+    }
+
+    // Follows next_token until has_more is false, collecting the ids of the returned rows
+    private static String drainMediaChanges(String token, List<Long> seen) throws Exception {
+        JsonNode page;
+        do {
+            MockHttpServletRequestBuilder request = get("/api/media/changes");
+            if (token != null) {
+                request.param("since", token);
+            }
+            page = JSON.readTree(instances[1].perform(request).andReturn().getResponse().getContentAsString());
+            page.get("items").forEach(item -> seen.add(item.get("id").asLong()));
+            token = page.get("next_token").asText();
+        } while (page.get("has_more").asBoolean());
+        return token;
+    }
+
+    private static JsonNode json(MockMvc instance, MockHttpServletRequestBuilder request, String body) throws Exception {
+        MvcResult result = instance.perform(request.content(body)).andReturn();
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        return JSON.readTree(result.getResponse().getContentAsString());
+    }
+
+    private static int send(MockMvc instance, MockHttpServletRequestBuilder request, String body) throws Exception {
+        MvcResult result = instance.perform(request.content(body)).andReturn();
+        return result.getResponse().getStatus();
+    }
+
+    private static List<Integer> runConcurrently(List<Callable<Integer>> tasks, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Integer> results = new ArrayList<>();
+            for (Future<Integer> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private static long version(long id) {
+        return jdbcTemplate.queryForObject("SELECT version FROM upload_catalog WHERE id = ?", Long.class, id);
+    }
+}
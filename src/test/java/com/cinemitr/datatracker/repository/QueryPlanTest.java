@@ -0,0 +1,399 @@
+package com.cinemitr.datatracker.repository;
+
+import com.cinemitr.datatracker.DataTrackerApplication;
+import com.cinemitr.datatracker.enums.ContentPriority;
+import com.cinemitr.datatracker.enums.ContentStatus;
+import com.cinemitr.datatracker.enums.LocalStatus;
+import com.cinemitr.datatracker.enums.PathCategory;
+import com.cinemitr.datatracker.enums.StatsPage;
+import com.cinemitr.datatracker.enums.UploadStatus;
+import com.cinemitr.datatracker.util.LinkNormalizer;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query-plan regression check for the repository finders.
+ *
+ * Seeds a throwaway in-memory database with a large synthetic dataset, calls every derived and
+ * {@code @Query} finder of the repositories, records the SQL Hibernate generates for it through a
+ * statement inspector and runs {@code EXPLAIN} on each statement. A finder whose plan falls back to
+ * a table scan fails, and so does a finder declared on a repository without an entry below.
+ */
+class QueryPlanTest {
+
+    // Rows seeded per table
+    private static final int ROWS = 50000;
+
+    private static final List<Class<?>> REPOSITORIES = Arrays.asList(
+            ArchiveSegmentRepository.class,
+            ContentCatalogRepository.class,
+            DeletionLogRepository.class,
+            MediaCatalogRepository.class,
+            MetadataStatusRepository.class,
+            StatsArchivedDayRepository.class,
+            StatsCatalogRepository.class,
+            StatsMonthlyRollupRepository.class,
+            StatsSeriesBlockRepository.class,
+            StatusTransitionRepository.class,
+            UploadCatalogRepository.class,
+            UploadViewRepository.class);
+
+    private static final Map<String, Check<?>> CHECKS = new LinkedHashMap<>();
+    private static final Map<String, String> TOLERATED = new LinkedHashMap<>();
+
+    private static final Recorder RECORDER = new Recorder();
+
+    private static ConfigurableApplicationContext context;
+    private static JdbcTemplate jdbcTemplate;
+
+    static {
+        LocalDate day = LocalDate.of(2024, 1, 15);
+        Pageable changesPage = PageRequest.of(0, 1001);
+        Pageable idPage = PageRequest.of(0, 500);
+        List<Long> ids = Arrays.asList(1L, 42L, 4242L);
+
+        check(ArchiveSegmentRepository.class, "findIdsByEntityType", repository -> repository.findIdsByEntityType("upload"));
+        check(ArchiveSegmentRepository.class, "findPayload", repository -> repository.findPayload(42L));
+
+        check(ContentCatalogRepository.class, "findByStatus", repository -> repository.findByStatus(ContentStatus.NEW));
+        check(ContentCatalogRepository.class, "findByPriority", repository -> repository.findByPriority(ContentPriority.HIGH));
+        check(ContentCatalogRepository.class, "findByLocalStatus", repository -> repository.findByLocalStatus(LocalStatus.LOCAL));
+        check(ContentCatalogRepository.class, "findByLink", repository -> repository.findByLink("https://example.com/video/42"));
+        check(ContentCatalogRepository.class, "findByLinkHash",
+                repository -> repository.findByLinkHash(LinkNormalizer.hash("https://example.com/video/42")));
+        check(ContentCatalogRepository.class, "insertIfAbsent",
+                repository -> repository.insertIfAbsent("https://example.com/video/42", LinkNormalizer.hash("https://example.com/video/42"),
+                        ContentStatus.PENDING.getCode(), ContentPriority.MEDIUM.getCode(), LocalStatus.NOT_AVAILABLE.getCode()));
+        tolerate(ContentCatalogRepository.class, "streamAllLinkHashes",
+                "full key scan by design, streamed once at startup to build the link Bloom filter");
+        check(ContentCatalogRepository.class, "findByMediaId", repository -> repository.findByMediaId(42L));
+        check(ContentCatalogRepository.class, "findIdsByMediaId", repository -> repository.findIdsByMediaId(42L));
+        tolerate(ContentCatalogRepository.class, "countByStatus",
+                "full aggregate by design, one pass per pipeline analytics request");
+        tolerate(ContentCatalogRepository.class, "streamAll",
+                "full export by design, streamed in primary key order for the NDJSON list mode");
+        check(ContentCatalogRepository.class, "findChangedSince", repository -> repository.findChangedSince(7L, 42L, changesPage));
+
+        check(DeletionLogRepository.class, "findDeletedSince",
+                repository -> repository.findDeletedSince("media", 7L, 42L, changesPage));
+        check(DeletionLogRepository.class, "findFirstByOrderByChangeSeqDescIdDesc",
+                DeletionLogRepository::findFirstByOrderByChangeSeqDescIdDesc);
+
+        check(MediaCatalogRepository.class, "findByMediaType", repository -> repository.findByMediaType("Documentary"));
+        check(MediaCatalogRepository.class, "findByLanguage", repository -> repository.findByLanguage("Hindi"));
+        check(MediaCatalogRepository.class, "findByMainGenres", repository -> repository.findByMainGenres("Drama"));
+        check(MediaCatalogRepository.class, "findByMediaName", repository -> repository.findByMediaName("Media 42"));
+        check(MediaCatalogRepository.class, "findByMediaNameAndMediaType",
+                repository -> repository.findByMediaNameAndMediaType("Media 42", "Movie"));
+        check(MediaCatalogRepository.class, "insertIfAbsent",
+                repository -> repository.insertIfAbsent("Media 42", "Movie", "English", "Action", "Unknown"));
+        tolerate(MediaCatalogRepository.class, "findByIsDownloaded",
+                "boolean column, either value matches a large share of rows");
+        tolerate(MediaCatalogRepository.class, "streamAllKeys",
+                "full key scan by design, streamed at startup to build the media Bloom filter and name indexes");
+        tolerate(MediaCatalogRepository.class, "streamAll",
+                "full export by design, streamed in primary key order for the NDJSON list mode");
+        check(MediaCatalogRepository.class, "findChangedSince", repository -> repository.findChangedSince(7L, 42L, changesPage));
+        check(MediaCatalogRepository.class, "touchContentOfMedia", repository -> repository.touchContentOfMedia(42L));
+        check(MediaCatalogRepository.class, "touchUploadsOfMedia", repository -> repository.touchUploadsOfMedia(42L));
+        check(MediaCatalogRepository.class, "repointContentMappings", repository -> repository.repointContentMappings(42L, 43L));
+        check(MediaCatalogRepository.class, "deleteContentMappings", repository -> repository.deleteContentMappings(42L));
+        check(MediaCatalogRepository.class, "repointUploadMappings", repository -> repository.repointUploadMappings(42L, 43L));
+        check(MediaCatalogRepository.class, "deleteUploadMappings", repository -> repository.deleteUploadMappings(42L));
+
+        check(MetadataStatusRepository.class, "findByPathCategory",
+                repository -> repository.findByPathCategory(PathCategory.MEDIA_FILE));
+        tolerate(MetadataStatusRepository.class, "findByIsAvailable",
+                "boolean column, either value matches a large share of rows");
+
+        check(StatsArchivedDayRepository.class, "existsByDateAndPage",
+                repository -> repository.existsByDateAndPage(day, StatsPage.CINE_MITR));
+        check(StatsArchivedDayRepository.class, "findByDateInAndPageIn",
+                repository -> repository.findByDateInAndPageIn(Arrays.asList(day, day.plusDays(1)),
+                        Collections.singletonList(StatsPage.CINE_MITR)));
+        check(StatsArchivedDayRepository.class, "insertIfAbsent",
+                repository -> repository.insertIfAbsent(day, StatsPage.CINE_MITR.getCode()));
+
+        check(StatsCatalogRepository.class, "findByPage", repository -> repository.findByPage(StatsPage.CINE_MITR));
+        check(StatsCatalogRepository.class, "findByDateBetween",
+                repository -> repository.findByDateBetween(day.withDayOfMonth(1), day.withDayOfMonth(31)));
+        check(StatsCatalogRepository.class, "findByDate", repository -> repository.findByDate(day));
+        tolerate(StatsCatalogRepository.class, "streamAll",
+                "full export by design, streamed in primary key order for the NDJSON list mode");
+        check(StatsCatalogRepository.class, "findChangedSince", repository -> repository.findChangedSince(7L, 42L, changesPage));
+        check(StatsCatalogRepository.class, "findArchivableIds", repository -> repository.findArchivableIds(day, 42L, idPage));
+        check(StatsCatalogRepository.class, "findByDateAndPage", repository -> repository.findByDateAndPage(day, StatsPage.CINE_MITR));
+        check(StatsCatalogRepository.class, "findByDateInAndPageIn",
+                repository -> repository.findByDateInAndPageIn(Arrays.asList(day, day.plusDays(1)),
+                        Collections.singletonList(StatsPage.CINE_MITR)));
+        check(StatsCatalogRepository.class, "insertIfAbsent",
+                repository -> repository.insertIfAbsent(day, StatsPage.CINE_MITR.getCode(), 1, 1, 1, null));
+
+        check(StatsMonthlyRollupRepository.class, "findMonths",
+                repository -> repository.findMonths(day.withDayOfYear(1), day.withMonth(12).withDayOfMonth(1), null));
+        check(StatsMonthlyRollupRepository.class, "add",
+                repository -> repository.add(day.withDayOfMonth(1), StatsPage.CINE_MITR.getCode(), 1, 1, 1, 1));
+        check(StatsMonthlyRollupRepository.class, "deleteIfEmpty",
+                repository -> repository.deleteIfEmpty(day.withDayOfMonth(1), StatsPage.CINE_MITR.getCode()));
+
+        check(StatsSeriesBlockRepository.class, "findBlocks",
+                repository -> repository.findBlocks(StatsPage.CINE_MITR, 3600, day.withDayOfMonth(1), day.withDayOfMonth(31)));
+        check(StatsSeriesBlockRepository.class, "findBlocksOn",
+                repository -> repository.findBlocksOn(StatsPage.CINE_MITR, 3600, Arrays.asList(day, day.plusDays(1))));
+        check(StatsSeriesBlockRepository.class, "insertIfAbsent",
+                repository -> repository.insertIfAbsent(StatsPage.CINE_MITR.getCode(), 3600, day, new byte[]{1}));
+
+        check(UploadCatalogRepository.class, "findByStatus", repository -> repository.findByStatus(UploadStatus.BLOCKED));
+        check(UploadCatalogRepository.class, "findByMediaId", repository -> repository.findByMediaId(42L));
+        check(UploadCatalogRepository.class, "findIdsBySourceLinkId", repository -> repository.findIdsBySourceLinkId(42L));
+        check(UploadCatalogRepository.class, "findIdsByMediaId", repository -> repository.findIdsByMediaId(42L));
+        check(UploadCatalogRepository.class, "findIdsAfter", repository -> repository.findIdsAfter(42L, idPage));
+        check(UploadCatalogRepository.class, "findAllWithDetailsByIdIn", repository -> repository.findAllWithDetailsByIdIn(ids));
+        tolerate(UploadCatalogRepository.class, "countByStatus",
+                "full aggregate by design, one pass per pipeline analytics request");
+        tolerate(UploadCatalogRepository.class, "streamAll",
+                "full export by design, streamed in primary key order for the NDJSON list mode");
+        check(UploadCatalogRepository.class, "findChangedSince", repository -> repository.findChangedSince(7L, 42L, changesPage));
+        check(UploadCatalogRepository.class, "findArchivableIds",
+                repository -> repository.findArchivableIds(EnumSet.of(UploadStatus.UPLOADED, UploadStatus.COMPLETED),
+                        Date.valueOf(day), 42L, idPage));
+
+        check(StatusTransitionRepository.class, "streamTransitions",
+                repository -> repository.streamTransitions("upload", Date.valueOf(day)).close());
+        check(StatusTransitionRepository.class, "findHistory", repository -> repository.findHistory("upload", ids));
+        check(StatusTransitionRepository.class, "deleteHistory", repository -> repository.deleteHistory("upload", ids));
+
+        tolerate(UploadViewRepository.class, "findAllInOrder",
+                "full list by design, a primary key scan of the read model without joins");
+        check(UploadViewRepository.class, "findByStatusInOrder",
+                repository -> repository.findByStatusInOrder(UploadStatus.BLOCKED));
+        tolerate(UploadViewRepository.class, "findOrphanIds",
+                "full anti-join by design, only run by the upload view check and rebuild");
+    }
+
+    private static <R> void check(Class<R> repository, String method, Consumer<R> invocation) {
+        CHECKS.put(repository.getSimpleName() + "." + method, new Check<>(repository, invocation));
+    }
+
+    private static void tolerate(Class<?> repository, String method, String reason) {
+        TOLERATED.put(repository.getSimpleName() + "." + method, reason);
+    }
+
+    @BeforeAll
+    static void startAndSeed() {
+        context = new SpringApplicationBuilder(DataTrackerApplication.class)
+                .initializers(applicationContext -> applicationContext.getBeanFactory().registerSingleton("planRecorder",
+                        (HibernatePropertiesCustomizer) properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, RECORDER)))
+                .run("--spring.datasource.url=jdbc:h2:mem:plan-check;DB_CLOSE_DELAY=-1;MODE=MySQL;"
+                                + "DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE",
+                        "--spring.main.web-application-type=none",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.com.cinemitr=INFO",
+                        "--logging.level.org.springframework.web=INFO");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        seedSyntheticData();
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterAll
+    static void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void everyFinderHasACheckOrAnExemption() {
+        List<String> unchecked = new ArrayList<>();
+        for (Class<?> repository : REPOSITORIES) {
+            for (Method method : repository.getDeclaredMethods()) {
+                if (method.isDefault() || method.isSynthetic()) {
+                    continue;
+                }
+                String key = repository.getSimpleName() + "." + method.getName();
+                if (!CHECKS.containsKey(key) && !TOLERATED.containsKey(key)) {
+                    unchecked.add(key);
+                }
+            }
+        }
+        assertThat(unchecked).as("finders without a query-plan check").isEmpty();
+    }
+
+    @TestFactory
+    Stream<DynamicTest> finderPlansUseAnIndex() {
+        return CHECKS.entrySet().stream().map(entry -> DynamicTest.dynamicTest(entry.getKey(), () -> {
+            List<String> statements = record(entry.getValue());
+            assertThat(statements).as(entry.getKey() + " ran no SQL").isNotEmpty();
+            for (String sql : statements) {
+                String plan = String.join(" ", jdbcTemplate.query(
+                        connection -> connection.prepareStatement("EXPLAIN " + sql), (result, row) -> result.getString(1)));
+                assertThat(plan.toLowerCase()).as("plan of " + entry.getKey() + " regressed to a table scan: "
+                        + plan.replaceAll("\\s+", " ")).doesNotContain("tablescan");
+            }
+        }));
+    }
+
+    // Calls the finder in a transaction that is rolled back, so modifying finders leave the data as seeded
+    private static List<String> record(Check<?> check) {
+        TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        List<String> statements = new ArrayList<>();
+        RECORDER.statements.set(statements);
+        try {
+            transaction.executeWithoutResult(status -> {
+                status.setRollbackOnly();
+                check.invoke(context);
+            });
+        } finally {
+            RECORDER.statements.remove();
+        }
+        return statements;
+    }
+
+    private static void seedSyntheticData() {
+        String[] mediaTypes = {"Movie", "Web-Series", "Documentary"};
+        String[] languages = {"English", "Hindi", "Spanish", "French", "German", "Japanese", "Korean"};
+        String[] genres = {"Action", "Comedy", "Drama", "Horror", "Romance", "Thriller", "Sci-Fi"};
+        ContentStatus[] contentStatuses = ContentStatus.values();
+        ContentPriority[] priorities = ContentPriority.values();
+        LocalStatus[] localStatuses = LocalStatus.values();
+        UploadStatus[] uploadStatuses = UploadStatus.values();
+        StatsPage[] pages = StatsPage.values();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        // Synthetic days end decades before the sample statistics the application loads on startup
+        LocalDate firstDay = LocalDate.of(1950, 1, 1);
+
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 1; i <= ROWS; i++) {
+            batch.add(new Object[]{i % 3 == 0 ? "MEDIA_FILE" : "UPLOADED_FILE", "/synthetic/" + i, i % 2 == 0, "{}", now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO metadata_status (path_category, path, is_available, meta_data, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", batch);
+        Long firstMetadataId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM metadata_status WHERE path LIKE '/synthetic/%'", Long.class);
+
+        batch.clear();
+        for (int i = 1; i <= ROWS; i++) {
+            batch.add(new Object[]{mediaTypes[i % mediaTypes.length], "Media " + i, languages[i % languages.length],
+                    i % 2 == 0, genres[i % genres.length], "", "Unknown", now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO media_catalog (media_type, media_name, language, is_downloaded, main_genres, "
+                + "sub_genres, available_on, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+        Long firstMediaId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM media_catalog WHERE media_name LIKE 'Media %'", Long.class);
+
+        batch.clear();
+        for (int i = 1; i <= ROWS; i++) {
+            String link = "https://example.com/video/" + i;
+            batch.add(new Object[]{link, LinkNormalizer.hash(link), contentStatuses[i % contentStatuses.length].getCode(),
+                    priorities[i % priorities.length].getCode(), localStatuses[i % localStatuses.length].getCode(), now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO content_catalog (link, link_hash, status, priority, local_status, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+        Long firstContentId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM content_catalog WHERE link LIKE 'https://example.com/video/%'", Long.class);
+
+        batch.clear();
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(new Object[]{firstContentId + i, firstMetadataId + i, uploadStatuses[i % uploadStatuses.length].getCode(),
+                    now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO upload_catalog (source_link_id, source_data, status, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?)", batch);
+        Long firstUploadId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM upload_catalog WHERE source_data >= ?", Long.class, firstMetadataId);
+
+        batch.clear();
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(new Object[]{firstContentId + i, firstMediaId + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO content_media_mapping (content_id, media_id) VALUES (?, ?)", batch);
+
+        batch.clear();
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(new Object[]{firstUploadId + i, firstMediaId + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO upload_media_mapping (upload_id, media_id) VALUES (?, ?)", batch);
+
+        batch.clear();
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(new Object[]{firstUploadId + i, "https://example.com/video/" + (i + 1), "{}",
+                    uploadStatuses[i % uploadStatuses.length].getCode(), "", "", "Media " + (i + 1), "Movie"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO upload_view (upload_id, source_link, source_data, status, media_data, metadata, "
+                + "media_names, media_type) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+
+        batch.clear();
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(new Object[]{Date.valueOf(firstDay.plusDays(i / pages.length)), (double) i, (double) i, (double) i,
+                    pages[i % pages.length].getCode(), now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO stats_catalog (date, total_views, subscribers, interaction, page, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+
+        batch.clear();
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(new Object[]{Date.valueOf(firstDay.minusDays(1 + i / pages.length)), pages[i % pages.length].getCode()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO stats_archived_day (date, page) VALUES (?, ?)", batch);
+
+        batch.clear();
+        for (int i = 0; i < ROWS; i++) {
+            String entityType = i % 2 == 0 ? "upload" : "content";
+            batch.add(new Object[]{entityType, (long) (i / 2), null, uploadStatuses[i % uploadStatuses.length].getValue(),
+                    Timestamp.valueOf(firstDay.plusDays(i % 365).atStartOfDay())});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO status_transition (entity_type, entity_id, from_status, to_status, changed_at) "
+                + "VALUES (?, ?, ?, ?, ?)", batch);
+    }
+
+    private static final class Recorder implements StatementInspector {
+
+        // SQL Hibernate prepares on the checking thread while a finder runs, null outside of a check
+        private final ThreadLocal<List<String>> statements = new ThreadLocal<>();
+
+        @Override
+        public String inspect(String sql) {
+            List<String> recorded = statements.get();
+            if (recorded == null) {
+                return sql;
+            }
+            recorded.add(sql);
+            // The finder gets no rows, so loading its entities adds no queries over the synthetic data
+            return sql.trim().toLowerCase().startsWith("select") ? "SELECT * FROM (" + sql + ") recorded WHERE FALSE" : sql;
+        }
+    }
+
+    private static final class Check<R> {
+
+        private final Class<R> repository;
+        private final Consumer<R> invocation;
+
+        private Check(Class<R> repository, Consumer<R> invocation) {
+            this.repository = repository;
+            this.invocation = invocation;
+        }
+
+        private void invoke(ConfigurableApplicationContext context) {
+            invocation.accept(context.getBean(repository));
+        }
+    }
+}
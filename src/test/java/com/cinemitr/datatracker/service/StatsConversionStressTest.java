@@ -0,0 +1,128 @@
+package com.cinemitr.datatracker.service;
+
+import com.cinemitr.datatracker.dto.StatsCatalogDTO;
+import com.cinemitr.datatracker.entity.StatsCatalog;
+import com.cinemitr.datatracker.enums.StatsPage;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Many threads converting statistics rows and parsing dates at once, each checking every result
+ * against values formatted up front with String.format. A formatter shared between threads shows
+ * up here as dates and numbers of another row.
+ */
+class StatsConversionStressTest {
+
+    private static final int THREADS = 8;
+    private static final int ROWS = 10000;
+    private static final int CONVERSIONS_PER_THREAD = 500000;
+
+    private final StatsCatalogService service = new StatsCatalogService();
+
+    @Test
+    void concurrentConversionsReturnTheirOwnRowsValues() throws Exception {
+        List<StatsCatalog> rows = new ArrayList<>(ROWS);
+        List<String[]> expected = new ArrayList<>(ROWS);
+        LocalDate first = LocalDate.of(1990, 1, 1);
+        for (int i = 0; i < ROWS; i++) {
+            LocalDate date = first.plusDays(i);
+            // Halves and negative zero, where rounding differs between formatting approaches
+            double views = i * 1.5;
+            double subscribers = i % 2 == 0 ? -0.2 : i + 0.5;
+            double interaction = i * 1e9 + 0.49;
+            StatsPage page = StatsPage.values()[i % StatsPage.values().length];
+            StatsCatalog stats = new StatsCatalog(date, views, subscribers, interaction, page);
+            stats.setId((long) i);
+            rows.add(stats);
+            expected.add(new String[]{
+                    String.format("%04d-%02d-%02d", date.getYear(), date.getMonthValue(), date.getDayOfMonth()),
+                    String.format("%.0f", views), String.format("%.0f", subscribers),
+                    String.format("%.0f", interaction), page.getValue().toLowerCase(Locale.ROOT)});
+        }
+
+        long wrong = sumConcurrently(thread -> () -> {
+            long mismatches = 0;
+            for (int n = 0; n < CONVERSIONS_PER_THREAD; n++) {
+                int i = (n * 7 + thread * 1249) % ROWS;
+                StatsCatalogDTO dto = service.convertToDTO(rows.get(i));
+                String[] values = expected.get(i);
+                if (dto.getId() != i || !dto.getDate().equals(values[0]) || !dto.getTotalViews().equals(values[1])
+                        || !dto.getSubscribers().equals(values[2]) || !dto.getInteraction().equals(values[3])
+                        || !dto.getPage().equals(values[4])) {
+                    mismatches++;
+                }
+            }
+            return mismatches;
+        });
+
+        assertThat(wrong).isZero();
+    }
+
+    @Test
+    void concurrentParsesReturnTheirOwnDate() throws Exception {
+        List<String> texts = new ArrayList<>(ROWS);
+        List<LocalDate> dates = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            LocalDate date = LocalDate.of(1990, 1, 1).plusDays(i);
+            texts.add(String.format(" %04d-%02d-%02d ", date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+            dates.add(date);
+        }
+
+        long wrong = sumConcurrently(thread -> () -> {
+            long mismatches = 0;
+            for (int n = 0; n < CONVERSIONS_PER_THREAD; n++) {
+                int i = (n * 7 + thread * 1249) % ROWS;
+                if (!StatsCatalogService.parseDate(texts.get(i)).equals(dates.get(i))) {
+                    mismatches++;
+                }
+            }
+            return mismatches;
+        });
+
+        assertThat(wrong).isZero();
+        assertThatThrownBy(() -> StatsCatalogService.parseDate("2024-2-10"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> StatsCatalogService.parseDate("2024-02-30"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Starts one task per thread at the same moment and adds up what they return
+    private static long sumConcurrently(Task task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                Callable<Long> body = task.forThread(thread);
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return body.call();
+                }));
+            }
+            start.countDown();
+            long sum = 0;
+            for (Future<Long> result : results) {
+                sum += result.get();
+            }
+            return sum;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private interface Task {
+        Callable<Long> forThread(int thread);
+    }
+}